@@ -0,0 +1,20 @@
+import ast.Program;
+import parser.ProgramCache;
+
+import java.nio.file.Paths;
+
+public class ClassCompTester
+{
+    public static void main(String[] args) throws Exception
+    {
+        // java ClassCompTester [file] compiles file, or test, into
+        // Compiled.jar, which runs with java -jar Compiled.jar
+        String s = args.length > 0 ? args[0] : "test";
+        ProgramCache cache = new ProgramCache(Paths.get(System.getProperty("java.io.tmpdir"),
+                "astcache"));
+        Program p = cache.parse(Paths.get(s));
+
+        p.compileClass("Compiled", "Compiled.jar");
+    }
+
+}
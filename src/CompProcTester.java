@@ -1,22 +1,48 @@
 import ast.Program;
+import ast.StreamingCompiler;
 import environment.Environment;
 import parser.Parser;
+import parser.ProgramCache;
 import scanner.Scanner;
+import scanner.TokenPipeline;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.nio.file.Paths;
 
 public class CompProcTester
 {
     public static void main(String[] args) throws Exception
     {
         String s = "test";
-        InputStream reader = new FileInputStream(s);
-        Scanner scanner = new Scanner(reader);
-        Parser p = new Parser(scanner);
+        Program p;
+        if (args.length > 0 && args[0].equals("-stream"))
+        {
+            // java CompProcTester -stream compiles each procedure as soon as
+            // it is parsed, through a StreamingCompiler, without the whole AST
+            try (StreamingCompiler compiler = new StreamingCompiler("emitted"))
+            {
+                compiler.finish(new Parser(new Scanner(Paths.get(s))).parseProgram(compiler));
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("-pipeline"))
+        {
+            // java CompProcTester -pipeline scans on a separate thread
+            // through a TokenPipeline and parses without the cache
+            try (TokenPipeline tokens = new TokenPipeline(new Scanner(Paths.get(s))))
+            {
+                p = new Parser(tokens).parseProgram();
+            }
+        }
+        else
+        {
+            // an unchanged source is read back from the cache instead of being parsed
+            ProgramCache cache = new ProgramCache(Paths.get(System.getProperty("java.io.tmpdir"),
+                    "astcache"));
+            p = cache.parse(Paths.get(s));
+        }
         Environment env = new Environment(null);
 
-        p.parseProgram().compile("emitted");
+        p.compile("emitted");
     }
 
 }
@@ -1,6 +1,7 @@
 package ast;
 
 import emitter.Emitter;
+import scanner.SymbolTable;
 
 /**
  * A class that represents an assignment statement for
@@ -12,7 +13,7 @@ import emitter.Emitter;
  */
 public class Assignment extends Statement
 {
-    private String var;
+    private int var;
     private Expression exp;
 
     /**
@@ -20,25 +21,35 @@ public class Assignment extends Statement
      * the instance variables representing the name and value of the
      * variable
      *
-     * @param v the name of the variable
+     * @param v the SymbolTable id of the name of the variable
      * @param e the expression represented by the variable
      */
-    public Assignment(String v, Expression e)
+    public Assignment(int v, Expression e)
     {
         var = v;
         exp = e;
     }
 
     /**
-     * A getter method for the name of the variable
+     * A getter method for the SymbolTable id of the name of the variable
      *
      * @return the instance field var
      */
-    public String getVariable()
+    public int getVariableId()
     {
         return var;
     }
 
+    /**
+     * A getter method for the name of the variable
+     *
+     * @return the name that the instance field var stands for
+     */
+    public String getVariable()
+    {
+        return SymbolTable.name(var);
+    }
+
     /**
      * A getter method for expression stored by the assignment
      *
@@ -67,7 +78,7 @@ public class Assignment extends Statement
         else
         {
             exp.compile(e);
-            e.emit("sw $v0 var" + var);
+            e.emit("sw $v0 var" + getVariable());
         }
     }
 }
@@ -12,12 +12,15 @@ import emitter.Emitter;
 public class BinOp extends Expression
 {
     private String op;
+    private Opcode opcode;
     private Expression exp1;
     private Expression exp2;
 
     /**
      * A constructor for a BinOp object. Assigns an operator and two
      * expressions as instance variables.
+     *
+     * @precondition operator is "+", "-", "*", "/" or "%"
      * @param operator the operator for the binary operation
      * @param e1 the first expression in the operation
      * @param e2 the second expression in the operation
@@ -25,6 +28,7 @@ public class BinOp extends Expression
     public BinOp(String operator, Expression e1, Expression e2)
     {
         op = operator;
+        opcode = Opcode.of(operator);
         exp1 = e1;
         exp2 = e2;
     }
@@ -40,6 +44,17 @@ public class BinOp extends Expression
         return op;
     }
 
+    /**
+     * A getter that returns the operator for the BinOp class
+     * as an Opcode, which can be switched on.
+     *
+     * @return the instance field opcode
+     */
+    public Opcode getOpcode()
+    {
+        return opcode;
+    }
+
     /**
      * A getter that returns the first expression
      * stored by the BinOp object
@@ -75,19 +90,28 @@ public class BinOp extends Expression
         e.emitPush("$v0");
         exp2.compile(e);
         e.emitPop("$t0");
-        if (op.equals("+"))
-            e.emit("addu $v0 $v0 $t0");
-        else if (op.equals("-"))
-            e.emit("subu $v0 $t0 $v0");
-        else if (op.equals("*"))
-        {
-            e.emit("mult $t0 $v0");
-            e.emit("mflo $v0");
-        }
-        else if (op.equals("/"))
+        switch (opcode)
         {
-            e.emit("div $t0 $v0");
-            e.emit("mflo $v0");
+            case ADD:
+                e.emit("addu $v0 $v0 $t0");
+                break;
+            case SUBTRACT:
+                e.emit("subu $v0 $t0 $v0");
+                break;
+            case MULTIPLY:
+                e.emit("mult $t0 $v0");
+                e.emit("mflo $v0");
+                break;
+            case DIVIDE:
+                e.emit("div $t0 $v0");
+                e.emit("mflo $v0");
+                break;
+            case MOD:
+                e.emit("div $t0 $v0");
+                e.emit("mfhi $v0");
+                break;
+            default:
+                break;
         }
     }
 }
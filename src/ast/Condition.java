@@ -13,6 +13,7 @@ import emitter.Emitter;
 public class Condition extends Expression
 {
     private String operator;
+    private Opcode opcode;
     private Expression expr1;
     private Expression expr2;
 
@@ -20,6 +21,7 @@ public class Condition extends Expression
      * A constructor for a Condition object. The condition includes
      * an operator and two expressions.
      *
+     * @precondition op is "=", "<>", "<", ">", "<=" or ">="
      * @param op the operator in the Condition
      * @param e1 the first expression
      * @param e2 the second expression
@@ -27,6 +29,7 @@ public class Condition extends Expression
     public Condition(String op, Expression e1, Expression e2)
     {
         operator = op;
+        opcode = Opcode.of(op);
         expr1 = e1;
         expr2 = e2;
     }
@@ -42,6 +45,17 @@ public class Condition extends Expression
         return operator;
     }
 
+    /**
+     * A getter that returns the operator for the Condition class
+     * as an Opcode, which can be switched on.
+     *
+     * @return the instance field opcode
+     */
+    public Opcode getOpcode()
+    {
+        return opcode;
+    }
+
     /**
      * A getter that returns the first expression
      * stored by the Condition object
@@ -77,17 +91,28 @@ public class Condition extends Expression
         e.emit("move $t0 $v0");
         expr2.compile(e);
         e.emit("move $t1 $v0");
-        if (operator.equals("<="))
-            e.emit("bgt $t0 $t1 " + label);
-        else if (operator.equals("<"))
-            e.emit("bge $t0 $t1 " + label);
-        else if (operator.equals(">="))
-            e.emit("blt $t0 $t1 " + label);
-        else if (operator.equals(">"))
-            e.emit("ble $t0 $t1 " + label);
-        else if (operator.equals("="))
-            e.emit("bne $t0 $t1 " + label);
-        else if (operator.equals("<>"))
-            e.emit("beq $t0 $t1 " + label);
+        switch (opcode)
+        {
+            case LESS_EQUAL:
+                e.emit("bgt $t0 $t1 " + label);
+                break;
+            case LESS:
+                e.emit("bge $t0 $t1 " + label);
+                break;
+            case GREATER_EQUAL:
+                e.emit("blt $t0 $t1 " + label);
+                break;
+            case GREATER:
+                e.emit("ble $t0 $t1 " + label);
+                break;
+            case EQUAL:
+                e.emit("bne $t0 $t1 " + label);
+                break;
+            case NOT_EQUAL:
+                e.emit("beq $t0 $t1 " + label);
+                break;
+            default:
+                break;
+        }
     }
 }
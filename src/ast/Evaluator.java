@@ -2,18 +2,41 @@ package ast;
 
 import environment.Environment;
 import jdk.jshell.spi.ExecutionControlProvider;
+import jit.CompiledCode;
+import jit.TieredCompiler;
 
-import java.util.ListIterator;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * An evaluator class that can execute statements or evaluate
  * expressions.
  *
+ * Procedures that are called often and While loops that go around
+ * often are compiled to JVM bytecode by a TieredCompiler, and run as
+ * compiled code from then on. Compiled code keeps its variables in the
+ * same Environment and makes its calls through the same methods, so it
+ * can take over from the Evaluator at any call or loop iteration.
+ *
  * @author Daniel Wu
  * @version 10/19/2019
  */
 public class Evaluator
 {
+    private int[] arguments = new int[16];
+    private int argumentCount;
+    private TieredCompiler tiers = new TieredCompiler();
+
+    /**
+     * Sets the TieredCompiler that decides when procedures and loops
+     * are compiled.
+     *
+     * @param t the TieredCompiler to use, or null to only interpret
+     */
+    public void setTieredCompiler(TieredCompiler t)
+    {
+        tiers = t;
+    }
 
     /**
      * Executes a generic statement based on which subclass
@@ -71,7 +94,7 @@ public class Evaluator
         }
         else if (expr instanceof Variable)
         {
-            System.out.println(env.getVariable((((Variable) expr).getName())));
+            System.out.println(env.getVariable((((Variable) expr).getId())));
         }
         else if (expr instanceof BinOp)
         {
@@ -97,20 +120,20 @@ public class Evaluator
         Expression expr = assignment.getExpression();
         if (expr instanceof Number)
         {
-            env.setVariable(assignment.getVariable(), ((Number) expr).getValue());
+            env.setVariable(assignment.getVariableId(), ((Number) expr).getValue());
             return;
         }
         else if (expr instanceof Variable)
         {
-            env.setVariable(assignment.getVariable(), env.getVariable(((Variable) expr).getName()));
+            env.setVariable(assignment.getVariableId(), env.getVariable(((Variable) expr).getId()));
         }
         else if (expr instanceof BinOp)
         {
-            env.setVariable(assignment.getVariable(), eval((BinOp) expr, env));
+            env.setVariable(assignment.getVariableId(), eval((BinOp) expr, env));
         }
         else if (expr instanceof ProcedureCall)
         {
-            env.setVariable(assignment.getVariable(), eval(((ProcedureCall) expr), env));
+            env.setVariable(assignment.getVariableId(), eval(((ProcedureCall) expr), env));
         }
     }
 
@@ -126,10 +149,10 @@ public class Evaluator
      */
     public void exec(Block block, Environment env) throws Exception
     {
-        ListIterator<Statement> statements = block.getStatements().listIterator();
-        while (statements.hasNext())
+        List<Statement> statements = block.getStatements();
+        for (int i = 0; i < statements.size(); i++)
         {
-            Statement s = statements.next();
+            Statement s = statements.get(i);
             if (s instanceof Assignment)
             {
                 exec((Assignment) s, env);
@@ -173,7 +196,8 @@ public class Evaluator
     /**
      * Executes a While statement by determining whether the Condition
      * evaluates to true, then executing the statement based on that result
-     * in a while loop
+     * in a while loop. Once the loop has gone around often enough, the
+     * rest of it runs as compiled code.
      *
      * @param whileStatement the If Statement being executed
      * @param env the environment used in the AST
@@ -181,10 +205,30 @@ public class Evaluator
      */
     public void exec(While whileStatement, Environment env) throws Exception
     {
-        while (eval(whileStatement.getCondition(), env))
+        CompiledCode code = tiers == null ? null : tiers.loop(whileStatement, 0);
+        if (code == null)
         {
-            exec(whileStatement.getStatement(), env);
+            int backEdges = 0;
+            while (eval(whileStatement.getCondition(), env))
+            {
+                exec(whileStatement.getStatement(), env);
+                if (++backEdges == TieredCompiler.LOOP_CHECK && tiers != null)
+                {
+                    code = tiers.loop(whileStatement, backEdges);
+                    backEdges = 0;
+                    if (code != null)
+                        break;
+                }
+            }
+            if (code == null)
+            {
+                if (backEdges > 0 && tiers != null)
+                    tiers.loop(whileStatement, backEdges);
+                return;
+            }
         }
+        // the loop is compiled, and continues from its condition
+        code.run(this, env);
     }
 
     /**
@@ -197,7 +241,7 @@ public class Evaluator
      */
     public void exec(ProcedureDeclaration procedureDec, Environment env)
     {
-        env.setProcedure(procedureDec.getName(), procedureDec);
+        env.setProcedure(procedureDec.getId(), procedureDec);
     }
 
 
@@ -233,7 +277,7 @@ public class Evaluator
         if (expression instanceof Number)
             return ((Number) expression).getValue();
         else if (expression instanceof Variable)
-            return env.getVariable(((Variable) expression).getName());
+            return env.getVariable(((Variable) expression).getId());
         else if (expression instanceof BinOp)
             return eval((BinOp) expression, env);
         else if (expression instanceof ProcedureCall)
@@ -253,24 +297,27 @@ public class Evaluator
      */
     public boolean eval(Condition c, Environment env) throws Exception
     {
-        String op = c.getOperator();
         Expression exp1 = c.getExpression1();
         Expression exp2 = c.getExpression2();
         int num1 = eval(exp1, env);
         int num2 = eval(exp2, env);
-        if (op.equals("="))
-            return num1 == num2;
-        else if (op.equals("<>"))
-            return num1 != num2;
-        else if (op.equals("<"))
-            return num1 < num2;
-        else if (op.equals(">"))
-            return num1 > num2;
-        else if (op.equals("<="))
-            return num1 <= num2;
-        else if (op.equals(">="))
-            return num1 >= num2;
-        return false;
+        switch (c.getOpcode())
+        {
+            case EQUAL:
+                return num1 == num2;
+            case NOT_EQUAL:
+                return num1 != num2;
+            case LESS:
+                return num1 < num2;
+            case GREATER:
+                return num1 > num2;
+            case LESS_EQUAL:
+                return num1 <= num2;
+            case GREATER_EQUAL:
+                return num1 >= num2;
+            default:
+                return false;
+        }
     }
 
 
@@ -291,7 +338,7 @@ public class Evaluator
         if (expr1 instanceof Number)
             val1 = ((Number) expr1).getValue();
         else if (expr1 instanceof Variable)
-            val1 = env.getVariable(((Variable) expr1).getName());
+            val1 = env.getVariable(((Variable) expr1).getId());
         else if (expr1 instanceof BinOp)
             val1 = eval((BinOp) expr1, env);
 
@@ -299,64 +346,122 @@ public class Evaluator
         if (expr2 instanceof Number)
             val2 = ((Number) expr2).getValue();
         else if (expr2 instanceof Variable)
-            val2 = env.getVariable(((Variable) expr2).getName());
+            val2 = env.getVariable(((Variable) expr2).getId());
         else if (expr2 instanceof BinOp)
             val2 = eval((BinOp) expr2, env);
-        if (binop.getOperator().equals("*"))
-        {
-            return val1 * val2;
-        }
-        else if (binop.getOperator().equals("/"))
+        switch (binop.getOpcode())
         {
-            return val1 / val2;
+            case MULTIPLY:
+                return val1 * val2;
+            case DIVIDE:
+                return val1 / val2;
+            case ADD:
+                return val1 + val2;
+            case SUBTRACT:
+                return val1 - val2;
+            case MOD:
+                return val1 % val2;
+            default:
+                return 0;
         }
-        else if (binop.getOperator().equals("+"))
-        {
-            return val1 + val2;
-        }
-        else if (binop.getOperator().equals("-"))
+    }
+
+    /**
+     * Evaluates a Procedure Call from the user. The arguments are evaluated
+     * first, with the variables of the caller, and then the procedure is
+     * called on them.
+     *
+     * @param call the ProcedureCall that is called by the user
+     * @param env the environment the procedure is called from
+     * @return the return value of the procedure; the value assigned to the
+     *         variable sharing the name of the method while it ran
+     * @throws Exception when variable is not found
+     */
+    public int eval(ProcedureCall call, Environment env) throws Exception
+    {
+        List<Expression> args = call.getArgs();
+        int base = argumentCount;
+        try
         {
-            return val1 - val2;
+            for (int i = 0; i < args.size(); i++)
+                pushArgument(call.getId(), i, eval(args.get(i), env), env);
+            return call(call.getId(), base, env);
         }
-        else if (binop.getOperator().equals("%"))
+        finally
         {
-            return val1 % val2;
+            argumentCount = base;
         }
-        return 0;
     }
 
     /**
-     * Evaluates a Procedure Call from the user. First creates a hanging
-     * environment from the global environment, then creates a variable in
-     * said environment sharing the name of the procedure. This variable
-     * stores the return value of the procedure. Then, the formal parameters
-     * are replaced with actual values and the statement from the
-     * ProcedureDeclaration is called. Finally, the value assigned to the
-     * variable sharing the name of the procedure will be returned.
+     * Returns where the arguments of the next call start, to be passed to
+     * call once they are pushed. Compiled code calls this.
      *
-     * @param call the ProcedureCall that is called by the user
-     * @param env the global environment passed in for the procedure
-     * @return the return value of the procedure; the value assigned to the
-     *         variable sharing the name of the method in the
-     *         local environment
+     * @return the instance field argumentCount
+     */
+    public int getArgumentCount()
+    {
+        return argumentCount;
+    }
+
+    /**
+     * Pushes the value of an argument of a call, with the parameter it is
+     * for. The parameter ids and argument values wait on the instance field
+     * arguments while the rest are evaluated, so a call allocates nothing.
+     *
+     * @param procedure the SymbolTable id of the procedure being called
+     * @param index the index of the argument
+     * @param value the value of the argument
+     * @param env the environment the procedure is called from
+     */
+    public void pushArgument(int procedure, int index, int value, Environment env)
+    {
+        ProcedureDeclaration dec = env.getProcedure(procedure);
+        int param = dec.getParams()[index];
+        if (argumentCount + 2 > arguments.length)
+            arguments = Arrays.copyOf(arguments, 2 * arguments.length);
+        arguments[argumentCount] = param;
+        arguments[argumentCount + 1] = value;
+        argumentCount += 2;
+    }
+
+    /**
+     * Calls a procedure on the arguments pushed since a mark. A variable
+     * sharing the name of the procedure, which stores the return value of
+     * the procedure, and the formal parameters are bound in the
+     * environment, shadowing any variables of the caller with the same
+     * names, and the statement from the ProcedureDeclaration is run, as
+     * compiled code once the procedure has been called often enough.
+     * Finally, the value assigned to the variable sharing the name of the
+     * procedure is returned, and the shadowed variables get their values
+     * back.
+     *
+     * @param procedure the SymbolTable id of the procedure
+     * @param base the argument count from before the arguments were pushed
+     * @param env the environment the procedure is called from
+     * @return the return value of the procedure
      * @throws Exception when variable is not found
      */
-    public int eval(ProcedureCall call, Environment env) throws Exception
+    public int call(int procedure, int base, Environment env) throws Exception
     {
-        ProcedureDeclaration dec = env.getProcedure(call.getName());
-        ListIterator<Expression> iter = call.getArgs().listIterator();
-        Environment localEnv = new Environment(env);
-        localEnv.declareVariable(call.getName(), 0);
+        ProcedureDeclaration dec = env.getProcedure(procedure);
+        int mark = env.getBindings();
+        try
+        {
+            env.bindFrame(procedure, arguments, base, argumentCount);
+            argumentCount = base;
 
-        int argIndex = 0;
-        while (iter.hasNext())
+            CompiledCode code = tiers == null ? null : tiers.procedure(dec);
+            if (code == null)
+                exec(dec.getDeclaration(), env);
+            else
+                code.run(this, env);
+            return env.getVariable(procedure);
+        }
+        finally
         {
-            Expression e = iter.next();
-            localEnv.declareVariable(dec.getParams().get(argIndex), eval(e, env));
-            argIndex++;
+            argumentCount = base;
+            env.unbind(mark);
         }
-
-        exec(dec.getDeclaration(), localEnv);
-        return localEnv.getVariable(call.getName());
     }
 }
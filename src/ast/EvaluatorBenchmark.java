@@ -0,0 +1,124 @@
+package ast;
+
+import closure.ClosureCompiler;
+import closure.StatementCode;
+import environment.Environment;
+import node.NodeCompiler;
+import node.StatementNode;
+import jit.TieredCompiler;
+import parser.Parser;
+import scanner.TokenBuffer;
+import vm.Bytecode;
+import vm.BytecodeCompiler;
+import vm.VirtualMachine;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Times the Evaluator on two generated programs: a tight WHILE loop in the
+ * main statement, which only reads and assigns variables, and a recursive
+ * procedure, which makes a call for every step. For each, the time of the
+ * fastest round and the bytes the evaluating thread allocated in it are
+ * printed, along with the bytes allocated per loop iteration or per call.
+ * Each program is timed on an Evaluator that only interprets, on one that
+ * compiles hot procedures and loops with the default TieredCompiler, on
+ * the VirtualMachine, compiled to Bytecode, as closures from a
+ * ClosureCompiler, and as a tree of self-specializing nodes from a
+ * NodeCompiler. Each program is parsed and compiled once, so only
+ * evaluation is measured, and the tiered Evaluators share one
+ * TieredCompiler and the rounds of nodes one tree, so the fastest round
+ * runs code already compiled or specialized.
+ *
+ * Usage: java ast.EvaluatorBenchmark
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class EvaluatorBenchmark
+{
+    private static final int ROUNDS = 20;
+    private static final String[] PASSES = {"Evaluator", "tiered", "VM", "closures", "nodes"};
+
+    public static void main(String[] args) throws Exception
+    {
+        time("while loop", "VAR i, sum;\n" +
+                "BEGIN\n" +
+                "  i := 0;\n" +
+                "  sum := 0;\n" +
+                "  WHILE i < 1000000 DO\n" +
+                "  BEGIN\n" +
+                "    sum := (sum + i % 7 * i) % 1000;\n" +
+                "    i := i + 1;\n" +
+                "  END;\n" +
+                "  WRITELN(sum);\n" +
+                "END;\n.", 1000000);
+        time("recursive calls", "VAR x;\n" +
+                "PROCEDURE fib(n, a, b);\n" +
+                "BEGIN\n" +
+                "  fib := n;\n" +
+                "  IF n > 1 THEN\n" +
+                "  BEGIN\n" +
+                "    a := fib(n - 1, 0, 0);\n" +
+                "    b := fib(n - 2, 0, 0);\n" +
+                "    fib := a + b;\n" +
+                "  END;\n" +
+                "END;\n" +
+                "BEGIN\n" +
+                "  x := fib(24, 0, 0);\n" +
+                "  WRITELN(x);\n" +
+                "END;\n.", 150049);
+    }
+
+    /**
+     * Evaluates a program several times, printing the time and allocation
+     * of the fastest round.
+     *
+     * @param label the name of the program to print
+     * @param source the source of the program
+     * @param steps the number of loop iterations or calls the program makes
+     * @throws Exception if the program cannot be parsed or evaluated
+     */
+    private static void time(String label, String source, int steps) throws Exception
+    {
+        Program program = new Parser(TokenBuffer.lex(source)).parseProgram();
+        Bytecode bytecode = new BytecodeCompiler().compile(program);
+        StatementCode closures = new ClosureCompiler().compile(program);
+        StatementNode nodes = new NodeCompiler().compile(program);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        TieredCompiler tiers = new TieredCompiler();
+
+        for (int pass = 0; pass < PASSES.length; pass++)
+        {
+            long best = Long.MAX_VALUE;
+            long allocated = 0;
+            for (int i = 0; i < ROUNDS; i++)
+            {
+                long bytes = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                if (pass < 2)
+                {
+                    Evaluator evaluator = new Evaluator();
+                    evaluator.setTieredCompiler(pass == 0 ? null : tiers);
+                    evaluator.exec(program, new Environment(null));
+                }
+                else if (pass == 2)
+                    new VirtualMachine().exec(bytecode, new Environment(null));
+                else if (pass == 3)
+                    closures.exec(new Environment(null));
+                else
+                    nodes.exec(new Environment(null));
+                long elapsed = System.nanoTime() - start;
+                if (elapsed < best)
+                {
+                    best = elapsed;
+                    allocated = threads.getThreadAllocatedBytes(thread) - bytes;
+                }
+            }
+            System.out.printf("%-16s %-9s %8.3f ms %10d bytes allocated, %.3f per step%n",
+                    label + ":", PASSES[pass], best / 1e6, allocated,
+                    (double) allocated / steps);
+        }
+    }
+}
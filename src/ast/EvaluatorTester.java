@@ -1,8 +1,11 @@
 package ast;
 
+import closure.ClosureCompiler;
 import environment.Environment;
+import node.NodeCompiler;
 import parser.Parser;
 import scanner.Scanner;
+import vm.VirtualMachine;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -24,12 +27,26 @@ public class EvaluatorTester {
             }
         } */
 
-        String s = "test";
+        // java ast.EvaluatorTester [-vm | -closure | -node] [file] runs file,
+        // or test, on the VirtualMachine with -vm, as closures from a
+        // ClosureCompiler with -closure, as a self-specializing tree from a
+        // NodeCompiler with -node, and on the Evaluator otherwise
+        boolean vm = args.length > 0 && args[0].equals("-vm");
+        boolean closures = args.length > 0 && args[0].equals("-closure");
+        boolean nodes = args.length > 0 && args[0].equals("-node");
+        String s = args.length > (vm || closures || nodes ? 1 : 0) ? args[args.length - 1] : "test";
         InputStream reader = new FileInputStream(s);
         Scanner scanner = new Scanner(reader);
         Parser p = new Parser(scanner);
         Environment env = new Environment(null);
-        e.exec(p.parseProgram(), env);
+        if (vm)
+            new VirtualMachine().exec(p.parseProgram(), env);
+        else if (closures)
+            new ClosureCompiler().compile(p.parseProgram()).exec(env);
+        else if (nodes)
+            new NodeCompiler().compile(p.parseProgram()).exec(env);
+        else
+            e.exec(p.parseProgram(), env);
 
     }
 }
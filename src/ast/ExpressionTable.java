@@ -0,0 +1,234 @@
+package ast;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * An ExpressionTable hash-conses expressions: it hands out one shared node
+ * for every distinct Number, Variable and BinOp, so that structurally
+ * identical subexpressions, such as every x + y in a program, are the
+ * same object. These nodes never change once constructed, so sharing them
+ * is safe, and later phases can cache results per node by identity.
+ *
+ * A BinOp is looked up by its Opcode and the identity of its operands.
+ * Operands built through the same table are already shared, so equal
+ * identities mean equal trees, and a lookup never walks a subtree.
+ * ProcedureCalls are never shared, since their argument lists can change.
+ *
+ * The table only holds its nodes weakly: a node that no AST uses any more
+ * is collected as usual and its entry is dropped on a later lookup.
+ * Lookups are synchronized, so several Parsers can share one table.
+ *
+ * Usage: parser.setHashConsing(true);
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public final class ExpressionTable
+{
+    private static final ExpressionTable SHARED = new ExpressionTable();
+
+    private final ReferenceQueue<Expression> cleared = new ReferenceQueue<Expression>();
+    private Entry[] buckets;
+    private int count;
+
+    /**
+     * An entry of the table, which weakly refers to its node.
+     */
+    private static final class Entry extends WeakReference<Expression>
+    {
+        private final int hash;
+        private Entry next;
+
+        /**
+         * Constructs an Entry at the head of a bucket.
+         *
+         * @param node the node of the entry
+         * @param h the hash of the node
+         * @param n the entry that was at the head of the bucket
+         * @param queue the queue that the entry is put on once node is collected
+         */
+        Entry(Expression node, int h, Entry n, ReferenceQueue<Expression> queue)
+        {
+            super(node, queue);
+            hash = h;
+            next = n;
+        }
+    }
+
+    /**
+     * Constructs an empty ExpressionTable.
+     */
+    public ExpressionTable()
+    {
+        buckets = new Entry[256];
+    }
+
+    /**
+     * Returns the table that Parsers share when hash-consing is turned on.
+     *
+     * @return the shared ExpressionTable
+     */
+    public static ExpressionTable shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Returns the shared Number with a value.
+     *
+     * @param value the value of the number
+     * @return a Number with that value
+     */
+    public synchronized Number number(int value)
+    {
+        int hash = hash(Opcode.NUMBER.ordinal(), value, 0);
+        for (Entry e = buckets[hash & (buckets.length - 1)]; e != null; e = e.next)
+        {
+            Expression node = e.get();
+            if (e.hash == hash && node instanceof Number && ((Number) node).getValue() == value)
+                return (Number) node;
+        }
+        Number node = new Number(value);
+        add(node, hash);
+        return node;
+    }
+
+    /**
+     * Returns the shared Variable with a SymbolTable id.
+     *
+     * @param id the id of the variable
+     * @return a Variable with that id
+     */
+    public synchronized Variable variable(int id)
+    {
+        int hash = hash(Opcode.VARIABLE.ordinal(), id, 0);
+        for (Entry e = buckets[hash & (buckets.length - 1)]; e != null; e = e.next)
+        {
+            Expression node = e.get();
+            if (e.hash == hash && node instanceof Variable && ((Variable) node).getId() == id)
+                return (Variable) node;
+        }
+        Variable node = new Variable(id);
+        add(node, hash);
+        return node;
+    }
+
+    /**
+     * Returns the shared BinOp of an operator and two operands.
+     *
+     * @precondition operator is "+", "-", "*", "/" or "%"
+     * @param operator the operator of the operation
+     * @param e1 the first operand, from this table if it can be shared
+     * @param e2 the second operand, from this table if it can be shared
+     * @return a BinOp of operator on exactly e1 and e2
+     */
+    public synchronized BinOp binOp(String operator, Expression e1, Expression e2)
+    {
+        Opcode opcode = Opcode.of(operator);
+        int hash = hash(opcode.ordinal(), System.identityHashCode(e1), System.identityHashCode(e2));
+        for (Entry e = buckets[hash & (buckets.length - 1)]; e != null; e = e.next)
+        {
+            Expression node = e.get();
+            if (e.hash == hash && node instanceof BinOp)
+            {
+                BinOp b = (BinOp) node;
+                if (b.getOpcode() == opcode && b.getExpression1() == e1 && b.getExpression2() == e2)
+                    return b;
+            }
+        }
+        BinOp node = new BinOp(operator, e1, e2);
+        add(node, hash);
+        return node;
+    }
+
+    /**
+     * Returns the number of entries in the table. Entries of nodes that
+     * have been collected are counted until they are dropped.
+     *
+     * @return the instance field count
+     */
+    public synchronized int size()
+    {
+        expunge();
+        return count;
+    }
+
+    /**
+     * Adds a node to the table, first dropping the entries of collected
+     * nodes and growing the table if it is three quarters full.
+     *
+     * @param node the node to add
+     * @param hash the hash of the node
+     */
+    private void add(Expression node, int hash)
+    {
+        expunge();
+        if (count >= buckets.length / 4 * 3)
+            grow();
+        int i = hash & (buckets.length - 1);
+        buckets[i] = new Entry(node, hash, buckets[i], cleared);
+        count++;
+    }
+
+    /**
+     * Drops the entries whose nodes have been collected.
+     */
+    private void expunge()
+    {
+        for (Object ref = cleared.poll(); ref != null; ref = cleared.poll())
+        {
+            Entry dead = (Entry) ref;
+            int i = dead.hash & (buckets.length - 1);
+            Entry previous = null;
+            for (Entry e = buckets[i]; e != null; previous = e, e = e.next)
+            {
+                if (e == dead)
+                {
+                    if (previous == null)
+                        buckets[i] = e.next;
+                    else
+                        previous.next = e.next;
+                    count--;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Doubles the number of buckets, moving every entry to its new bucket.
+     */
+    private void grow()
+    {
+        Entry[] larger = new Entry[buckets.length * 2];
+        for (Entry head : buckets)
+        {
+            Entry e = head;
+            while (e != null)
+            {
+                Entry next = e.next;
+                int i = e.hash & (larger.length - 1);
+                e.next = larger[i];
+                larger[i] = e;
+                e = next;
+            }
+        }
+        buckets = larger;
+    }
+
+    /**
+     * Mixes the fields of a node into a hash.
+     *
+     * @param kind the ordinal of the Opcode of the node
+     * @param a the value or first operand identity of the node
+     * @param b the second operand identity of the node, or 0
+     * @return the hash
+     */
+    private static int hash(int kind, int a, int b)
+    {
+        int h = (kind * 31 + a) * 0x9E3779B9 + b;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,694 @@
+package ast;
+
+import scanner.SymbolTable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * A FlatProgram is a compact form of a Program's AST. Instead of one object
+ * per node with references to its children, the nodes are stored as
+ * parallel int arrays (struct of arrays), and children are referred to by
+ * their index:
+ *
+ *   opcodes  the ordinal of the node's Opcode
+ *   values   a number, or the SymbolTable id of a name
+ *   firsts   the first child, or the offset of a list
+ *   seconds  the second child, or the offset of a list
+ *
+ * Children that there can be any number of, such as the statements of a
+ * block or the arguments of a call, are stored in one more array, lists.
+ * A list is the offset of its length in lists, and its items follow it.
+ * What each field holds depends on the Opcode:
+ *
+ *   NUMBER        value is the number
+ *   VARIABLE      value is the id of the variable
+ *   CALL          value is the id of the procedure, first is the arguments
+ *   ADD .. MOD    first and second are the operands
+ *   EQUAL .. GREATER_EQUAL   first and second are the operands
+ *   WRITELN       first is the expression
+ *   ASSIGN        value is the id of the variable, first is the expression
+ *   BLOCK         first is the statements
+ *   IF, WHILE     first is the condition, second is the statement
+ *   PROCEDURE     value is the id of the procedure, first is the body,
+ *                 second is the ids of the parameters, followed by the ids
+ *                 of the local variables
+ *   PROGRAM       first is the ids of the global variables, followed by the
+ *                 procedures, second is the statement
+ *
+ * The nodes are in post-order: every node comes after all of its children,
+ * and the Program is the last node. A pass that works from the leaves up,
+ * such as converting back into a Program, is therefore a single loop over
+ * the arrays, and neither conversion recurses, so trees of any depth
+ * convert.
+ *
+ * A FlatProgram can be written to bytes and read back, which is little
+ * more than copying its arrays. SymbolTable ids are only meaningful within
+ * one run, so the bytes carry the names of the identifiers that the program
+ * uses, and ids are written as indexes into those names and mapped back to
+ * ids of the current SymbolTable when they are read.
+ *
+ * Usage: FlatProgram flat = FlatProgram.of(new Parser(tokens).parseProgram());
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class FlatProgram
+{
+    // the first ints of the bytes of a FlatProgram, "FAST", and the version
+    // of the format, which changes whenever the layout of the bytes does
+    private static final int MAGIC = 0x46415354;
+    private static final int FORMAT = 1;
+
+    private int[] opcodes;
+    private int[] values;
+    private int[] firsts;
+    private int[] seconds;
+    private int size;
+
+    private int[] lists;
+    private int listSize;
+
+    /**
+     * Constructs an empty FlatProgram.
+     *
+     * @param nodes the number of nodes to make room for
+     */
+    private FlatProgram(int nodes)
+    {
+        opcodes = new int[nodes];
+        values = new int[nodes];
+        firsts = new int[nodes];
+        seconds = new int[nodes];
+        lists = new int[Math.max(16, nodes)];
+    }
+
+    /**
+     * Converts a Program into a FlatProgram. The nodes are first listed
+     * with an explicit stack, parents before their children and children
+     * from right to left, which is post-order backwards. They are then
+     * added in reverse, so that each node's children have been added
+     * before it.
+     *
+     * @param program the Program to convert
+     * @return the Program as a FlatProgram
+     * @throws IllegalArgumentException if the Program contains a kind of
+     *         node that has no Opcode
+     */
+    public static FlatProgram of(Program program)
+    {
+        ArrayList<Object> order = new ArrayList<Object>();
+        ArrayList<Object> stack = new ArrayList<Object>();
+        stack.add(program);
+        while (!stack.isEmpty())
+        {
+            Object node = stack.remove(stack.size() - 1);
+            order.add(node);
+            pushChildren(node, stack);
+        }
+
+        FlatProgram flat = new FlatProgram(order.size());
+        int[] starts = new int[order.size()];
+        for (int i = order.size() - 1; i >= 0; i--)
+            flat.add(order.get(i), starts);
+        return flat;
+    }
+
+    /**
+     * Pushes the children of a node onto a stack, from left to right.
+     *
+     * @param node a node of a Program
+     * @param stack the stack of nodes still to be listed
+     * @throws IllegalArgumentException if the node has no Opcode
+     */
+    private static void pushChildren(Object node, ArrayList<Object> stack)
+    {
+        if (node instanceof Number || node instanceof Variable)
+            return;
+        if (node instanceof ProcedureCall)
+            stack.addAll(((ProcedureCall) node).getArgs());
+        else if (node instanceof BinOp)
+        {
+            stack.add(((BinOp) node).getExpression1());
+            stack.add(((BinOp) node).getExpression2());
+        }
+        else if (node instanceof Condition)
+        {
+            stack.add(((Condition) node).getExpression1());
+            stack.add(((Condition) node).getExpression2());
+        }
+        else if (node instanceof Writeln)
+            stack.add(((Writeln) node).getExpression());
+        else if (node instanceof Assignment)
+            stack.add(((Assignment) node).getExpression());
+        else if (node instanceof Block)
+            stack.addAll(((Block) node).getStatements());
+        else if (node instanceof If)
+        {
+            stack.add(((If) node).getCondition());
+            stack.add(((If) node).getStatement());
+        }
+        else if (node instanceof While)
+        {
+            stack.add(((While) node).getCondition());
+            stack.add(((While) node).getStatement());
+        }
+        else if (node instanceof ProcedureDeclaration)
+            stack.add(((ProcedureDeclaration) node).getDeclaration());
+        else if (node instanceof Program)
+        {
+            stack.addAll(((Program) node).getProcedures());
+            stack.add(((Program) node).getStatement());
+        }
+        else
+            throw new IllegalArgumentException("Cannot flatten a " +
+                    (node == null ? "null node" : node.getClass().getSimpleName()));
+    }
+
+    /**
+     * Adds a node after all of its children. Its last child is the node
+     * just added, and each earlier child ends just before the subtree of
+     * the child after it starts.
+     *
+     * @param node the node to add
+     * @param starts the index of the first node of the subtree of each node
+     *               added so far; the entry for this node is filled in
+     */
+    private void add(Object node, int[] starts)
+    {
+        int at = size;
+        int count = 0;
+        if (node instanceof ProcedureCall)
+            count = ((ProcedureCall) node).getArgs().size();
+        else if (node instanceof BinOp || node instanceof Condition ||
+                node instanceof If || node instanceof While)
+            count = 2;
+        else if (node instanceof Writeln || node instanceof Assignment ||
+                node instanceof ProcedureDeclaration)
+            count = 1;
+        else if (node instanceof Block)
+            count = ((Block) node).getStatements().size();
+        else if (node instanceof Program)
+            count = ((Program) node).getProcedures().size() + 1;
+
+        int[] children = new int[count];
+        int child = at - 1;
+        for (int i = count - 1; i >= 0; i--)
+        {
+            children[i] = child;
+            child = starts[child] - 1;
+        }
+        starts[at] = count == 0 ? at : starts[children[0]];
+
+        Opcode opcode;
+        int value = 0;
+        int first = 0;
+        int second = 0;
+        if (node instanceof Number)
+        {
+            opcode = Opcode.NUMBER;
+            value = ((Number) node).getValue();
+        }
+        else if (node instanceof Variable)
+        {
+            opcode = Opcode.VARIABLE;
+            value = ((Variable) node).getId();
+        }
+        else if (node instanceof ProcedureCall)
+        {
+            opcode = Opcode.CALL;
+            value = ((ProcedureCall) node).getId();
+            first = addList(children, 0, count);
+        }
+        else if (node instanceof BinOp || node instanceof Condition)
+        {
+            opcode = node instanceof BinOp ? ((BinOp) node).getOpcode() :
+                    ((Condition) node).getOpcode();
+            first = children[0];
+            second = children[1];
+        }
+        else if (node instanceof Writeln)
+        {
+            opcode = Opcode.WRITELN;
+            first = children[0];
+        }
+        else if (node instanceof Assignment)
+        {
+            opcode = Opcode.ASSIGN;
+            value = ((Assignment) node).getVariableId();
+            first = children[0];
+        }
+        else if (node instanceof Block)
+        {
+            opcode = Opcode.BLOCK;
+            first = addList(children, 0, count);
+        }
+        else if (node instanceof If || node instanceof While)
+        {
+            opcode = node instanceof If ? Opcode.IF : Opcode.WHILE;
+            first = children[0];
+            second = children[1];
+        }
+        else if (node instanceof ProcedureDeclaration)
+        {
+            ProcedureDeclaration dec = (ProcedureDeclaration) node;
+            opcode = Opcode.PROCEDURE;
+            value = dec.getId();
+            first = children[0];
+            second = addList(dec.getParams(), 0, dec.getParams().length);
+            addList(dec.getLocalVars(), 0, dec.getLocalVars().length);
+        }
+        else
+        {
+            int[] globals = ((Program) node).getGlobalVars();
+            opcode = Opcode.PROGRAM;
+            first = addList(globals, 0, globals.length);
+            addList(children, 0, count - 1);
+            second = children[count - 1];
+        }
+
+        opcodes[at] = opcode.ordinal();
+        values[at] = value;
+        firsts[at] = first;
+        seconds[at] = second;
+        size++;
+    }
+
+    /**
+     * Appends a list to the array of lists, growing it when it is full.
+     *
+     * @param items the array holding the items of the list
+     * @param from the index of the first item
+     * @param count the number of items
+     * @return the offset of the list
+     */
+    private int addList(int[] items, int from, int count)
+    {
+        if (listSize + count + 1 > lists.length)
+        {
+            int[] larger = new int[Math.max(lists.length * 2, listSize + count + 1)];
+            System.arraycopy(lists, 0, larger, 0, listSize);
+            lists = larger;
+        }
+        int offset = listSize;
+        lists[listSize++] = count;
+        System.arraycopy(items, from, lists, listSize, count);
+        listSize += count;
+        return offset;
+    }
+
+    /**
+     * Converts the FlatProgram back into a Program. Every node's children
+     * come before it, so the nodes are built in one pass from first to
+     * last.
+     *
+     * @return a Program equal to the one this FlatProgram was made from
+     */
+    public Program toProgram()
+    {
+        Object[] nodes = new Object[size];
+        for (int i = 0; i < size; i++)
+        {
+            int value = values[i];
+            int first = firsts[i];
+            int second = seconds[i];
+            Opcode opcode = Opcode.of(opcodes[i]);
+            switch (opcode)
+            {
+                case NUMBER:
+                    nodes[i] = new Number(value);
+                    break;
+                case VARIABLE:
+                    nodes[i] = new Variable(value);
+                    break;
+                case CALL:
+                {
+                    List<Expression> args = new ArrayList<Expression>();
+                    for (int j = 0; j < lists[first]; j++)
+                        args.add((Expression) nodes[lists[first + 1 + j]]);
+                    nodes[i] = new ProcedureCall(value, args);
+                    break;
+                }
+                case EQUAL:
+                case NOT_EQUAL:
+                case LESS:
+                case GREATER:
+                case LESS_EQUAL:
+                case GREATER_EQUAL:
+                    nodes[i] = new Condition(opcode.getSymbol(), (Expression) nodes[first],
+                            (Expression) nodes[second]);
+                    break;
+                case WRITELN:
+                    nodes[i] = new Writeln((Expression) nodes[first]);
+                    break;
+                case ASSIGN:
+                    nodes[i] = new Assignment(value, (Expression) nodes[first]);
+                    break;
+                case BLOCK:
+                {
+                    List<Statement> statements = new ArrayList<Statement>();
+                    for (int j = 0; j < lists[first]; j++)
+                        statements.add((Statement) nodes[lists[first + 1 + j]]);
+                    nodes[i] = new Block(statements);
+                    break;
+                }
+                case IF:
+                    nodes[i] = new If((Condition) nodes[first], (Statement) nodes[second]);
+                    break;
+                case WHILE:
+                    nodes[i] = new While((Condition) nodes[first], (Statement) nodes[second]);
+                    break;
+                case PROCEDURE:
+                    nodes[i] = new ProcedureDeclaration(value, (Statement) nodes[first],
+                            copyList(second), copyList(nextList(second)));
+                    break;
+                case PROGRAM:
+                {
+                    int procedures = nextList(first);
+                    List<ProcedureDeclaration> decs = new ArrayList<ProcedureDeclaration>();
+                    for (int j = 0; j < lists[procedures]; j++)
+                        decs.add((ProcedureDeclaration) nodes[lists[procedures + 1 + j]]);
+                    nodes[i] = new Program(copyList(first), decs, (Statement) nodes[second]);
+                    break;
+                }
+                default:
+                    nodes[i] = new BinOp(opcode.getSymbol(), (Expression) nodes[first],
+                            (Expression) nodes[second]);
+                    break;
+            }
+        }
+        return (Program) nodes[size - 1];
+    }
+
+    /**
+     * Copies the items of a list into an array.
+     *
+     * @param list the offset of the list
+     * @return the items of the list
+     */
+    private int[] copyList(int list)
+    {
+        int[] items = new int[lists[list]];
+        System.arraycopy(lists, list + 1, items, 0, items.length);
+        return items;
+    }
+
+    /**
+     * Writes the FlatProgram as bytes. After a header, the bytes hold the
+     * names of the identifiers that the program uses, then the number of
+     * nodes, the opcode of every node as one byte and the values, firsts
+     * and seconds arrays as ints, and finally the length of the lists and
+     * the lists. A CRC-32C checksum of everything before it ends the
+     * bytes, so that damaged bytes are never read as a different program.
+     *
+     * @return the bytes of the FlatProgram
+     */
+    public byte[] toBytes()
+    {
+        // number the names in the order they are first used
+        int[] local = new int[SymbolTable.size()];
+        Arrays.fill(local, -1);
+        int[] used = new int[SymbolTable.size()];
+        Arrays.fill(used, -1);
+        int[] mappedValues = Arrays.copyOf(values, size);
+        int[] mappedLists = Arrays.copyOf(lists, listSize);
+        mapSymbols(mappedValues, mappedLists, used);
+        ArrayList<byte[]> names = new ArrayList<byte[]>();
+        for (int i = 0; i < used.length; i++)
+        {
+            if (used[i] >= 0)
+            {
+                local[i] = names.size();
+                names.add(SymbolTable.name(i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        mapSymbols(mappedValues, mappedLists, local);
+
+        int length = 4 * 4;
+        for (byte[] name : names)
+            length += 4 + name.length;
+        length += 4 + size + 3 * 4 * size + 4 + 4 * listSize;
+        ByteBuffer out = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(FORMAT).putInt(names.size());
+        for (byte[] name : names)
+            out.putInt(name.length).put(name);
+        out.putInt(size);
+        for (int i = 0; i < size; i++)
+            out.put((byte) opcodes[i]);
+        putInts(out, mappedValues, size);
+        putInts(out, firsts, size);
+        putInts(out, seconds, size);
+        out.putInt(listSize);
+        putInts(out, mappedLists, listSize);
+        CRC32C check = new CRC32C();
+        check.update(out.array(), 0, out.position());
+        out.putInt((int) check.getValue());
+        return out.array();
+    }
+
+    /**
+     * Reads a FlatProgram from the bytes that toBytes wrote, interning the
+     * names of its identifiers into the SymbolTable.
+     *
+     * @param bytes the bytes of a FlatProgram
+     * @return the FlatProgram
+     * @throws IllegalArgumentException if the bytes are not a FlatProgram of
+     *         this version of the format, or are cut short or damaged
+     */
+    public static FlatProgram fromBytes(byte[] bytes)
+    {
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        try
+        {
+            CRC32C check = new CRC32C();
+            check.update(bytes, 0, bytes.length - 4);
+            if (in.getInt(bytes.length - 4) != (int) check.getValue())
+                throw new IllegalArgumentException("FlatProgram is damaged");
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT)
+                throw new IllegalArgumentException("Not a FlatProgram of format " + FORMAT);
+            int[] ids = new int[in.getInt()];
+            for (int i = 0; i < ids.length; i++)
+            {
+                byte[] name = new byte[in.getInt()];
+                in.get(name);
+                ids[i] = SymbolTable.intern(new String(name, StandardCharsets.UTF_8));
+            }
+
+            int nodes = in.getInt();
+            FlatProgram flat = new FlatProgram(nodes);
+            for (int i = 0; i < nodes; i++)
+                flat.opcodes[i] = in.get();
+            getInts(in, flat.values, nodes);
+            getInts(in, flat.firsts, nodes);
+            getInts(in, flat.seconds, nodes);
+            flat.size = nodes;
+            flat.listSize = in.getInt();
+            flat.lists = new int[flat.listSize];
+            getInts(in, flat.lists, flat.listSize);
+            if (in.remaining() != 4)
+                throw new IllegalArgumentException("FlatProgram does not end where it should");
+            flat.mapSymbols(flat.values, flat.lists, ids);
+            return flat;
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e)
+        {
+            throw new IllegalArgumentException("FlatProgram is cut short", e);
+        }
+    }
+
+    /**
+     * Replaces every SymbolTable id in the nodes and lists, which are in the
+     * values of nodes that name something and in the lists of parameters,
+     * locals and globals.
+     *
+     * @param mappedValues the values of the nodes
+     * @param mappedLists the lists
+     * @param map what to replace each id with, indexed by id; an entry that
+     *            is -1 is not used, but is set to the id itself, so that a
+     *            first pass with such a map finds which ids are used
+     */
+    private void mapSymbols(int[] mappedValues, int[] mappedLists, int[] map)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            switch (Opcode.of(opcodes[i]))
+            {
+                case VARIABLE:
+                case CALL:
+                case ASSIGN:
+                    mappedValues[i] = map(map, mappedValues[i]);
+                    break;
+                case PROCEDURE:
+                    mappedValues[i] = map(map, mappedValues[i]);
+                    mapList(mappedLists, seconds[i], map);
+                    mapList(mappedLists, nextList(seconds[i]), map);
+                    break;
+                case PROGRAM:
+                    mapList(mappedLists, firsts[i], map);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Replaces every item of a list.
+     *
+     * @param items the lists
+     * @param list the offset of the list
+     * @param map what to replace each item with
+     */
+    private static void mapList(int[] items, int list, int[] map)
+    {
+        for (int i = list + 1; i <= list + items[list]; i++)
+            items[i] = map(map, items[i]);
+    }
+
+    /**
+     * Looks up an id in a map of mapSymbols.
+     *
+     * @param map the map, indexed by id
+     * @param id the id
+     * @return the entry of the id, after setting it to id if it was -1
+     */
+    private static int map(int[] map, int id)
+    {
+        if (map[id] < 0)
+            map[id] = id;
+        return map[id];
+    }
+
+    /**
+     * Writes the first count ints of an array.
+     *
+     * @param out the buffer to write to
+     * @param ints the array
+     * @param count the number of ints to write
+     */
+    private static void putInts(ByteBuffer out, int[] ints, int count)
+    {
+        out.asIntBuffer().put(ints, 0, count);
+        out.position(out.position() + 4 * count);
+    }
+
+    /**
+     * Reads count ints into the start of an array.
+     *
+     * @param in the buffer to read from
+     * @param ints the array
+     * @param count the number of ints to read
+     */
+    private static void getInts(ByteBuffer in, int[] ints, int count)
+    {
+        in.asIntBuffer().get(ints, 0, count);
+        in.position(in.position() + 4 * count);
+    }
+
+    /**
+     * Returns the number of nodes, including the Program.
+     *
+     * @return the instance field size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the index of the Program node, which is the last node.
+     *
+     * @return the index of the root of the tree
+     */
+    public int root()
+    {
+        return size - 1;
+    }
+
+    /**
+     * Returns the Opcode of the node at an index.
+     *
+     * @param node the index of the node
+     * @return the kind of the node
+     */
+    public Opcode opcodeAt(int node)
+    {
+        return Opcode.of(opcodes[node]);
+    }
+
+    /**
+     * Returns the number or SymbolTable id of the node at an index.
+     *
+     * @param node the index of the node
+     * @return the value of a NUMBER, the id of a name, or 0
+     */
+    public int valueAt(int node)
+    {
+        return values[node];
+    }
+
+    /**
+     * Returns the first child, or the offset of the first list, of the node
+     * at an index.
+     *
+     * @param node the index of the node
+     * @return the index of the first child, or the offset of a list
+     */
+    public int firstAt(int node)
+    {
+        return firsts[node];
+    }
+
+    /**
+     * Returns the second child, or the offset of the second list, of the
+     * node at an index.
+     *
+     * @param node the index of the node
+     * @return the index of the second child, or the offset of a list
+     */
+    public int secondAt(int node)
+    {
+        return seconds[node];
+    }
+
+    /**
+     * Returns the number of items in a list.
+     *
+     * @param list the offset of the list
+     * @return the length of the list
+     */
+    public int lengthAt(int list)
+    {
+        return lists[list];
+    }
+
+    /**
+     * Returns an item of a list.
+     *
+     * @param list the offset of the list
+     * @param i the index of the item in the list
+     * @return the item, which is a node index or a SymbolTable id
+     */
+    public int itemAt(int list, int i)
+    {
+        return lists[list + 1 + i];
+    }
+
+    /**
+     * Returns the list that follows a list, such as the local variables
+     * that follow the parameters of a PROCEDURE.
+     *
+     * @param list the offset of a list
+     * @return the offset of the list after it
+     */
+    public int nextList(int list)
+    {
+        return list + 1 + lists[list];
+    }
+}
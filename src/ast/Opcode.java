@@ -0,0 +1,93 @@
+package ast;
+
+/**
+ * The kinds of node in an AST. The nodes of a FlatProgram are tagged with
+ * the ordinal of their Opcode, and a BinOp or Condition keeps the Opcode of
+ * its operator so that it can be switched on instead of comparing Strings.
+ *
+ * Each operator of a BinOp or Condition knows the String that the Parser
+ * gives it, so either form can be converted into the other.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public enum Opcode
+{
+    NUMBER(null),
+    VARIABLE(null),
+    CALL(null),
+
+    ADD("+"),
+    SUBTRACT("-"),
+    MULTIPLY("*"),
+    DIVIDE("/"),
+    MOD("%"),
+
+    EQUAL("="),
+    NOT_EQUAL("<>"),
+    LESS("<"),
+    GREATER(">"),
+    LESS_EQUAL("<="),
+    GREATER_EQUAL(">="),
+
+    WRITELN(null),
+    ASSIGN(null),
+    BLOCK(null),
+    IF(null),
+    WHILE(null),
+    PROCEDURE(null),
+    PROGRAM(null);
+
+    private static final Opcode[] VALUES = values();
+
+    private final String symbol;
+
+    /**
+     * Constructs an Opcode.
+     *
+     * @param s the operator that the Opcode stands for, or null if it is
+     *          not an operator
+     */
+    Opcode(String s)
+    {
+        symbol = s;
+    }
+
+    /**
+     * Returns the operator that the Opcode stands for, such as "+" or "<=".
+     *
+     * @return the instance field symbol, or null if the Opcode is not an operator
+     */
+    public String getSymbol()
+    {
+        return symbol;
+    }
+
+    /**
+     * Returns the Opcode of an operator.
+     *
+     * @param symbol the operator, such as "+" or "<="
+     * @return the Opcode of the operator, or null if it is not one
+     */
+    public static Opcode of(String symbol)
+    {
+        for (Opcode op : VALUES)
+        {
+            if (symbol.equals(op.symbol))
+                return op;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the Opcode with an ordinal, without copying the array that
+     * values() returns.
+     *
+     * @param ordinal the ordinal of the Opcode
+     * @return the Opcode
+     */
+    public static Opcode of(int ordinal)
+    {
+        return VALUES[ordinal];
+    }
+}
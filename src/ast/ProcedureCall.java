@@ -2,6 +2,7 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import scanner.SymbolTable;
 
 import java.util.List;
 
@@ -14,30 +15,41 @@ import java.util.List;
  */
 public class ProcedureCall extends Expression
 {
-    private String name;
+    private int id;
     private List<Expression> args;
 
     /**
      * Constructs a ProcedureCall class with a name and List of arguments.
      *
-     * @param n the name of the ProcedureCall
+     * @param n the SymbolTable id of the name of the ProcedureCall
      * @param a the list of arguments as Expressions
      */
-    public ProcedureCall(String n, List<Expression> a)
+    public ProcedureCall(int n, List<Expression> a)
     {
-        name = n;
+        id = n;
         args = a;
     }
 
+    /**
+     * A getter for the ProcedureCall class that returns the SymbolTable id
+     * of the name of the ProcedureCall.
+     *
+     * @return the instance variable id
+     */
+    public int getId()
+    {
+        return id;
+    }
+
     /**
      * A getter for the ProcedureCall class that returns the name of
      * the ProcedureCall.
      *
-     * @return the instance variable name
+     * @return the name that the instance variable id stands for
      */
     public String getName()
     {
-        return name;
+        return SymbolTable.name(id);
     }
 
     /**
@@ -68,7 +80,7 @@ public class ProcedureCall extends Expression
             e.emitPush("$v0");
         }
 
-        e.emit("jal proc" + name);
+        e.emit("jal proc" + getName());
 
         for (int i = 0; i < args.size(); i++)
         {
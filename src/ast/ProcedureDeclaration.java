@@ -1,33 +1,33 @@
 package ast;
 
 import emitter.Emitter;
-
-import java.util.List;
+import scanner.SymbolTable;
 
 /**
  * A class that represents a procedure declaration. Stores
- * a name, statement, and a list of Strings (parameters).
+ * a name, statement, parameters and local variables. Every
+ * name is stored as its SymbolTable id.
  *
  * @author Daniel Wu
  * @version 10/10/19
  */
 public class ProcedureDeclaration extends Statement
 {
-    private String name;
+    private int name;
     private Statement declaration;
-    private List<String> params;
-    private List<String> localVars;
+    private int[] params;
+    private int[] localVars;
 
     /**
      * Constructs a ProcedureDeclaration class by initializing the instance
-     * variables containing the name, Statement, and List of formal params.
+     * variables containing the name, Statement, and formal params.
      *
-     * @param n the name of the ProcedureDeclaration
+     * @param n the SymbolTable id of the name of the ProcedureDeclaration
      * @param d the Statement stored by the ProcedureDeclaration
-     * @param p the List of parameters stored by the ProcedureDeclaration
-     * @param l the List of local variables stored by the Procedure Declaration
+     * @param p the ids of the parameters stored by the ProcedureDeclaration
+     * @param l the ids of the local variables stored by the Procedure Declaration
      */
-    public ProcedureDeclaration(String n, Statement d, List<String> p, List<String> l)
+    public ProcedureDeclaration(int n, Statement d, int[] p, int[] l)
     {
         name = n;
         declaration = d;
@@ -36,15 +36,25 @@ public class ProcedureDeclaration extends Statement
     }
 
     /**
-     * A getter that returns the name of the ProcedureCall.
+     * A getter that returns the SymbolTable id of the name of the ProcedureCall.
      *
      * @return the instance variable name
      */
-    public String getName()
+    public int getId()
     {
         return name;
     }
 
+    /**
+     * A getter that returns the name of the ProcedureCall.
+     *
+     * @return the name that the instance variable name stands for
+     */
+    public String getName()
+    {
+        return SymbolTable.name(name);
+    }
+
     /**
      * A getter that returns the Statement storedy by the ProcedureCall.
      *
@@ -56,21 +66,21 @@ public class ProcedureDeclaration extends Statement
     }
 
     /**
-     * A getter that returns the parameters stored in the ProcedureCall.
+     * A getter that returns the ids of the parameters stored in the ProcedureCall.
      *
      * @return the instance variable params
      */
-    public List<String> getParams()
+    public int[] getParams()
     {
         return params;
     }
 
     /**
-     * A getter that returns the local variables stored in the ProcedureCall.
+     * A getter that returns the ids of the local variables stored in the ProcedureCall.
      *
      * @return the instance variable params
      */
-    public List<String> getLocalVars()
+    public int[] getLocalVars()
     {
         return localVars;
     }
@@ -88,13 +98,13 @@ public class ProcedureDeclaration extends Statement
     public void compile(Emitter e)
     {
         e.setProcedureContext(this);
-        e.emit("proc" + name + ":");
+        e.emit("proc" + getName() + ":");
         e.emit("li $v0 0");
         e.emitPush("$v0");
 
         e.emitPush("$ra");
 
-        for (String s : localVars)
+        for (int i = 0; i < localVars.length; i++)
         {
             e.emit("li $v0 0");
             e.emitPush("$v0");
@@ -102,7 +112,7 @@ public class ProcedureDeclaration extends Statement
 
         declaration.compile(e);
 
-        for (String s : localVars)
+        for (int i = 0; i < localVars.length; i++)
         {
             e.emitPop("$t0");
         }
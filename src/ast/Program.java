@@ -1,5 +1,7 @@
 package ast;
+import emitter.ClassEmitter;
 import emitter.Emitter;
+import scanner.SymbolTable;
 import java.util.List;
 
 /**
@@ -12,7 +14,7 @@ import java.util.List;
  */
 public class Program
 {
-    List<String> globalVars;
+    int[] globalVars;
     List<ProcedureDeclaration> decs;
     Statement statement;
 
@@ -20,11 +22,11 @@ public class Program
      * The constructor that initializes the list of ProcedureDeclarations
      * and the Statement.
      *
-     * @param g the global list of variables stored in the Program.
+     * @param g the SymbolTable ids of the global variables stored in the Program.
      * @param d list of ProcedureDeclarations for the Program
      * @param s the Statement contained by the Program
      */
-    public Program(List<String> g, List<ProcedureDeclaration> d, Statement s)
+    public Program(int[] g, List<ProcedureDeclaration> d, Statement s)
     {
         globalVars = g;
         decs = d;
@@ -32,12 +34,12 @@ public class Program
     }
 
     /**
-     * Returns the List globalVars containing the declared global variables in
-     * the program.
+     * Returns the array globalVars containing the ids of the declared global
+     * variables in the program.
      *
      * @return the instance variable globalVars
      */
-    public List<String> getGlobalVars()
+    public int[] getGlobalVars()
     {
         return globalVars;
     }
@@ -88,8 +90,8 @@ public class Program
 
         e.emit(".data");
         e.emit("newLine: .asciiz \"\\n\"");
-        for (String v: globalVars)
-            e.emit("var" + v + ": .word 0");
+        for (int v: globalVars)
+            e.emit("var" + SymbolTable.name(v) + ": .word 0");
 
         e.emit(".text");
         e.emit(".globl main");
@@ -108,4 +110,18 @@ public class Program
         e.close();
     }
 
+    /**
+     * Converts a program into a JVM class with a main method, and writes
+     * it to a runnable jar, or to a class file, that needs no part of this
+     * compiler to run. Names are scoped as in the MIPS code of compile.
+     *
+     * @param className the binary name of the class
+     * @param fileName the name of the file that the class is written to,
+     *                 a jar if it ends with .jar
+     */
+    public void compileClass(String className, String fileName)
+    {
+        new ClassEmitter(className).write(this, fileName);
+    }
+
 }
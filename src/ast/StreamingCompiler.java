@@ -0,0 +1,132 @@
+package ast;
+
+import emitter.Emitter;
+import scanner.SymbolTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+/**
+ * A StreamingCompiler compiles a program into MIPS assembly code while it
+ * is being parsed, as Program.compile would but without the whole AST.
+ * It is handed each ProcedureDeclaration as soon as the Parser finishes it,
+ * compiles it straight away into a text section kept in a temporary file,
+ * and keeps nothing of it, so the procedure's AST can be collected. Once
+ * the whole program is parsed, finish writes the data section and main to
+ * the output file and appends the procedures after them, which is the same
+ * layout that Program.compile writes.
+ *
+ * Memory therefore stays bounded by the largest procedure rather than by
+ * the whole program. Labels are numbered in the order code is compiled,
+ * which is procedures first, so they may be numbered differently than by
+ * Program.compile.
+ *
+ * The temporary file is deleted by close, so a compile that fails while
+ * parsing leaves nothing behind.
+ *
+ * Usage:
+ *   try (StreamingCompiler compiler = new StreamingCompiler("emitted"))
+ *   {
+ *       compiler.finish(parser.parseProgram(compiler));
+ *   }
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class StreamingCompiler implements Consumer<ProcedureDeclaration>, AutoCloseable
+{
+    private String fileName;
+    private Path text;
+    private Writer textOut;
+    private Emitter e;
+
+    /**
+     * Constructs a StreamingCompiler that writes to a file.
+     *
+     * @param outputFileName the name of the file the code is written to
+     * @throws IOException if the temporary file for the text section
+     *         cannot be created
+     */
+    public StreamingCompiler(String outputFileName) throws IOException
+    {
+        fileName = outputFileName;
+        text = Files.createTempFile("text", ".s");
+        textOut = Files.newBufferedWriter(text, StandardCharsets.UTF_8);
+        e = new Emitter(textOut);
+    }
+
+    /**
+     * Compiles a procedure declaration into the text section.
+     *
+     * @param dec the ProcedureDeclaration just parsed
+     */
+    public void accept(ProcedureDeclaration dec)
+    {
+        dec.compile(e);
+    }
+
+    /**
+     * Writes the compiled program to the output file: the data section for
+     * the global variables, then main, which runs the main statement, and
+     * then every procedure compiled so far. The StreamingCompiler is closed
+     * afterwards, even if writing fails.
+     *
+     * @param program the globals and main statement of the program, as
+     *                returned by Parser.parseProgram(Consumer)
+     * @throws IOException if the text section cannot be read back
+     */
+    public void finish(Program program) throws IOException
+    {
+        e.flush();
+        textOut.close();
+        try (Writer out = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8);
+             BufferedReader procedures = Files.newBufferedReader(text, StandardCharsets.UTF_8))
+        {
+            e.setOutput(out);
+            e.emit(".data");
+            e.emit("newLine: .asciiz \"\\n\"");
+            for (int v: program.getGlobalVars())
+                e.emit("var" + SymbolTable.name(v) + ": .word 0");
+
+            e.emit(".text");
+            e.emit(".globl main");
+            e.emit("main:");
+
+            program.getStatement().compile(e);
+
+            e.emit("li $v0 10");
+            e.emit("syscall");
+            e.flush();
+
+            procedures.transferTo(out);
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Closes the text section and deletes its temporary file. Closing more
+     * than once has no further effect.
+     *
+     * @throws IOException if the temporary file cannot be closed or deleted
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            textOut.close();
+        }
+        finally
+        {
+            Files.deleteIfExists(text);
+        }
+    }
+}
@@ -1,36 +1,47 @@
 package ast;
 
 import emitter.Emitter;
+import scanner.SymbolTable;
 
 /**
  * A class that represents a Variable and
- * stores its name.
+ * stores the SymbolTable id of its name.
  *
  * @author Daniel Wu
  * @version 10/19/2019
  */
 public class Variable extends Expression
 {
-    private String name;
+    private int id;
 
     /**
      * Constructs a Variable object with a given name.
      *
-     * @param n the name of the Variable object
+     * @param n the SymbolTable id of the name of the Variable object
      */
-    public Variable(String n)
+    public Variable(int n)
     {
-        name = n;
+        id = n;
     }
 
     /**
-     * A getter for the name stored by the Variable
+     * A getter for the SymbolTable id of the name of the Variable
      *
-     * @return the instance field name
+     * @return the instance field id
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * A getter for the name of the Variable
+     *
+     * @return the name that the instance field id stands for
      */
     public String getName()
     {
-        return name;
+        return SymbolTable.name(id);
     }
 
     /**
@@ -43,14 +54,14 @@ public class Variable extends Expression
      */
     public void compile(Emitter e)
     {
-        if (e.isLocalVariable(name))
+        if (e.isLocalVariable(id))
         {
-            int offSet = e.getOffSet(name);
+            int offSet = e.getOffSet(id);
             e.emit("lw $v0 " + offSet + "($sp)");
         }
         else
         {
-            e.emit("la $t0 var" + name);
+            e.emit("la $t0 var" + getName());
             e.emit("lw $v0 ($t0)");
         }
     }
@@ -0,0 +1,417 @@
+package closure;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.If;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+import environment.Environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A ClosureCompiler turns each node of a Program, once, into a small
+ * object that does only what that node does: a BinOp of + becomes an
+ * object that adds, with no switch on its operator, and a Variable becomes
+ * one that reads the variable's id. Running the Program is then a chain of
+ * calls through those objects, which HotSpot can inline, instead of the
+ * Evaluator's instanceof tests and switches at every node.
+ *
+ * The compiled Program does exactly what the Evaluator does, down to its
+ * quirks, as the BytecodeCompiler does. Variables stay in the Environment,
+ * and a procedure call binds its frame there as Evaluator.call does. A
+ * call remembers the last ProcedureDeclaration it found and the compiled
+ * body of it, so calling the same procedure again costs only an identity
+ * check; bodies are compiled the first time they are called.
+ *
+ * The arguments of calls being made wait on an array of the compiler, so
+ * the code a ClosureCompiler makes should only run on one thread at a
+ * time, as with an Evaluator.
+ *
+ * Usage: new ClosureCompiler().compile(program).exec(env);
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class ClosureCompiler
+{
+    private static final ExpressionCode ZERO = env -> 0;
+    private static final StatementCode NOTHING = env -> { };
+
+    private int[] arguments = new int[16];
+    private int argumentCount;
+    private final IdentityHashMap<ProcedureDeclaration, StatementCode> bodies =
+            new IdentityHashMap<ProcedureDeclaration, StatementCode>();
+
+    /**
+     * A compiled procedure call, which caches the procedure it last called.
+     */
+    private final class Call implements ExpressionCode
+    {
+        private final int id;
+        private final ExpressionCode[] args;
+        private ProcedureDeclaration dec;
+        private int[] params;
+        private StatementCode body;
+
+        /**
+         * Constructs a Call.
+         *
+         * @param i the SymbolTable id of the procedure
+         * @param a the compiled arguments
+         */
+        private Call(int i, ExpressionCode[] a)
+        {
+            id = i;
+            args = a;
+        }
+
+        /**
+         * Makes the call the way Evaluator.eval(ProcedureCall) does: each
+         * argument is pushed with its parameter as it is evaluated, then
+         * the frame is bound and the body run, and the value of the
+         * variable sharing the name of the procedure is returned.
+         *
+         * @param env the environment the procedure is called from
+         * @return the return value of the procedure
+         * @throws Exception when variable is not found
+         */
+        public int eval(Environment env) throws Exception
+        {
+            int base = argumentCount;
+            try
+            {
+                for (int i = 0; i < args.length; i++)
+                {
+                    int value = args[i].eval(env);
+                    link(env.getProcedure(id));
+                    int param = params[i];
+                    if (argumentCount + 2 > arguments.length)
+                        arguments = Arrays.copyOf(arguments, 2 * arguments.length);
+                    arguments[argumentCount] = param;
+                    arguments[argumentCount + 1] = value;
+                    argumentCount += 2;
+                }
+
+                link(env.getProcedure(id));
+                int mark = env.getBindings();
+                try
+                {
+                    env.bindFrame(id, arguments, base, argumentCount);
+                    argumentCount = base;
+                    body.exec(env);
+                    return env.getVariable(id);
+                }
+                finally
+                {
+                    env.unbind(mark);
+                }
+            }
+            finally
+            {
+                argumentCount = base;
+            }
+        }
+
+        /**
+         * Makes the procedure found for the call the one cached, unless it
+         * already is. A procedure that has not been declared is null, and
+         * leaves the cache null, so the call fails as in the Evaluator.
+         *
+         * @param found the ProcedureDeclaration found in the environment
+         */
+        private void link(ProcedureDeclaration found)
+        {
+            if (found != dec)
+            {
+                dec = found;
+                params = found == null ? null : found.getParams();
+                body = found == null ? null : body(found);
+            }
+        }
+    }
+
+    /**
+     * Compiles a Program. The code declares every procedure of the program,
+     * in order, and then runs the main statement, as
+     * Evaluator.exec(Program) does.
+     *
+     * @param program the Program to compile
+     * @return the compiled program
+     */
+    public StatementCode compile(Program program)
+    {
+        List<ProcedureDeclaration> procedures = program.getProcedures();
+        ProcedureDeclaration[] decs = procedures.toArray(new ProcedureDeclaration[0]);
+        StatementCode main = compile(program.getStatement());
+        return env ->
+        {
+            for (ProcedureDeclaration dec : decs)
+                env.setProcedure(dec.getId(), dec);
+            main.exec(env);
+        };
+    }
+
+    /**
+     * Compiles a statement that the Evaluator would run with
+     * exec(Statement), which runs every kind of statement.
+     *
+     * @param statement the statement to compile
+     * @return the compiled statement
+     */
+    public StatementCode compile(Statement statement)
+    {
+        if (statement instanceof ProcedureDeclaration)
+        {
+            ProcedureDeclaration dec = (ProcedureDeclaration) statement;
+            int id = dec.getId();
+            return env -> env.setProcedure(id, dec);
+        }
+        return compileBlockStatement(statement);
+    }
+
+    /**
+     * Returns the compiled body of a procedure, compiling it the first time.
+     *
+     * @param dec the ProcedureDeclaration
+     * @return the compiled statement of the declaration
+     */
+    private StatementCode body(ProcedureDeclaration dec)
+    {
+        StatementCode body = bodies.get(dec);
+        if (body == null)
+        {
+            body = compile(dec.getDeclaration());
+            bodies.put(dec, body);
+        }
+        return body;
+    }
+
+    /**
+     * Compiles a statement of a Block, which the Evaluator skips if it is
+     * a ProcedureDeclaration.
+     *
+     * @param statement the statement to compile
+     * @return the compiled statement
+     */
+    private StatementCode compileBlockStatement(Statement statement)
+    {
+        if (statement instanceof Writeln)
+        {
+            Expression expr = ((Writeln) statement).getExpression();
+            if (!isValue(expr))
+                return NOTHING;
+            ExpressionCode value = compileExpression(expr);
+            return env -> System.out.println(value.eval(env));
+        }
+        if (statement instanceof Assignment)
+        {
+            Assignment assignment = (Assignment) statement;
+            if (!isValue(assignment.getExpression()))
+                return NOTHING;
+            int id = assignment.getVariableId();
+            ExpressionCode value = compileExpression(assignment.getExpression());
+            return env -> env.setVariable(id, value.eval(env));
+        }
+        if (statement instanceof Block)
+        {
+            ArrayList<StatementCode> codes = new ArrayList<StatementCode>();
+            for (Statement s : ((Block) statement).getStatements())
+                if (!(s instanceof ProcedureDeclaration))
+                    codes.add(compileBlockStatement(s));
+            StatementCode[] statements = codes.toArray(new StatementCode[0]);
+            if (statements.length == 1)
+                return statements[0];
+            return env ->
+            {
+                for (StatementCode s : statements)
+                    s.exec(env);
+            };
+        }
+        if (statement instanceof If)
+        {
+            If ifStatement = (If) statement;
+            ConditionCode condition = compileCondition(ifStatement.getCondition());
+            StatementCode body = compile(ifStatement.getStatement());
+            return env ->
+            {
+                if (condition.test(env))
+                    body.exec(env);
+            };
+        }
+        if (statement instanceof While)
+        {
+            While whileStatement = (While) statement;
+            ConditionCode condition = compileCondition(whileStatement.getCondition());
+            StatementCode body = compile(whileStatement.getStatement());
+            return env ->
+            {
+                while (condition.test(env))
+                    body.exec(env);
+            };
+        }
+        return NOTHING;
+    }
+
+    /**
+     * Compiles a Condition, with its relational operator chosen now. Both
+     * expressions are evaluated, in order, before they are compared, and a
+     * Condition without a relational operator is false.
+     *
+     * @param c the Condition to compile
+     * @return the compiled Condition
+     */
+    private ConditionCode compileCondition(Condition c)
+    {
+        ExpressionCode a = compileExpression(c.getExpression1());
+        ExpressionCode b = compileExpression(c.getExpression2());
+        switch (c.getOpcode())
+        {
+            case EQUAL:
+                return env -> a.eval(env) == b.eval(env);
+            case NOT_EQUAL:
+                return env -> a.eval(env) != b.eval(env);
+            case LESS:
+                return env -> a.eval(env) < b.eval(env);
+            case GREATER:
+                return env -> a.eval(env) > b.eval(env);
+            case LESS_EQUAL:
+                return env -> a.eval(env) <= b.eval(env);
+            case GREATER_EQUAL:
+                return env -> a.eval(env) >= b.eval(env);
+            default:
+                return env ->
+                {
+                    a.eval(env);
+                    b.eval(env);
+                    return false;
+                };
+        }
+    }
+
+    /**
+     * Compiles an expression as the Evaluator evaluates it with
+     * eval(Expression).
+     *
+     * @param expr the expression to compile
+     * @return the compiled expression
+     */
+    private ExpressionCode compileExpression(Expression expr)
+    {
+        if (expr instanceof Number)
+        {
+            int value = ((Number) expr).getValue();
+            return env -> value;
+        }
+        if (expr instanceof Variable)
+        {
+            int id = ((Variable) expr).getId();
+            return env -> env.getVariable(id);
+        }
+        if (expr instanceof BinOp)
+            return compileBinOp((BinOp) expr);
+        if (expr instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) expr;
+            List<Expression> args = call.getArgs();
+            ExpressionCode[] codes = new ExpressionCode[args.size()];
+            for (int i = 0; i < codes.length; i++)
+                codes[i] = compileExpression(args.get(i));
+            return new Call(call.getId(), codes);
+        }
+        return ZERO;
+    }
+
+    /**
+     * Compiles a BinOp, with its operator chosen now. A second operand that
+     * is a Number is folded into the operation. A procedure call that is
+     * an operand counts as 0 without being called, as in the Evaluator.
+     *
+     * @param binop the BinOp to compile
+     * @return the compiled BinOp
+     */
+    private ExpressionCode compileBinOp(BinOp binop)
+    {
+        ExpressionCode a = compileOperand(binop.getExpression1());
+        Expression second = binop.getExpression2();
+        if (second instanceof Number)
+        {
+            int k = ((Number) second).getValue();
+            switch (binop.getOpcode())
+            {
+                case ADD:
+                    return env -> a.eval(env) + k;
+                case SUBTRACT:
+                    return env -> a.eval(env) - k;
+                case MULTIPLY:
+                    return env -> a.eval(env) * k;
+                case DIVIDE:
+                    return env -> a.eval(env) / k;
+                case MOD:
+                    return env -> a.eval(env) % k;
+                default:
+                    break;
+            }
+        }
+        ExpressionCode b = compileOperand(second);
+        switch (binop.getOpcode())
+        {
+            case ADD:
+                return env -> a.eval(env) + b.eval(env);
+            case SUBTRACT:
+                return env -> a.eval(env) - b.eval(env);
+            case MULTIPLY:
+                return env -> a.eval(env) * b.eval(env);
+            case DIVIDE:
+                return env -> a.eval(env) / b.eval(env);
+            case MOD:
+                return env -> a.eval(env) % b.eval(env);
+            default:
+                return env ->
+                {
+                    a.eval(env);
+                    b.eval(env);
+                    return 0;
+                };
+        }
+    }
+
+    /**
+     * Compiles an operand of a BinOp, where the Evaluator counts a
+     * procedure call as 0 without calling it.
+     *
+     * @param expr the operand to compile
+     * @return the compiled operand
+     */
+    private ExpressionCode compileOperand(Expression expr)
+    {
+        if (expr instanceof ProcedureCall)
+            return ZERO;
+        return compileExpression(expr);
+    }
+
+    /**
+     * Returns whether the Evaluator gives an expression a value when it is
+     * written or assigned, which it does for every kind the Parser makes.
+     *
+     * @param expr the expression
+     * @return true if expr is a Number, Variable, BinOp or ProcedureCall
+     */
+    private static boolean isValue(Expression expr)
+    {
+        return expr instanceof Number || expr instanceof Variable ||
+                expr instanceof BinOp || expr instanceof ProcedureCall;
+    }
+}
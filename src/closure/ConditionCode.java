@@ -0,0 +1,23 @@
+package closure;
+
+import environment.Environment;
+
+/**
+ * ConditionCode is a Condition compiled by a ClosureCompiler into an
+ * object that only compares the values of its two expressions, with its
+ * relational operator already chosen.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public interface ConditionCode
+{
+    /**
+     * Tests the condition.
+     *
+     * @param env the environment the condition is evaluated in
+     * @return true if the condition holds, false otherwise
+     * @throws Exception when variable is not found
+     */
+    boolean test(Environment env) throws Exception;
+}
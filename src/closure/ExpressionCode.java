@@ -0,0 +1,23 @@
+package closure;
+
+import environment.Environment;
+
+/**
+ * ExpressionCode is an Expression compiled by a ClosureCompiler into an
+ * object that only computes its value, with every decision about what
+ * kind of expression it is and which operator it applies already made.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public interface ExpressionCode
+{
+    /**
+     * Computes the value of the expression.
+     *
+     * @param env the environment the expression is evaluated in
+     * @return the int value of the expression
+     * @throws Exception when variable is not found
+     */
+    int eval(Environment env) throws Exception;
+}
@@ -0,0 +1,21 @@
+package closure;
+
+import environment.Environment;
+
+/**
+ * StatementCode is a Statement, or a whole Program, compiled by a
+ * ClosureCompiler into an object that only runs it.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public interface StatementCode
+{
+    /**
+     * Runs the statement.
+     *
+     * @param env the environment the statement runs in
+     * @throws Exception when variable is not found
+     */
+    void exec(Environment env) throws Exception;
+}
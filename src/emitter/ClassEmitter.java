@@ -0,0 +1,444 @@
+package emitter;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.If;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+import jit.ClassWriter;
+import scanner.SymbolTable;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * A ClassEmitter compiles a Program into a JVM class with a main method,
+ * the way Program.compile compiles it into MIPS code, and writes it to a
+ * .class file or to a runnable jar. The class needs nothing but the Java
+ * class library, so it runs on any JVM with java -jar or java -cp.
+ *
+ * Like the MIPS code, the class scopes names as they are written:
+ * every ProcedureDeclaration becomes a static int method whose parameters,
+ * local variables and return value, the variable sharing its name, are
+ * JVM local variables, and every other name is a static int field, a
+ * global. So a procedure does not see the variables of its caller, as it
+ * does in the Evaluator, and a program that relies on that behaves as
+ * its MIPS code does. WRITELN prints through a buffered stream that is
+ * flushed when the program ends, even when it ends with an exception.
+ *
+ * Usage: new ClassEmitter("Main").write(program, "Main.jar");
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class ClassEmitter
+{
+    private static final String OUT = "Ljava/io/PrintStream;";
+
+    private final String className;
+    private ClassWriter cw;
+    private ClassWriter.Code code;
+    private LinkedHashMap<Integer, ProcedureDeclaration> procedures;
+    private HashSet<Integer> globals;
+    private int[] slots = new int[0];
+
+    /**
+     * Creates a ClassEmitter for a class of a given name.
+     *
+     * @param name the binary name of the class, such as Main or
+     *             programs.Main
+     */
+    public ClassEmitter(String name)
+    {
+        className = name.replace('.', '/');
+    }
+
+    /**
+     * Compiles a Program and writes its class to a file: a runnable jar
+     * whose manifest names the class as its main class if the file name
+     * ends with .jar, and the bare class file otherwise.
+     *
+     * @param program the Program to compile
+     * @param fileName the name of the file to write
+     * @throws IllegalArgumentException if the program calls a procedure it
+     *         does not declare
+     * @throws IllegalStateException if a procedure or the main statement is
+     *         too large for a JVM method
+     */
+    public void write(Program program, String fileName)
+    {
+        byte[] bytes = compile(program);
+        try (OutputStream out = new FileOutputStream(fileName))
+        {
+            if (fileName.endsWith(".jar"))
+            {
+                Manifest manifest = new Manifest();
+                manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+                manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS,
+                        className.replace('/', '.'));
+                JarOutputStream jar = new JarOutputStream(out, manifest);
+                jar.putNextEntry(new JarEntry(className + ".class"));
+                jar.write(bytes);
+                jar.closeEntry();
+                jar.finish();
+            }
+            else
+                out.write(bytes);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Compiles a Program into the bytes of a class file. The main
+     * statement becomes the main method, and each procedure of the program
+     * a method named proc followed by its name; a procedure declared twice
+     * is compiled as declared last.
+     *
+     * @param program the Program to compile
+     * @return the class file
+     * @throws IllegalArgumentException if the program calls a procedure it
+     *         does not declare
+     * @throws IllegalStateException if a procedure or the main statement is
+     *         too large for a JVM method
+     */
+    public byte[] compile(Program program)
+    {
+        cw = new ClassWriter(className, "java/lang/Object", new String[0]);
+        cw.addField(ClassWriter.PRIVATE | ClassWriter.STATIC, "out", OUT);
+        globals = new HashSet<Integer>();
+        for (int v : program.getGlobalVars())
+            global(v);
+        procedures = new LinkedHashMap<Integer, ProcedureDeclaration>();
+        for (ProcedureDeclaration dec : program.getProcedures())
+            procedures.put(dec.getId(), dec);
+        if (slots.length < SymbolTable.size())
+            slots = new int[SymbolTable.size()];
+        Arrays.fill(slots, -1);
+
+        compileMain(program.getStatement());
+        for (ProcedureDeclaration dec : procedures.values())
+            compileProcedure(dec);
+        return cw.toBytes();
+    }
+
+    /**
+     * Compiles the main statement into the main method, which sets up the
+     * buffered output, runs the statement and flushes the output, or
+     * flushes it and rethrows if the statement throws.
+     *
+     * @param statement the main statement of the program
+     */
+    private void compileMain(Statement statement)
+    {
+        code = cw.addMethod(ClassWriter.PUBLIC | ClassWriter.STATIC, "main",
+                "([Ljava/lang/String;)V");
+        code.setMaxLocals(1);
+        code.type(ClassWriter.NEW, "java/io/PrintStream");
+        code.op(ClassWriter.DUP);
+        code.type(ClassWriter.NEW, "java/io/BufferedOutputStream");
+        code.op(ClassWriter.DUP);
+        code.type(ClassWriter.NEW, "java/io/FileOutputStream");
+        code.op(ClassWriter.DUP);
+        code.field(ClassWriter.GETSTATIC, "java/io/FileDescriptor", "out",
+                "Ljava/io/FileDescriptor;");
+        code.invoke(ClassWriter.INVOKESPECIAL, "java/io/FileOutputStream", "<init>",
+                "(Ljava/io/FileDescriptor;)V");
+        code.constant(1 << 16);
+        code.invoke(ClassWriter.INVOKESPECIAL, "java/io/BufferedOutputStream", "<init>",
+                "(Ljava/io/OutputStream;I)V");
+        code.constant(0);
+        code.invoke(ClassWriter.INVOKESPECIAL, "java/io/PrintStream", "<init>",
+                "(Ljava/io/OutputStream;Z)V");
+        code.field(ClassWriter.PUTSTATIC, className, "out", OUT);
+
+        ClassWriter.Label start = new ClassWriter.Label();
+        ClassWriter.Label end = new ClassWriter.Label();
+        code.mark(start);
+        int size = code.size();
+        compileStatement(statement);
+        code.mark(end);
+        // a handler may not cover an empty range
+        boolean covered = code.size() > size;
+        flush();
+        code.op(ClassWriter.RETURN);
+
+        if (covered)
+        {
+            code.handler(start, end);
+            flush();
+            code.op(ClassWriter.ATHROW);
+        }
+    }
+
+    /**
+     * Appends a flush of the buffered output.
+     */
+    private void flush()
+    {
+        code.field(ClassWriter.GETSTATIC, className, "out", OUT);
+        code.invoke(ClassWriter.INVOKEVIRTUAL, "java/io/PrintStream", "flush", "()V");
+    }
+
+    /**
+     * Compiles a ProcedureDeclaration into a static method that takes its
+     * parameters and returns the value of the variable sharing its name.
+     * As in the MIPS code, that variable and the local variables start at
+     * 0, and a name that is both a parameter and a local variable, or the
+     * name of the procedure, is the later of the two.
+     *
+     * @param dec the ProcedureDeclaration to compile
+     */
+    private void compileProcedure(ProcedureDeclaration dec)
+    {
+        int[] params = dec.getParams();
+        int[] locals = dec.getLocalVars();
+        code = cw.addMethod(ClassWriter.PRIVATE | ClassWriter.STATIC,
+                "proc" + dec.getName(), descriptor(params.length));
+        code.setMaxLocals(params.length + 1 + locals.length);
+        for (int i = 0; i < params.length; i++)
+            slots[params[i]] = i;
+        for (int i = 0; i < locals.length; i++)
+            slots[locals[i]] = params.length + 1 + i;
+        slots[dec.getId()] = params.length;
+        for (int i = params.length; i <= params.length + locals.length; i++)
+        {
+            code.constant(0);
+            code.local(ClassWriter.ISTORE, i);
+        }
+
+        compileStatement(dec.getDeclaration());
+        code.local(ClassWriter.ILOAD, params.length);
+        code.op(ClassWriter.IRETURN);
+
+        for (int p : params)
+            slots[p] = -1;
+        for (int l : locals)
+            slots[l] = -1;
+        slots[dec.getId()] = -1;
+    }
+
+    /**
+     * Compiles a statement. A ProcedureDeclaration met as a statement
+     * declares nothing here, since every procedure is a method of its own.
+     *
+     * @param statement the statement to compile
+     */
+    private void compileStatement(Statement statement)
+    {
+        if (statement instanceof Writeln)
+        {
+            code.field(ClassWriter.GETSTATIC, className, "out", OUT);
+            compileExpression(((Writeln) statement).getExpression());
+            code.invoke(ClassWriter.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V");
+        }
+        else if (statement instanceof Assignment)
+        {
+            Assignment assignment = (Assignment) statement;
+            compileExpression(assignment.getExpression());
+            int id = assignment.getVariableId();
+            if (slots[id] >= 0)
+                code.local(ClassWriter.ISTORE, slots[id]);
+            else
+                code.field(ClassWriter.PUTSTATIC, className, global(id), "I");
+        }
+        else if (statement instanceof Block)
+        {
+            List<Statement> statements = ((Block) statement).getStatements();
+            for (int i = 0; i < statements.size(); i++)
+                compileStatement(statements.get(i));
+        }
+        else if (statement instanceof If)
+        {
+            If ifStatement = (If) statement;
+            ClassWriter.Label end = new ClassWriter.Label();
+            compileBranch(ifStatement.getCondition(), false, end);
+            compileStatement(ifStatement.getStatement());
+            code.mark(end);
+        }
+        else if (statement instanceof While)
+        {
+            While whileStatement = (While) statement;
+            ClassWriter.Label body = new ClassWriter.Label();
+            ClassWriter.Label condition = new ClassWriter.Label();
+            code.jump(ClassWriter.GOTO, condition);
+            code.mark(body);
+            compileStatement(whileStatement.getStatement());
+            code.mark(condition);
+            compileBranch(whileStatement.getCondition(), true, body);
+        }
+    }
+
+    /**
+     * Compiles a Condition into a jump, after evaluating both of its
+     * expressions. A Condition without a relational operator is always
+     * true, as in the MIPS code, which never branches on it.
+     *
+     * @param c the Condition to compile
+     * @param when true to jump when the Condition is true, false to jump
+     *             when it is false
+     * @param target the label to jump to
+     */
+    private void compileBranch(Condition c, boolean when, ClassWriter.Label target)
+    {
+        compileExpression(c.getExpression1());
+        compileExpression(c.getExpression2());
+        int op;
+        switch (c.getOpcode())
+        {
+            case EQUAL:
+                op = when ? ClassWriter.IF_ICMPEQ : ClassWriter.IF_ICMPNE;
+                break;
+            case NOT_EQUAL:
+                op = when ? ClassWriter.IF_ICMPNE : ClassWriter.IF_ICMPEQ;
+                break;
+            case LESS:
+                op = when ? ClassWriter.IF_ICMPLT : ClassWriter.IF_ICMPGE;
+                break;
+            case GREATER:
+                op = when ? ClassWriter.IF_ICMPGT : ClassWriter.IF_ICMPLE;
+                break;
+            case LESS_EQUAL:
+                op = when ? ClassWriter.IF_ICMPLE : ClassWriter.IF_ICMPGT;
+                break;
+            case GREATER_EQUAL:
+                op = when ? ClassWriter.IF_ICMPGE : ClassWriter.IF_ICMPLT;
+                break;
+            default:
+                code.op(ClassWriter.POP2);
+                if (when)
+                    code.jump(ClassWriter.GOTO, target);
+                return;
+        }
+        code.jump(op, target);
+    }
+
+    /**
+     * Compiles an expression, leaving its value on the stack. Unlike the
+     * Evaluator, and like the MIPS code, a procedure call that is an
+     * operand of a BinOp is called.
+     *
+     * @param expr the expression to compile
+     */
+    private void compileExpression(Expression expr)
+    {
+        if (expr instanceof Number)
+            code.constant(((Number) expr).getValue());
+        else if (expr instanceof Variable)
+        {
+            int id = ((Variable) expr).getId();
+            if (slots[id] >= 0)
+                code.local(ClassWriter.ILOAD, slots[id]);
+            else
+                code.field(ClassWriter.GETSTATIC, className, global(id), "I");
+        }
+        else if (expr instanceof BinOp)
+        {
+            BinOp binop = (BinOp) expr;
+            compileExpression(binop.getExpression1());
+            compileExpression(binop.getExpression2());
+            switch (binop.getOpcode())
+            {
+                case ADD:
+                    code.op(ClassWriter.IADD);
+                    break;
+                case SUBTRACT:
+                    code.op(ClassWriter.ISUB);
+                    break;
+                case MULTIPLY:
+                    code.op(ClassWriter.IMUL);
+                    break;
+                case DIVIDE:
+                    code.op(ClassWriter.IDIV);
+                    break;
+                case MOD:
+                    code.op(ClassWriter.IREM);
+                    break;
+                default:
+                    // the MIPS code is left with the second operand
+                    code.op(ClassWriter.SWAP);
+                    code.op(ClassWriter.POP);
+            }
+        }
+        else if (expr instanceof ProcedureCall)
+            compileCall((ProcedureCall) expr);
+        else
+            code.constant(0);
+    }
+
+    /**
+     * Compiles a procedure call into a call of its method. Missing
+     * arguments are 0, and extra arguments are evaluated and dropped.
+     *
+     * @param call the ProcedureCall to compile
+     * @throws IllegalArgumentException if the procedure is not declared
+     */
+    private void compileCall(ProcedureCall call)
+    {
+        ProcedureDeclaration dec = procedures.get(call.getId());
+        if (dec == null)
+            throw new IllegalArgumentException("Procedure has not been declared: " +
+                    call.getName());
+        int count = dec.getParams().length;
+        List<Expression> args = call.getArgs();
+        for (int i = 0; i < args.size(); i++)
+        {
+            compileExpression(args.get(i));
+            if (i >= count)
+                code.op(ClassWriter.POP);
+        }
+        for (int i = args.size(); i < count; i++)
+            code.constant(0);
+        code.invoke(ClassWriter.INVOKESTATIC, className, "proc" + dec.getName(),
+                descriptor(count));
+    }
+
+    /**
+     * Returns the name of the static field of a global variable, adding
+     * the field the first time it is used.
+     *
+     * @param id the SymbolTable id of the variable
+     * @return var followed by the name of the variable, as in the MIPS code
+     */
+    private String global(int id)
+    {
+        String name = "var" + SymbolTable.name(id);
+        if (globals.add(id))
+            cw.addField(ClassWriter.PRIVATE | ClassWriter.STATIC, name, "I");
+        return name;
+    }
+
+    /**
+     * Returns the descriptor of the method of a procedure.
+     *
+     * @param params the number of parameters of the procedure
+     * @return a descriptor taking that many ints and returning an int
+     */
+    private static String descriptor(int params)
+    {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < params; i++)
+            sb.append('I');
+        return sb.append(")I").toString();
+    }
+}
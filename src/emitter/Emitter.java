@@ -1,12 +1,18 @@
 package emitter;
 
 import ast.ProcedureDeclaration;
+import scanner.SymbolTable;
 
 import java.io.*;
+import java.util.Arrays;
 
 /**
  * A class that emits text/MIPS code to a file of a given name.
  *
+ * While a procedure is compiled, the array slots maps the SymbolTable
+ * id of each of its names to where that name lives on the stack, so
+ * finding a local variable is a single array lookup.
+ *
  * @author Ms. Datar
  * @author Daniel Wu
  * @version 11/29/2019
@@ -18,6 +24,13 @@ public class Emitter
     private int nextid = 0;
     private ProcedureDeclaration currentProc;
     private int excessStackHeight = 0;
+    private int[] slots = new int[0];
+
+    // what slots holds for each id: not local, the procedure's return
+    // value, local variable i at LOCAL + i, or parameter i at -1 - i
+    private static final int NOT_LOCAL = 0;
+    private static final int RETURN_VALUE = 1;
+    private static final int LOCAL = 2;
 
     /**
      * Creates an emitter for writing to a new file with given name.
@@ -36,6 +49,39 @@ public class Emitter
         }
     }
 
+    /**
+     * Creates an emitter that writes to a Writer, such as a temporary file
+     * that code is collected in before it is put in its place. The Writer
+     * is only flushed when asked to or when the emitter is closed.
+     *
+     * @param writer the Writer the emitter outputs to
+     */
+    public Emitter(Writer writer)
+    {
+        out = new PrintWriter(writer);
+    }
+
+    /**
+     * Sends all code emitted from now on to another Writer. The previous
+     * output is flushed but left open, and labels keep being numbered
+     * where they left off.
+     *
+     * @param writer the Writer the emitter outputs to from now on
+     */
+    public void setOutput(Writer writer)
+    {
+        out.flush();
+        out = new PrintWriter(writer);
+    }
+
+    /**
+     * Flushes all code emitted so far to the output.
+     */
+    public void flush()
+    {
+        out.flush();
+    }
+
     /**
      * Prints one line of code to file (with non-labels indented).
      *
@@ -106,6 +152,18 @@ public class Emitter
     {
         currentProc = proc;
         excessStackHeight = 0;
+        if (slots.length < SymbolTable.size())
+            slots = Arrays.copyOf(slots, SymbolTable.size());
+
+        // the first occurrence of a name wins, and the procedure's
+        // name hides its locals, which hide its parameters
+        int[] params = proc.getParams();
+        for (int i = params.length - 1; i >= 0; i--)
+            slots[params[i]] = -1 - i;
+        int[] locals = proc.getLocalVars();
+        for (int i = locals.length - 1; i >= 0; i--)
+            slots[locals[i]] = LOCAL + i;
+        slots[proc.getId()] = RETURN_VALUE;
     }
 
     /**
@@ -114,26 +172,39 @@ public class Emitter
      */
     public void clearProcedureContext()
     {
+        if (currentProc != null)
+        {
+            for (int id : currentProc.getParams())
+                slots[id] = NOT_LOCAL;
+            for (int id : currentProc.getLocalVars())
+                slots[id] = NOT_LOCAL;
+            slots[currentProc.getId()] = NOT_LOCAL;
+        }
         currentProc = null;
     }
 
+    /**
+     * Returns what slots holds for a variable.
+     *
+     * @param id the SymbolTable id of the variable
+     * @return the slot of the variable in the current procedure
+     */
+    private int slotOf(int id)
+    {
+        return id < slots.length ? slots[id] : NOT_LOCAL;
+    }
+
     /**
      * Returns whether or not the variable name given is a local variable.
      * A variable is considered a local variable if it is the name of
      * procedure, declared in the procedure declaration, or a parameter.
      *
-     * @param varName the variable name being searched for
+     * @param varName the SymbolTable id of the variable being searched for
      * @return true if the variable is a local variable; false otherwise
      */
-    public boolean isLocalVariable(String varName)
+    public boolean isLocalVariable(int varName)
     {
-        if (currentProc == null)
-            return false;
-        else if (varName.equals(currentProc.getName()))
-            return true;
-        else if (currentProc.getLocalVars().contains(varName))
-            return true;
-        return currentProc.getParams().contains(varName);
+        return currentProc != null && slotOf(varName) != NOT_LOCAL;
     }
 
     /**
@@ -146,28 +217,29 @@ public class Emitter
      *               variable for the procedure currently
      *               being compiled
      *
-     * @param localVarName the name of the local variable for
+     * @param localVarName the SymbolTable id of the local variable for
      *                     being accessed in the current Procedure
      * @return the value of the offset to access the local variable/param
      *         identified by localVarName
      */
-    public int getOffSet(String localVarName)
+    public int getOffSet(int localVarName)
     {
-        if (currentProc != null && currentProc.getName().equals(localVarName))
+        int slot = slotOf(localVarName);
+        if (slot == RETURN_VALUE)
         {
-            int offSet = 4 * (currentProc.getLocalVars().size() + 1);
+            int offSet = 4 * (currentProc.getLocalVars().length + 1);
             return offSet;
         }
-        else if (currentProc.getLocalVars().contains(localVarName))
+        else if (slot >= LOCAL)
         {
-            int index = currentProc.getLocalVars().indexOf(localVarName);
+            int index = slot - LOCAL;
             System.out.println(4 * (excessStackHeight - index - 3));
             return 4 * (excessStackHeight - index - 3);
         }
         else
         {
-            int size = currentProc.getParams().size();
-            int index = currentProc.getParams().indexOf(localVarName);
+            int size = currentProc.getParams().length;
+            int index = -1 - slot;
             return 4 * (size + excessStackHeight - index - 1);
         }
     }
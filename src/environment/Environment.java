@@ -2,25 +2,45 @@ package environment;
 
 import ast.Expression;
 import ast.ProcedureDeclaration;
+import scanner.SymbolTable;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
- * Represents an Environment that stores a Hashmap of
- * variable names and their corresponding Integer values.
- * It can also map procedure names to declarations.
+ * Represents an Environment that stores variable names and
+ * their corresponding int values. It can also map procedure
+ * names to declarations.
+ *
+ * Names are SymbolTable ids, which are dense, so variables are
+ * kept in an array of values indexed by id, next to an array
+ * of which ids are declared, and procedures in an array
+ * indexed by id. Reading or writing a variable is an array load
+ * or store; no lookup hashes a String or boxes an Integer.
+ *
+ * Procedures see the variables of whichever procedure called
+ * them, so the Evaluator does not give a call its own
+ * Environment. It binds the name and parameters of the procedure
+ * in the same Environment with bindVariable, which saves the
+ * values they shadow on a stack, and unbind puts those values
+ * back when the call returns. The innermost binding of every name
+ * is then always the one in the array, and the shadowed bindings
+ * of every active call sit in one contiguous int stack, which
+ * only grows when the calls nest deeper than they have before.
  *
  * @author Daniel Wu
  * @version 10/19/2019
  */
 public class Environment
 {
-    HashMap<String, Integer> variables;
-    HashMap<String, ProcedureDeclaration> procedures;
+    int[] values;
+    boolean[] declared;
+    int[] shadowed;
+    int bindings;
+    ProcedureDeclaration[] procedures;
     Environment parent;
 
     /**
-     * Constructs an environment by initializing the HashMap that
+     * Constructs an environment by initializing the table that
      * stores variable information.
      *
      * @param p the parent environment. If the Environment is the
@@ -28,46 +48,101 @@ public class Environment
      */
     public Environment(Environment p)
     {
-        variables = new HashMap<String, Integer>();
-        procedures = new HashMap<String, ProcedureDeclaration>();
+        values = new int[Math.max(SymbolTable.size(), 8)];
+        declared = new boolean[values.length];
+        shadowed = new int[48];
+        procedures = new ProcedureDeclaration[0];
         parent = p;
     }
 
     /**
-     * Sets a variable with the Hashmap's put method. This ensures
-     * that setting a variable that has already been declared
-     * overrides the previous value of the variable, while
-     * setting a new variable will create a new key/value pair.
+     * Makes sure that the arrays of the environment have room for
+     * a variable, since names can be interned after the environment
+     * is constructed.
      *
-     * @param variable the variable being stored
-     * @param value the value of the stored variable
+     * @param variable the id of the variable
      */
-    public void setVariable(String variable, int value)
+    private void ensureCapacity(int variable)
     {
-        if (!variables.containsKey(variable))
+        if (variable >= values.length)
         {
-            if (parent != null)
-            {
-                parent.setVariable(variable, value);
-            }
-            else
-                declareVariable(variable, value);
+            int length = Math.max(variable + 1, 2 * values.length);
+            values = Arrays.copyOf(values, length);
+            declared = Arrays.copyOf(declared, length);
         }
+    }
+
+    /**
+     * Makes sure that the arrays of the environment have room for every
+     * variable whose id is below a count, so that the arrays returned by
+     * getValues and getDeclared stay in use as long as no variable with a
+     * larger id is declared or bound.
+     *
+     * @param count one more than the largest id to make room for
+     */
+    public void reserveVariables(int count)
+    {
+        if (count > 0)
+            ensureCapacity(count - 1);
+    }
+
+    /**
+     * Returns the array of values indexed by variable id, which holds the
+     * innermost binding of every variable declared in this environment.
+     * Code that reads or writes a variable through it must check
+     * getDeclared first, and go through getVariable or setVariable for a
+     * variable that is not declared here.
+     *
+     * @return the instance field values
+     */
+    public int[] getValues()
+    {
+        return values;
+    }
+
+    /**
+     * Returns the array of which variable ids are declared in this
+     * environment, to be read alongside getValues.
+     *
+     * @return the instance field declared
+     */
+    public boolean[] getDeclared()
+    {
+        return declared;
+    }
+
+    /**
+     * Sets a variable. This ensures that setting a variable that
+     * has already been declared overrides the previous value of the
+     * variable, while setting a new variable declares it in the
+     * global environment.
+     *
+     * @param variable the SymbolTable id of the variable being stored
+     * @param value the value of the stored variable
+     */
+    public void setVariable(int variable, int value)
+    {
+        if (variable < declared.length && declared[variable])
+            values[variable] = value;
+        else if (parent != null)
+            parent.setVariable(variable, value);
         else
-            variables.put(variable, value);
+            declareVariable(variable, value);
     }
 
 
     /**
      * Declares a variable in the current environment by
-     * adding the name and value into the variables Map.
+     * adding the name and value into the variables table.
      *
-     * @param variable the name of the variable being declared
+     * @param variable the SymbolTable id of the variable being declared
      * @param value the value of the variable being declared
      */
-    public void declareVariable(String variable, int value)
+    public void declareVariable(int variable, int value)
     {
-        variables.put(variable, value);
+        ensureCapacity(variable);
+        declared[variable] = true;
+        values[variable] = value;
     }
 
     /**
@@ -76,35 +151,152 @@ public class Environment
      * the parent environments. If no environment contains the variable, the
      * method throws an Exception.
      *
-     * @param name the name of the variable whose value is to be returned
+     * @param name the SymbolTable id of the variable whose value is to be returned
      * @return the int value of the variable with the name name
      * @throws Exception if the variable is not found
      */
-    public int getVariable(String name) throws Exception
+    public int getVariable(int name) throws Exception
     {
-        if (variables.containsKey(name))
-            return variables.get(name);
+        if (name < declared.length && declared[name])
+            return values[name];
         if (parent != null)
             return parent.getVariable(name);
         throw new Exception("Variable has not been declared");
     }
 
     /**
-     * Takes in a ProcedureDeclaration and stores it in the HashMap
-     * procedures using the name as the key and the ProcedureDeclaration
-     * object as the value. This method sets the ProcedureDeclaration
-     * into the global environment.
+     * Binds a variable in the current environment, as declareVariable
+     * does, but first saves the binding that it shadows, so that unbind
+     * can put it back.
+     *
+     * @param variable the SymbolTable id of the variable being bound
+     * @param value the value of the variable being bound
+     */
+    public void bindVariable(int variable, int value)
+    {
+        reserveBindings(1);
+        bind(variable, value);
+    }
+
+    /**
+     * Binds the frame of a procedure call: the name of the procedure,
+     * which holds its return value, to 0, and then each parameter to its
+     * argument, in order. The stack of shadowed bindings is grown at most
+     * once for the whole frame.
+     *
+     * @param name the SymbolTable id of the procedure
+     * @param frame pairs of the id of a parameter and the value of its
+     *              argument
+     * @param from the index in frame of the first pair
+     * @param to the index in frame after the last pair
+     */
+    public void bindFrame(int name, int[] frame, int from, int to)
+    {
+        reserveBindings(1 + (to - from) / 2);
+        bind(name, 0);
+        for (int i = from; i < to; i += 2)
+            bind(frame[i], frame[i + 1]);
+    }
+
+    /**
+     * Binds the frame of a procedure call, as the other bindFrame does,
+     * with the arguments in an array of their own. A negative id in names
+     * is skipped, as is every parameter past the end of names.
+     *
+     * @param names the SymbolTable id of the procedure, and then those of
+     *              its parameters
+     * @param args the array holding the values of the arguments
+     * @param from the index in args of the first argument
+     * @param count the number of arguments
+     */
+    public void bindFrame(int[] names, int[] args, int from, int count)
+    {
+        int n = Math.min(names.length, 1 + count);
+        reserveBindings(n);
+        for (int i = 0; i < n; i++)
+        {
+            if (names[i] >= 0)
+                bind(names[i], i == 0 ? 0 : args[from + i - 1]);
+        }
+    }
+
+    /**
+     * Makes sure that the stack of shadowed bindings has room for some
+     * more bindings.
+     *
+     * @param count the number of bindings to make room for
+     */
+    private void reserveBindings(int count)
+    {
+        if (bindings + 3 * count > shadowed.length)
+            shadowed = Arrays.copyOf(shadowed, Math.max(2 * shadowed.length, bindings + 3 * count));
+    }
+
+    /**
+     * Saves the binding of a variable on the stack of shadowed bindings
+     * and binds it to a value.
+     *
+     * @precondition the stack has room for the binding
+     * @param variable the SymbolTable id of the variable being bound
+     * @param value the value of the variable being bound
+     */
+    private void bind(int variable, int value)
+    {
+        ensureCapacity(variable);
+        shadowed[bindings] = variable;
+        shadowed[bindings + 1] = values[variable];
+        shadowed[bindings + 2] = declared[variable] ? 1 : 0;
+        bindings += 3;
+        declared[variable] = true;
+        values[variable] = value;
+    }
+
+    /**
+     * Returns a mark of the bindings made so far, to be passed to unbind.
+     *
+     * @return the instance field bindings
+     */
+    public int getBindings()
+    {
+        return bindings;
+    }
+
+    /**
+     * Undoes every binding made since a mark, in the reverse order they
+     * were made, so each variable gets back the value it had before.
+     *
+     * @precondition mark was returned by getBindings, and the bindings
+     *               made before it have not been undone
+     * @param mark the mark to undo the bindings back to
+     */
+    public void unbind(int mark)
+    {
+        while (bindings > mark)
+        {
+            bindings -= 3;
+            int variable = shadowed[bindings];
+            values[variable] = shadowed[bindings + 1];
+            declared[variable] = shadowed[bindings + 2] != 0;
+        }
+    }
+
+    /**
+     * Takes in a ProcedureDeclaration and stores it in the array
+     * procedures at the id of its name. This method sets the
+     * ProcedureDeclaration into the global environment.
      *
-     * @param name the name of the ProcedureDeclaration
+     * @param name the SymbolTable id of the ProcedureDeclaration
      * @param declaration the ProcedureDeclaration being stored
      */
-    public void setProcedure(String name, ProcedureDeclaration declaration)
+    public void setProcedure(int name, ProcedureDeclaration declaration)
     {
         while (parent != null)
         {
             parent.setProcedure(name, declaration);
         }
-        procedures.put(name, declaration);
+        if (name >= procedures.length)
+            procedures = Arrays.copyOf(procedures, Math.max(name + 1, 2 * procedures.length));
+        procedures[name] = declaration;
     }
 
     /**
@@ -112,16 +304,16 @@ public class Environment
      * name. It searches in the global environment and returns
      * the corresponding procedure.
      *
-     * @param name the name of the procedure to be found
+     * @param name the SymbolTable id of the procedure to be found
      * @return the ProcedureDeclaration with the corresponding name
      *         from the global environment
      */
-    public ProcedureDeclaration getProcedure(String name)
+    public ProcedureDeclaration getProcedure(int name)
     {
         while (parent != null)
         {
             return parent.getProcedure(name);
         }
-        return procedures.get(name);
+        return name < procedures.length ? procedures[name] : null;
     }
 }
@@ -0,0 +1,703 @@
+package jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A ClassWriter builds a JVM class file from scratch: its constant pool,
+ * fields and methods, and the bytecode of each method through a Code.
+ *
+ * It writes class file version 49, whose methods the JVM verifies by
+ * inferring types, so no StackMapTable has to be computed for them. A Code
+ * works out the maximum stack depth of its method as instructions are
+ * added, which is only right for code whose stack is empty at every jump,
+ * such as code compiled statement by statement.
+ *
+ * Usage:
+ *   ClassWriter cw = new ClassWriter("jit/Example", "java/lang/Object", new String[0]);
+ *   ClassWriter.Code code = cw.addMethod(ClassWriter.PUBLIC | ClassWriter.STATIC,
+ *           "answer", "()I");
+ *   code.constant(42);
+ *   code.op(ClassWriter.IRETURN);
+ *   code.setMaxLocals(0);
+ *   byte[] bytes = cw.toBytes();
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class ClassWriter
+{
+    public static final int PUBLIC = 0x0001;
+    public static final int PRIVATE = 0x0002;
+    public static final int STATIC = 0x0008;
+    public static final int FINAL = 0x0010;
+    public static final int SUPER = 0x0020;
+
+    public static final int ICONST_0 = 0x03;
+    public static final int BIPUSH = 0x10;
+    public static final int SIPUSH = 0x11;
+    public static final int LDC = 0x12;
+    public static final int LDC_W = 0x13;
+    public static final int ILOAD = 0x15;
+    public static final int ALOAD = 0x19;
+    public static final int ISTORE = 0x36;
+    public static final int ASTORE = 0x3A;
+    public static final int POP = 0x57;
+    public static final int POP2 = 0x58;
+    public static final int DUP = 0x59;
+    public static final int SWAP = 0x5F;
+    public static final int IADD = 0x60;
+    public static final int ISUB = 0x64;
+    public static final int IMUL = 0x68;
+    public static final int IDIV = 0x6C;
+    public static final int IREM = 0x70;
+    public static final int IF_ICMPEQ = 0x9F;
+    public static final int IF_ICMPNE = 0xA0;
+    public static final int IF_ICMPLT = 0xA1;
+    public static final int IF_ICMPGE = 0xA2;
+    public static final int IF_ICMPGT = 0xA3;
+    public static final int IF_ICMPLE = 0xA4;
+    public static final int GOTO = 0xA7;
+    public static final int IRETURN = 0xAC;
+    public static final int ARETURN = 0xB0;
+    public static final int RETURN = 0xB1;
+    public static final int GETSTATIC = 0xB2;
+    public static final int PUTSTATIC = 0xB3;
+    public static final int GETFIELD = 0xB4;
+    public static final int PUTFIELD = 0xB5;
+    public static final int INVOKEVIRTUAL = 0xB6;
+    public static final int INVOKESPECIAL = 0xB7;
+    public static final int INVOKESTATIC = 0xB8;
+    public static final int INVOKEINTERFACE = 0xB9;
+    public static final int NEW = 0xBB;
+    public static final int ATHROW = 0xBF;
+
+    private static final int VERSION = 49;
+    private static final int MAX_CODE = 65535;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final HashMap<String, Integer> poolIndex = new HashMap<String, Integer>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final ArrayList<int[]> fields = new ArrayList<int[]>();
+    private final ArrayList<Code> methods = new ArrayList<Code>();
+
+    /**
+     * Constructs a ClassWriter for a public class.
+     *
+     * @param name the internal name of the class, such as "jit/Example"
+     * @param superName the internal name of its superclass
+     * @param interfaceNames the internal names of the interfaces it implements
+     */
+    public ClassWriter(String name, String superName, String[] interfaceNames)
+    {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaces.length; i++)
+            interfaces[i] = classRef(interfaceNames[i]);
+    }
+
+    /**
+     * The bytecode of one method, added to with one call per instruction.
+     */
+    public final class Code
+    {
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private byte[] bytes = new byte[64];
+        private int length;
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+        private int[] handlers = new int[0];
+
+        /**
+         * Constructs the empty Code of a method.
+         *
+         * @param a the access flags of the method
+         * @param n the constant pool index of its name
+         * @param d the constant pool index of its descriptor
+         */
+        private Code(int a, int n, int d)
+        {
+            access = a;
+            name = n;
+            descriptor = d;
+        }
+
+        /**
+         * Appends an instruction with no operands, such as IADD or RETURN.
+         *
+         * @param opcode the opcode of the instruction
+         */
+        public void op(int opcode)
+        {
+            u1(opcode);
+            switch (opcode)
+            {
+                case DUP:
+                    adjust(1);
+                    break;
+                case POP:
+                case IADD:
+                case ISUB:
+                case IMUL:
+                case IDIV:
+                case IREM:
+                case IRETURN:
+                case ARETURN:
+                case ATHROW:
+                    adjust(-1);
+                    break;
+                case POP2:
+                    adjust(-2);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Appends the shortest instruction that pushes an int constant.
+         *
+         * @param value the constant
+         */
+        public void constant(int value)
+        {
+            if (value >= -1 && value <= 5)
+                u1(ICONST_0 + value);
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+            {
+                u1(BIPUSH);
+                u1(value);
+            }
+            else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+            {
+                u1(SIPUSH);
+                u2(value);
+            }
+            else
+            {
+                int index = integer(value);
+                if (index < 256)
+                {
+                    u1(LDC);
+                    u1(index);
+                }
+                else
+                {
+                    u1(LDC_W);
+                    u2(index);
+                }
+            }
+            adjust(1);
+        }
+
+        /**
+         * Appends an instruction that loads or stores a local variable:
+         * ILOAD, ALOAD, ISTORE or ASTORE.
+         *
+         * @param opcode the opcode of the instruction
+         * @param slot the index of the local variable
+         */
+        public void local(int opcode, int slot)
+        {
+            if (slot > 255)
+                throw new IllegalStateException("Too many local variables");
+            u1(opcode);
+            u1(slot);
+            maxLocals = Math.max(maxLocals, slot + 1);
+            adjust(opcode == ILOAD || opcode == ALOAD ? 1 : -1);
+        }
+
+        /**
+         * Appends a field instruction: GETSTATIC, PUTSTATIC, GETFIELD or
+         * PUTFIELD, on a field of one stack slot.
+         *
+         * @param opcode the opcode of the instruction
+         * @param owner the internal name of the class of the field
+         * @param fieldName the name of the field
+         * @param type the descriptor of the field
+         */
+        public void field(int opcode, String owner, String fieldName, String type)
+        {
+            u1(opcode);
+            u2(fieldRef(owner, fieldName, type));
+            if (opcode == GETSTATIC)
+                adjust(1);
+            else if (opcode == PUTSTATIC || opcode == PUTFIELD)
+                adjust(opcode == PUTSTATIC ? -1 : -2);
+        }
+
+        /**
+         * Appends a method invocation: INVOKEVIRTUAL, INVOKESPECIAL,
+         * INVOKESTATIC or INVOKEINTERFACE.
+         *
+         * @param opcode the opcode of the instruction
+         * @param owner the internal name of the class of the method
+         * @param methodName the name of the method
+         * @param type the descriptor of the method, with no long or double
+         */
+        public void invoke(int opcode, String owner, String methodName, String type)
+        {
+            int slots = 0;
+            int i = 1;
+            while (type.charAt(i) != ')')
+            {
+                while (type.charAt(i) == '[')
+                    i++;
+                i = type.charAt(i) == 'L' ? type.indexOf(';', i) + 1 : i + 1;
+                slots++;
+            }
+            u1(opcode);
+            if (opcode == INVOKEINTERFACE)
+            {
+                u2(interfaceMethodRef(owner, methodName, type));
+                u1(slots + 1);
+                u1(0);
+            }
+            else
+                u2(methodRef(owner, methodName, type));
+            adjust(-slots - (opcode == INVOKESTATIC ? 0 : 1) + (type.endsWith(")V") ? 0 : 1));
+        }
+
+        /**
+         * Appends an instruction on a class: NEW.
+         *
+         * @param opcode the opcode of the instruction
+         * @param type the internal name of the class
+         */
+        public void type(int opcode, String type)
+        {
+            u1(opcode);
+            u2(classRef(type));
+            adjust(1);
+        }
+
+        /**
+         * Appends a jump, GOTO or one of the IF_ICMP instructions, to a
+         * label that may not be placed yet.
+         *
+         * @param opcode the opcode of the jump
+         * @param target the label to jump to
+         */
+        public void jump(int opcode, Label target)
+        {
+            int at = length;
+            u1(opcode);
+            u2(0);
+            if (opcode != GOTO)
+                adjust(-2);
+            if (target.position >= 0)
+                patch(at, target.position);
+            else
+                target.reference(at);
+        }
+
+        /**
+         * Places a label at the next instruction, and fills in the jumps to
+         * it that were appended before.
+         *
+         * @param label the label to place
+         */
+        public void mark(Label label)
+        {
+            label.position = length;
+            for (int i = 0; i < label.count; i++)
+                patch(label.references[i], length);
+            label.count = 0;
+        }
+
+        /**
+         * Places an exception handler at the next instruction, which
+         * catches any exception thrown by the code between two labels that
+         * are already placed, and starts with the exception on the stack.
+         *
+         * @param start the label at the first instruction covered
+         * @param end the label just after the last instruction covered
+         */
+        public void handler(Label start, Label end)
+        {
+            int count = handlers.length;
+            handlers = Arrays.copyOf(handlers, count + 3);
+            handlers[count] = start.position;
+            handlers[count + 1] = end.position;
+            handlers[count + 2] = length;
+            adjust(1);
+        }
+
+        /**
+         * Makes sure the method has room for a number of local variables,
+         * such as its parameters.
+         *
+         * @param count the number of local variable slots
+         */
+        public void setMaxLocals(int count)
+        {
+            maxLocals = Math.max(maxLocals, count);
+        }
+
+        /**
+         * Returns the number of bytes of code appended so far.
+         *
+         * @return the instance field length
+         */
+        public int size()
+        {
+            return length;
+        }
+
+        /**
+         * Sets the offset of the jump at an index to reach a target.
+         *
+         * @param at the index of the jump instruction
+         * @param target the index of the instruction it jumps to
+         */
+        private void patch(int at, int target)
+        {
+            int offset = target - at;
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                throw new IllegalStateException("Jump too far");
+            bytes[at + 1] = (byte) (offset >> 8);
+            bytes[at + 2] = (byte) offset;
+        }
+
+        /**
+         * Changes the current stack depth.
+         *
+         * @param delta the number of slots pushed, or popped if negative
+         */
+        private void adjust(int delta)
+        {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        /**
+         * Appends one byte.
+         *
+         * @param b the byte
+         */
+        private void u1(int b)
+        {
+            if (length == MAX_CODE)
+                throw new IllegalStateException("Method too large");
+            if (length == bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.min(2 * length, MAX_CODE));
+            bytes[length++] = (byte) b;
+        }
+
+        /**
+         * Appends two bytes, high byte first.
+         *
+         * @param s the two bytes
+         */
+        private void u2(int s)
+        {
+            u1(s >> 8);
+            u1(s);
+        }
+    }
+
+    /**
+     * A place in the code of a method, which jumps can target before it is
+     * placed.
+     */
+    public static final class Label
+    {
+        private int position = -1;
+        private int[] references = new int[2];
+        private int count;
+
+        /**
+         * Records a jump at an index that targets this label before it is
+         * placed, to be patched when it is.
+         *
+         * @param at the index of the jump instruction
+         */
+        private void reference(int at)
+        {
+            if (count == references.length)
+                references = Arrays.copyOf(references, 2 * count);
+            references[count++] = at;
+        }
+    }
+
+    /**
+     * Adds a field to the class.
+     *
+     * @param access the access flags of the field
+     * @param name the name of the field
+     * @param type the descriptor of the field
+     */
+    public void addField(int access, String name, String type)
+    {
+        fields.add(new int[] {access, utf8(name), utf8(type)});
+    }
+
+    /**
+     * Adds a method to the class, whose code is then appended to the Code
+     * returned.
+     *
+     * @param access the access flags of the method
+     * @param name the name of the method
+     * @param type the descriptor of the method
+     * @return the Code of the method
+     */
+    public Code addMethod(int access, String name, String type)
+    {
+        Code code = new Code(access, utf8(name), utf8(type));
+        methods.add(code);
+        return code;
+    }
+
+    /**
+     * Returns the bytes of the class file.
+     *
+     * @return the class file
+     * @throws IllegalStateException if a jump targets a label that was
+     *         never placed
+     */
+    public byte[] toBytes()
+    {
+        int codeName = utf8("Code");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(PUBLIC | SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int i : interfaces)
+                out.writeShort(i);
+
+            out.writeShort(fields.size());
+            for (int[] f : fields)
+            {
+                out.writeShort(f[0]);
+                out.writeShort(f[1]);
+                out.writeShort(f[2]);
+                out.writeShort(0);
+            }
+
+            out.writeShort(methods.size());
+            for (Code m : methods)
+            {
+                out.writeShort(m.access);
+                out.writeShort(m.name);
+                out.writeShort(m.descriptor);
+                out.writeShort(1);
+                out.writeShort(codeName);
+                out.writeInt(12 + m.length + 8 * (m.handlers.length / 3));
+                out.writeShort(m.maxStack);
+                out.writeShort(m.maxLocals);
+                out.writeInt(m.length);
+                out.write(m.bytes, 0, m.length);
+                out.writeShort(m.handlers.length / 3);
+                for (int i = 0; i < m.handlers.length; i += 3)
+                {
+                    out.writeShort(m.handlers[i]);
+                    out.writeShort(m.handlers[i + 1]);
+                    out.writeShort(m.handlers[i + 2]);
+                    // every handler catches any exception
+                    out.writeShort(0);
+                }
+                out.writeShort(0);
+            }
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the constant pool index of a UTF-8 string.
+     *
+     * @param s the string
+     * @return its index in the pool
+     */
+    public int utf8(String s)
+    {
+        Integer index = poolIndex.get("U" + s);
+        if (index != null)
+            return index;
+        try
+        {
+            poolOut.writeByte(1);
+            poolOut.writeUTF(s);
+        }
+        catch (IOException e)
+        {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return add("U" + s, 1);
+    }
+
+    /**
+     * Returns the constant pool index of a class.
+     *
+     * @param name the internal name of the class
+     * @return its index in the pool
+     */
+    public int classRef(String name)
+    {
+        Integer index = poolIndex.get("C" + name);
+        if (index != null)
+            return index;
+        int n = utf8(name);
+        write(7, n, -1);
+        return add("C" + name, 1);
+    }
+
+    /**
+     * Returns the constant pool index of an int constant.
+     *
+     * @param value the constant
+     * @return its index in the pool
+     */
+    public int integer(int value)
+    {
+        Integer index = poolIndex.get("I" + value);
+        if (index != null)
+            return index;
+        try
+        {
+            poolOut.writeByte(3);
+            poolOut.writeInt(value);
+        }
+        catch (IOException e)
+        {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return add("I" + value, 1);
+    }
+
+    /**
+     * Returns the constant pool index of a field.
+     *
+     * @param owner the internal name of the class of the field
+     * @param name the name of the field
+     * @param type the descriptor of the field
+     * @return its index in the pool
+     */
+    public int fieldRef(String owner, String name, String type)
+    {
+        return member(9, owner, name, type);
+    }
+
+    /**
+     * Returns the constant pool index of a method of a class.
+     *
+     * @param owner the internal name of the class of the method
+     * @param name the name of the method
+     * @param type the descriptor of the method
+     * @return its index in the pool
+     */
+    public int methodRef(String owner, String name, String type)
+    {
+        return member(10, owner, name, type);
+    }
+
+    /**
+     * Returns the constant pool index of a method of an interface.
+     *
+     * @param owner the internal name of the interface of the method
+     * @param name the name of the method
+     * @param type the descriptor of the method
+     * @return its index in the pool
+     */
+    public int interfaceMethodRef(String owner, String name, String type)
+    {
+        return member(11, owner, name, type);
+    }
+
+    /**
+     * Returns the constant pool index of a field or method.
+     *
+     * @param tag the constant pool tag of the member
+     * @param owner the internal name of the class of the member
+     * @param name the name of the member
+     * @param type the descriptor of the member
+     * @return its index in the pool
+     */
+    private int member(int tag, String owner, String name, String type)
+    {
+        String key = tag + owner + "." + name + ":" + type;
+        Integer index = poolIndex.get(key);
+        if (index != null)
+            return index;
+        int c = classRef(owner);
+        Integer nameAndType = poolIndex.get("N" + name + ":" + type);
+        if (nameAndType == null)
+        {
+            int n = utf8(name);
+            int t = utf8(type);
+            write(12, n, t);
+            nameAndType = add("N" + name + ":" + type, 1);
+        }
+        write(tag, c, nameAndType);
+        return add(key, 1);
+    }
+
+    /**
+     * Writes a constant pool entry made of a tag and one or two indices.
+     *
+     * @param tag the tag of the entry
+     * @param a the first index
+     * @param b the second index, or -1 if there is only one
+     */
+    private void write(int tag, int a, int b)
+    {
+        try
+        {
+            poolOut.writeByte(tag);
+            poolOut.writeShort(a);
+            if (b >= 0)
+                poolOut.writeShort(b);
+        }
+        catch (IOException e)
+        {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Records the entry just written to the constant pool.
+     *
+     * @param key the key the entry is found by
+     * @param slots the number of pool slots the entry takes
+     * @return the index of the entry
+     */
+    private int add(String key, int slots)
+    {
+        int index = poolCount;
+        poolCount += slots;
+        if (poolCount > 65535)
+            throw new IllegalStateException("Constant pool too large");
+        poolIndex.put(key, index);
+        return index;
+    }
+}
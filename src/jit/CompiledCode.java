@@ -0,0 +1,24 @@
+package jit;
+
+import ast.Evaluator;
+import environment.Environment;
+
+/**
+ * CompiledCode is a statement compiled to JVM bytecode by a JitCompiler:
+ * the body of a procedure or a While loop. Running it does exactly what
+ * the Evaluator does when it executes the statement.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public interface CompiledCode
+{
+    /**
+     * Runs the compiled statement.
+     *
+     * @param evaluator the Evaluator that procedure calls go through
+     * @param env the environment the statement runs in
+     * @throws Exception when variable is not found
+     */
+    void run(Evaluator evaluator, Environment env) throws Exception;
+}
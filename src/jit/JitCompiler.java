@@ -0,0 +1,376 @@
+package jit;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.If;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A JitCompiler compiles a statement, the body of a procedure or a While
+ * loop, into a class of its own that implements CompiledCode, and loads it
+ * into the running JVM, where HotSpot compiles it further like any other
+ * code.
+ *
+ * The compiled code does exactly what the Evaluator does, down to its
+ * quirks, as the BytecodeCompiler does. Variables are read and written
+ * through the Environment, and a procedure call pushes its arguments and
+ * calls through the Evaluator, so compiled and interpreted code can call
+ * each other and share every variable.
+ *
+ * Classes are defined by a class loader of the JitCompiler's own, so they
+ * are unloaded once the JitCompiler and the code it compiled are no longer
+ * reachable. A statement that cannot be compiled,
+ * such as one too large for a JVM method, or one that declares a
+ * procedure, gives null and stays interpreted.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class JitCompiler
+{
+    private static final AtomicInteger CLASSES = new AtomicInteger();
+
+    private static final String EVALUATOR = "ast/Evaluator";
+    private static final String ENVIRONMENT = "environment/Environment";
+    private static final int EV = 1;
+    private static final int ENV = 2;
+
+    private final Loader loader = new Loader();
+    private ClassWriter.Code code;
+    private int calls;
+
+    /**
+     * Defines the classes of one JitCompiler, which share its lifetime.
+     */
+    private static final class Loader extends ClassLoader
+    {
+        /**
+         * Constructs a Loader that delegates to the loader of JitCompiler.
+         */
+        Loader()
+        {
+            super(JitCompiler.class.getClassLoader());
+        }
+
+        /**
+         * Defines a class.
+         *
+         * @param name the binary name of the class
+         * @param bytes the class file
+         * @return the class
+         */
+        Class<?> define(String name, byte[] bytes)
+        {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Thrown inside the compiler when a statement cannot be compiled.
+     */
+    private static final class Unsupported extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs an Unsupported exception.
+         */
+        Unsupported()
+        {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Compiles a statement that the Evaluator would run with
+     * exec(Statement) into CompiledCode.
+     *
+     * @param statement the statement to compile
+     * @return the compiled statement, or null if it cannot be compiled
+     */
+    public CompiledCode compile(Statement statement)
+    {
+        String name = "jit.Compiled" + CLASSES.incrementAndGet();
+        byte[] bytes;
+        try
+        {
+            bytes = assemble(name.replace('.', '/'), statement);
+        }
+        catch (Unsupported | IllegalStateException e)
+        {
+            return null;
+        }
+        try
+        {
+            return (CompiledCode) loader.define(name, bytes).getConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the class file of a statement compiled into the run method
+     * of a class implementing CompiledCode.
+     *
+     * @param name the internal name of the class
+     * @param statement the statement to compile
+     * @return the bytes of the class
+     */
+    byte[] assemble(String name, Statement statement)
+    {
+        ClassWriter cw = new ClassWriter(name, "java/lang/Object",
+                new String[] {"jit/CompiledCode"});
+
+        ClassWriter.Code init = cw.addMethod(ClassWriter.PUBLIC, "<init>", "()V");
+        init.local(ClassWriter.ALOAD, 0);
+        init.invoke(ClassWriter.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        init.op(ClassWriter.RETURN);
+
+        code = cw.addMethod(ClassWriter.PUBLIC, "run",
+                "(L" + EVALUATOR + ";L" + ENVIRONMENT + ";)V");
+        code.setMaxLocals(3);
+        calls = 0;
+        compileStatement(statement);
+        code.op(ClassWriter.RETURN);
+        return cw.toBytes();
+    }
+
+    /**
+     * Compiles a statement that the Evaluator would run with
+     * exec(Statement), which runs every kind of statement.
+     *
+     * @param statement the statement to compile
+     */
+    private void compileStatement(Statement statement)
+    {
+        if (statement instanceof ProcedureDeclaration)
+            throw new Unsupported();
+        compileBlockStatement(statement);
+    }
+
+    /**
+     * Compiles a statement of a Block, which the Evaluator skips if it is
+     * a ProcedureDeclaration.
+     *
+     * @param statement the statement to compile
+     */
+    private void compileBlockStatement(Statement statement)
+    {
+        if (statement instanceof Writeln)
+        {
+            Expression expr = ((Writeln) statement).getExpression();
+            if (isValue(expr))
+            {
+                code.field(ClassWriter.GETSTATIC, "java/lang/System", "out",
+                        "Ljava/io/PrintStream;");
+                compileExpression(expr);
+                code.invoke(ClassWriter.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V");
+            }
+        }
+        else if (statement instanceof Assignment)
+        {
+            Assignment assignment = (Assignment) statement;
+            if (isValue(assignment.getExpression()))
+            {
+                code.local(ClassWriter.ALOAD, ENV);
+                code.constant(assignment.getVariableId());
+                compileExpression(assignment.getExpression());
+                code.invoke(ClassWriter.INVOKEVIRTUAL, ENVIRONMENT, "setVariable", "(II)V");
+            }
+        }
+        else if (statement instanceof Block)
+        {
+            List<Statement> statements = ((Block) statement).getStatements();
+            for (int i = 0; i < statements.size(); i++)
+                compileBlockStatement(statements.get(i));
+        }
+        else if (statement instanceof If)
+        {
+            If ifStatement = (If) statement;
+            ClassWriter.Label end = new ClassWriter.Label();
+            compileBranch(ifStatement.getCondition(), false, end);
+            compileStatement(ifStatement.getStatement());
+            code.mark(end);
+        }
+        else if (statement instanceof While)
+        {
+            While whileStatement = (While) statement;
+            ClassWriter.Label body = new ClassWriter.Label();
+            ClassWriter.Label condition = new ClassWriter.Label();
+            code.jump(ClassWriter.GOTO, condition);
+            code.mark(body);
+            compileStatement(whileStatement.getStatement());
+            code.mark(condition);
+            compileBranch(whileStatement.getCondition(), true, body);
+        }
+    }
+
+    /**
+     * Compiles a Condition into a jump, after evaluating both of its
+     * expressions.
+     *
+     * @param c the Condition to compile
+     * @param when true to jump when the Condition is true, false to jump
+     *             when it is false
+     * @param target the label to jump to
+     */
+    private void compileBranch(Condition c, boolean when, ClassWriter.Label target)
+    {
+        compileExpression(c.getExpression1());
+        compileExpression(c.getExpression2());
+        int op;
+        switch (c.getOpcode())
+        {
+            case EQUAL:
+                op = when ? ClassWriter.IF_ICMPEQ : ClassWriter.IF_ICMPNE;
+                break;
+            case NOT_EQUAL:
+                op = when ? ClassWriter.IF_ICMPNE : ClassWriter.IF_ICMPEQ;
+                break;
+            case LESS:
+                op = when ? ClassWriter.IF_ICMPLT : ClassWriter.IF_ICMPGE;
+                break;
+            case GREATER:
+                op = when ? ClassWriter.IF_ICMPGT : ClassWriter.IF_ICMPLE;
+                break;
+            case LESS_EQUAL:
+                op = when ? ClassWriter.IF_ICMPLE : ClassWriter.IF_ICMPGT;
+                break;
+            case GREATER_EQUAL:
+                op = when ? ClassWriter.IF_ICMPGE : ClassWriter.IF_ICMPLT;
+                break;
+            default:
+                // never true
+                code.op(ClassWriter.POP2);
+                if (!when)
+                    code.jump(ClassWriter.GOTO, target);
+                return;
+        }
+        code.jump(op, target);
+    }
+
+    /**
+     * Compiles an expression as the Evaluator evaluates it with
+     * eval(Expression), leaving its value on the stack.
+     *
+     * @param expr the expression to compile
+     */
+    private void compileExpression(Expression expr)
+    {
+        if (expr instanceof Number)
+            code.constant(((Number) expr).getValue());
+        else if (expr instanceof Variable)
+        {
+            code.local(ClassWriter.ALOAD, ENV);
+            code.constant(((Variable) expr).getId());
+            code.invoke(ClassWriter.INVOKEVIRTUAL, ENVIRONMENT, "getVariable", "(I)I");
+        }
+        else if (expr instanceof BinOp)
+        {
+            BinOp binop = (BinOp) expr;
+            compileOperand(binop.getExpression1());
+            compileOperand(binop.getExpression2());
+            switch (binop.getOpcode())
+            {
+                case ADD:
+                    code.op(ClassWriter.IADD);
+                    break;
+                case SUBTRACT:
+                    code.op(ClassWriter.ISUB);
+                    break;
+                case MULTIPLY:
+                    code.op(ClassWriter.IMUL);
+                    break;
+                case DIVIDE:
+                    code.op(ClassWriter.IDIV);
+                    break;
+                case MOD:
+                    code.op(ClassWriter.IREM);
+                    break;
+                default:
+                    code.op(ClassWriter.POP2);
+                    code.constant(0);
+            }
+        }
+        else if (expr instanceof ProcedureCall)
+            compileCall((ProcedureCall) expr);
+        else
+            code.constant(0);
+    }
+
+    /**
+     * Compiles an operand of a BinOp, where the Evaluator counts a
+     * procedure call as 0 without calling it.
+     *
+     * @param expr the operand to compile
+     */
+    private void compileOperand(Expression expr)
+    {
+        if (expr instanceof ProcedureCall)
+            code.constant(0);
+        else
+            compileExpression(expr);
+    }
+
+    /**
+     * Compiles a procedure call the way Evaluator.eval(ProcedureCall) makes
+     * it: the argument count is kept in a local variable, each argument is
+     * pushed as it is evaluated, and then the procedure is called.
+     *
+     * @param call the ProcedureCall to compile
+     */
+    private void compileCall(ProcedureCall call)
+    {
+        int base = 3 + calls++;
+        code.local(ClassWriter.ALOAD, EV);
+        code.invoke(ClassWriter.INVOKEVIRTUAL, EVALUATOR, "getArgumentCount", "()I");
+        code.local(ClassWriter.ISTORE, base);
+
+        List<Expression> args = call.getArgs();
+        for (int i = 0; i < args.size(); i++)
+        {
+            code.local(ClassWriter.ALOAD, EV);
+            code.constant(call.getId());
+            code.constant(i);
+            compileExpression(args.get(i));
+            code.local(ClassWriter.ALOAD, ENV);
+            code.invoke(ClassWriter.INVOKEVIRTUAL, EVALUATOR, "pushArgument",
+                    "(IIIL" + ENVIRONMENT + ";)V");
+        }
+
+        code.local(ClassWriter.ALOAD, EV);
+        code.constant(call.getId());
+        code.local(ClassWriter.ILOAD, base);
+        code.local(ClassWriter.ALOAD, ENV);
+        code.invoke(ClassWriter.INVOKEVIRTUAL, EVALUATOR, "call",
+                "(IIL" + ENVIRONMENT + ";)I");
+        calls--;
+    }
+
+    /**
+     * Returns whether the Evaluator gives an expression a value when it is
+     * written or assigned, which it does for every kind the Parser makes.
+     *
+     * @param expr the expression
+     * @return true if expr is a Number, Variable, BinOp or ProcedureCall
+     */
+    private static boolean isValue(Expression expr)
+    {
+        return expr instanceof Number || expr instanceof Variable ||
+                expr instanceof BinOp || expr instanceof ProcedureCall;
+    }
+}
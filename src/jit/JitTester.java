@@ -0,0 +1,84 @@
+package jit;
+
+import ast.Evaluator;
+import environment.Environment;
+import parser.Parser;
+import scanner.Scanner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.PrintStream;
+
+/**
+ * JitTester runs programs on an Evaluator that only interprets, on one
+ * that compiles every procedure on its first call and every loop when it
+ * is first reached, and on one with the default thresholds, which switches
+ * a long loop to compiled code partway through, and checks that all three
+ * print the same and fail the same.
+ *
+ * Usage: java jit.JitTester file...
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class JitTester
+{
+    /**
+     * Runs each file given on every Evaluator and reports any difference.
+     *
+     * @param args the files of the programs to run
+     * @throws Exception if a file cannot be read
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int differences = 0;
+        for (String file : args)
+        {
+            String interpreted = run(file, null);
+            String compiled = run(file, new TieredCompiler(1, 0));
+            String tiered = run(file, new TieredCompiler());
+            if (!interpreted.equals(compiled) || !interpreted.equals(tiered))
+            {
+                differences++;
+                System.out.println(file + " differs:");
+                System.out.println("interpreted:\n" + interpreted);
+                System.out.println("compiled:\n" + compiled);
+                System.out.println("tiered:\n" + tiered);
+            }
+        }
+        System.out.println(args.length + " programs, " + differences + " differences");
+    }
+
+    /**
+     * Runs a program on an Evaluator, capturing what it prints and the
+     * exception, if any, that ends it.
+     *
+     * @param file the file of the program
+     * @param tiers the TieredCompiler for the Evaluator, or null to only
+     *              interpret
+     * @return what the program printed, followed by its exception
+     * @throws Exception if the file cannot be read
+     */
+    private static String run(String file, TieredCompiler tiers) throws Exception
+    {
+        Parser p = new Parser(new Scanner(new FileInputStream(file)));
+        Evaluator e = new Evaluator();
+        e.setTieredCompiler(tiers);
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes, true));
+        try
+        {
+            e.exec(p.parseProgram(), new Environment(null));
+        }
+        catch (Exception | StackOverflowError ex)
+        {
+            System.out.println("error: " + ex);
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+        return bytes.toString();
+    }
+}
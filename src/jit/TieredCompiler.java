@@ -0,0 +1,133 @@
+package jit;
+
+import ast.ProcedureDeclaration;
+import ast.While;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * A TieredCompiler counts how often each procedure is called and how often
+ * each While loop goes around, for an Evaluator, and compiles a procedure
+ * or loop with a JitCompiler once its count reaches a threshold. A
+ * procedure or loop that cannot be compiled is only tried once, and stays
+ * interpreted.
+ *
+ * Procedures are counted by SymbolTable id, along with the declaration
+ * the count is for, so a procedure declared again starts over. Loops are
+ * counted by identity, and the Evaluator only reports their back-edges
+ * every LOOP_CHECK iterations and when they end, so a loop costs a lookup
+ * per run rather than per iteration.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class TieredCompiler
+{
+    /** How many iterations a loop goes between reports of its back-edges. */
+    public static final int LOOP_CHECK = 1000;
+
+    private final int callThreshold;
+    private final int loopThreshold;
+    private final JitCompiler compiler = new JitCompiler();
+
+    private ProcedureDeclaration[] declarations = new ProcedureDeclaration[16];
+    private int[] calls = new int[16];
+    private CompiledCode[] procedures = new CompiledCode[16];
+    private final IdentityHashMap<While, Loop> loops = new IdentityHashMap<While, Loop>();
+
+    /**
+     * The back-edges and compiled code of a While loop.
+     */
+    private static final class Loop
+    {
+        private int backEdges;
+        private boolean compiled;
+        private CompiledCode code;
+    }
+
+    /**
+     * Constructs a TieredCompiler that compiles a procedure on its 1000th
+     * call and a loop on its 10000th back-edge.
+     */
+    public TieredCompiler()
+    {
+        this(1000, 10000);
+    }
+
+    /**
+     * Constructs a TieredCompiler with thresholds of its own.
+     *
+     * @param c the number of calls after which a procedure is compiled,
+     *          so 1 compiles it on its first call
+     * @param b the number of back-edges after which a loop is compiled,
+     *          so 0 compiles it when it is first reached; loops are only
+     *          checked when they start, every LOOP_CHECK back-edges and
+     *          when they end
+     */
+    public TieredCompiler(int c, int b)
+    {
+        callThreshold = c;
+        loopThreshold = b;
+    }
+
+    /**
+     * Counts a call of a procedure, compiling the procedure if the count
+     * reaches the threshold.
+     *
+     * @param dec the ProcedureDeclaration being called, or null if the
+     *            procedure has not been declared
+     * @return the compiled body of the procedure, or null if it is still
+     *         interpreted
+     */
+    public CompiledCode procedure(ProcedureDeclaration dec)
+    {
+        if (dec == null)
+            return null;
+        int id = dec.getId();
+        if (id >= calls.length)
+        {
+            int length = Math.max(id + 1, 2 * calls.length);
+            declarations = Arrays.copyOf(declarations, length);
+            calls = Arrays.copyOf(calls, length);
+            procedures = Arrays.copyOf(procedures, length);
+        }
+        if (declarations[id] != dec)
+        {
+            declarations[id] = dec;
+            calls[id] = 0;
+            procedures[id] = null;
+        }
+        if (calls[id] < callThreshold && ++calls[id] == callThreshold)
+            procedures[id] = compiler.compile(dec.getDeclaration());
+        return procedures[id];
+    }
+
+    /**
+     * Adds back-edges to the count of a loop, compiling the loop if the
+     * count reaches the threshold.
+     *
+     * @param loop the While loop
+     * @param backEdges the number of iterations since the last report
+     * @return the compiled loop, or null if it is still interpreted
+     */
+    public CompiledCode loop(While loop, int backEdges)
+    {
+        Loop l = loops.get(loop);
+        if (l == null)
+        {
+            l = new Loop();
+            loops.put(loop, l);
+        }
+        if (!l.compiled)
+        {
+            l.backEdges = (int) Math.min((long) l.backEdges + backEdges, Integer.MAX_VALUE);
+            if (l.backEdges >= loopThreshold)
+            {
+                l.compiled = true;
+                l.code = compiler.compile(loop);
+            }
+        }
+        return l.code;
+    }
+}
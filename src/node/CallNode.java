@@ -0,0 +1,483 @@
+package node;
+
+import ast.ProcedureDeclaration;
+import environment.Environment;
+
+/**
+ * A CallNode makes a procedure call. It starts out uninitialized, and the
+ * first time it is evaluated it replaces itself with a node that caches
+ * the ProcedureDeclaration it finds, with the parameters and the body
+ * node of that declaration, and that evaluates its arguments into fields
+ * of its own when there are at most two of them. A cached call checks
+ * that the procedure is still the one it cached each time it would look
+ * it up, and if another declaration has taken its place, it replaces
+ * itself with a generic call, which looks the procedure up every time as
+ * the Evaluator does, and finishes the call from where it was. A call to a
+ * procedure that has not been declared, or with more arguments than
+ * parameters, starts out generic, so it fails as in the Evaluator.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public abstract class CallNode extends ExpressionNode
+{
+    final NodeCompiler compiler;
+    final int id;
+
+    /**
+     * Constructs a CallNode.
+     *
+     * @param c the NodeCompiler that compiles the bodies of procedures
+     * @param i the SymbolTable id of the procedure
+     */
+    CallNode(NodeCompiler c, int i)
+    {
+        compiler = c;
+        id = i;
+    }
+
+    /**
+     * Builds the node of a procedure call, to be specialized when first
+     * evaluated.
+     *
+     * @param c the NodeCompiler that compiles the bodies of procedures
+     * @param i the SymbolTable id of the procedure
+     * @param args the nodes of the arguments
+     * @return the uninitialized node
+     */
+    static CallNode create(NodeCompiler c, int i, ExpressionNode[] args)
+    {
+        return new Uninitialized(c, i, args);
+    }
+
+    /**
+     * Replaces an argument node in an array of them.
+     *
+     * @param args the nodes of the arguments
+     * @param child the argument node being replaced
+     * @param replacement the node that takes its place
+     * @return true if child was in args and was replaced, false otherwise
+     */
+    static boolean replaceArgument(ExpressionNode[] args, Node child, Node replacement)
+    {
+        for (int i = 0; i < args.length; i++)
+            if (args[i] == child)
+            {
+                args[i] = (ExpressionNode) replacement;
+                return true;
+            }
+        return false;
+    }
+
+    /**
+     * A call that has not been evaluated yet.
+     */
+    static final class Uninitialized extends CallNode
+    {
+        private final ExpressionNode[] args;
+
+        /**
+         * Constructs an Uninitialized call.
+         *
+         * @param c the NodeCompiler that compiles the bodies of procedures
+         * @param i the SymbolTable id of the procedure
+         * @param a the nodes of the arguments
+         */
+        Uninitialized(NodeCompiler c, int i, ExpressionNode[] a)
+        {
+            super(c, i);
+            args = a;
+            for (ExpressionNode arg : args)
+                adopt(arg);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            ProcedureDeclaration dec = env.getProcedure(id);
+            CallNode call;
+            if (dec == null || args.length > dec.getParams().length)
+                call = new Generic(compiler, id, args);
+            else if (args.length == 0)
+                call = new Cached0(compiler, id, dec);
+            else if (args.length == 1)
+                call = new Cached1(compiler, id, dec, args[0]);
+            else if (args.length == 2)
+                call = new Cached2(compiler, id, dec, args[0], args[1]);
+            else
+                call = new CachedN(compiler, id, dec, args);
+            return replace(call).eval(env);
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            return replaceArgument(args, child, replacement);
+        }
+    }
+
+    /**
+     * A call that looks its procedure up every time, and pushes its
+     * arguments on the arguments of the NodeCompiler, as the Evaluator does.
+     */
+    static final class Generic extends CallNode
+    {
+        private final ExpressionNode[] args;
+
+        /**
+         * Constructs a Generic call.
+         *
+         * @param c the NodeCompiler that compiles the bodies of procedures
+         * @param i the SymbolTable id of the procedure
+         * @param a the nodes of the arguments
+         */
+        Generic(NodeCompiler c, int i, ExpressionNode[] a)
+        {
+            super(c, i);
+            args = a;
+            for (ExpressionNode arg : args)
+                adopt(arg);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            int base = compiler.argumentCount;
+            try
+            {
+                return resume(env, base, 0);
+            }
+            finally
+            {
+                compiler.argumentCount = base;
+            }
+        }
+
+        /**
+         * Finishes a call whose first arguments have been pushed: pushes
+         * the rest, binds the frame, runs the body of the procedure, and
+         * returns the value of the variable sharing its name.
+         *
+         * @param env the environment the procedure is called from
+         * @param base the argument count from before the arguments were
+         *             pushed
+         * @param next the index of the first argument not yet pushed
+         * @return the return value of the procedure
+         * @throws Exception when variable is not found
+         */
+        int resume(Environment env, int base, int next) throws Exception
+        {
+            for (int i = next; i < args.length; i++)
+            {
+                int value = args[i].eval(env);
+                compiler.push(env.getProcedure(id).getParams()[i], value);
+            }
+            ProcedureDeclaration dec = env.getProcedure(id);
+            int mark = env.getBindings();
+            try
+            {
+                env.bindFrame(id, compiler.arguments, base, compiler.argumentCount);
+                compiler.argumentCount = base;
+                compiler.body(dec).exec(env);
+                return env.getVariable(id);
+            }
+            finally
+            {
+                env.unbind(mark);
+            }
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            return replaceArgument(args, child, replacement);
+        }
+    }
+
+    /**
+     * A call that has cached the procedure it calls.
+     */
+    abstract static class Cached extends CallNode
+    {
+        final ProcedureDeclaration dec;
+        final int[] params;
+        final StatementNode body;
+
+        /**
+         * Constructs a Cached call.
+         *
+         * @param c the NodeCompiler that compiles the bodies of procedures
+         * @param i the SymbolTable id of the procedure
+         * @param d the ProcedureDeclaration the procedure is
+         */
+        Cached(NodeCompiler c, int i, ProcedureDeclaration d)
+        {
+            super(c, i);
+            dec = d;
+            params = d.getParams();
+            body = c.body(d);
+        }
+
+        /**
+         * Returns the nodes of the arguments of the call.
+         *
+         * @return the argument nodes, in order
+         */
+        abstract ExpressionNode[] arguments();
+
+        /**
+         * Replaces this call with a generic one once the procedure is no
+         * longer the one cached, and finishes the call with it. The
+         * arguments before the last one evaluated were pushed while the
+         * procedure was the cached one, so they keep its parameters.
+         *
+         * @param env the environment the procedure is called from
+         * @param values the values of the arguments evaluated so far
+         * @return the return value of the procedure
+         * @throws Exception when variable is not found
+         */
+        int deoptimize(Environment env, int... values) throws Exception
+        {
+            int base = compiler.argumentCount;
+            try
+            {
+                int last = values.length - 1;
+                for (int i = 0; i < last; i++)
+                    compiler.push(params[i], values[i]);
+                if (last >= 0)
+                    compiler.push(env.getProcedure(id).getParams()[last], values[last]);
+                return replace(new Generic(compiler, id, arguments())).resume(env, base,
+                        values.length);
+            }
+            finally
+            {
+                compiler.argumentCount = base;
+            }
+        }
+    }
+
+    /**
+     * A cached call with no arguments.
+     */
+    static final class Cached0 extends Cached
+    {
+        /**
+         * Constructs a Cached0 call.
+         *
+         * @param c the NodeCompiler that compiles the bodies of procedures
+         * @param i the SymbolTable id of the procedure
+         * @param d the ProcedureDeclaration the procedure is
+         */
+        Cached0(NodeCompiler c, int i, ProcedureDeclaration d)
+        {
+            super(c, i, d);
+        }
+
+        ExpressionNode[] arguments()
+        {
+            return new ExpressionNode[0];
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            if (env.getProcedure(id) != dec)
+                return deoptimize(env);
+            int mark = env.getBindings();
+            try
+            {
+                env.bindVariable(id, 0);
+                body.exec(env);
+                return env.getVariable(id);
+            }
+            finally
+            {
+                env.unbind(mark);
+            }
+        }
+    }
+
+    /**
+     * A cached call with one argument.
+     */
+    static final class Cached1 extends Cached
+    {
+        private ExpressionNode arg0;
+
+        /**
+         * Constructs a Cached1 call.
+         *
+         * @param c the NodeCompiler that compiles the bodies of procedures
+         * @param i the SymbolTable id of the procedure
+         * @param d the ProcedureDeclaration the procedure is
+         * @param a the node of the argument
+         */
+        Cached1(NodeCompiler c, int i, ProcedureDeclaration d, ExpressionNode a)
+        {
+            super(c, i, d);
+            arg0 = adopt(a);
+        }
+
+        ExpressionNode[] arguments()
+        {
+            return new ExpressionNode[] {arg0};
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            int v0 = arg0.eval(env);
+            if (env.getProcedure(id) != dec)
+                return deoptimize(env, v0);
+            int mark = env.getBindings();
+            try
+            {
+                env.bindVariable(id, 0);
+                env.bindVariable(params[0], v0);
+                body.exec(env);
+                return env.getVariable(id);
+            }
+            finally
+            {
+                env.unbind(mark);
+            }
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child != arg0)
+                return false;
+            arg0 = (ExpressionNode) replacement;
+            return true;
+        }
+    }
+
+    /**
+     * A cached call with two arguments.
+     */
+    static final class Cached2 extends Cached
+    {
+        private ExpressionNode arg0;
+        private ExpressionNode arg1;
+
+        /**
+         * Constructs a Cached2 call.
+         *
+         * @param c the NodeCompiler that compiles the bodies of procedures
+         * @param i the SymbolTable id of the procedure
+         * @param d the ProcedureDeclaration the procedure is
+         * @param a the node of the first argument
+         * @param b the node of the second argument
+         */
+        Cached2(NodeCompiler c, int i, ProcedureDeclaration d, ExpressionNode a,
+                ExpressionNode b)
+        {
+            super(c, i, d);
+            arg0 = adopt(a);
+            arg1 = adopt(b);
+        }
+
+        ExpressionNode[] arguments()
+        {
+            return new ExpressionNode[] {arg0, arg1};
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            int v0 = arg0.eval(env);
+            if (env.getProcedure(id) != dec)
+                return deoptimize(env, v0);
+            int v1 = arg1.eval(env);
+            if (env.getProcedure(id) != dec)
+                return deoptimize(env, v0, v1);
+            int mark = env.getBindings();
+            try
+            {
+                env.bindVariable(id, 0);
+                env.bindVariable(params[0], v0);
+                env.bindVariable(params[1], v1);
+                body.exec(env);
+                return env.getVariable(id);
+            }
+            finally
+            {
+                env.unbind(mark);
+            }
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child == arg0)
+                arg0 = (ExpressionNode) replacement;
+            else if (child == arg1)
+                arg1 = (ExpressionNode) replacement;
+            else
+                return false;
+            return true;
+        }
+    }
+
+    /**
+     * A cached call with three or more arguments, which are pushed on the
+     * arguments of the NodeCompiler with the cached parameters.
+     */
+    static final class CachedN extends Cached
+    {
+        private final ExpressionNode[] args;
+
+        /**
+         * Constructs a CachedN call.
+         *
+         * @param c the NodeCompiler that compiles the bodies of procedures
+         * @param i the SymbolTable id of the procedure
+         * @param d the ProcedureDeclaration the procedure is
+         * @param a the nodes of the arguments
+         */
+        CachedN(NodeCompiler c, int i, ProcedureDeclaration d, ExpressionNode[] a)
+        {
+            super(c, i, d);
+            args = a;
+            for (ExpressionNode arg : args)
+                adopt(arg);
+        }
+
+        ExpressionNode[] arguments()
+        {
+            return args;
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            int base = compiler.argumentCount;
+            try
+            {
+                for (int i = 0; i < args.length; i++)
+                {
+                    int value = args[i].eval(env);
+                    ProcedureDeclaration found = env.getProcedure(id);
+                    if (found != dec)
+                    {
+                        compiler.push(found.getParams()[i], value);
+                        return replace(new Generic(compiler, id, args)).resume(env, base, i + 1);
+                    }
+                    compiler.push(params[i], value);
+                }
+                int mark = env.getBindings();
+                try
+                {
+                    env.bindFrame(id, compiler.arguments, base, compiler.argumentCount);
+                    compiler.argumentCount = base;
+                    body.exec(env);
+                    return env.getVariable(id);
+                }
+                finally
+                {
+                    env.unbind(mark);
+                }
+            }
+            finally
+            {
+                compiler.argumentCount = base;
+            }
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            return replaceArgument(args, child, replacement);
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package node;
+
+import ast.Condition;
+import environment.Environment;
+
+/**
+ * A ConditionNode tests a Condition. It starts out uninitialized, and the
+ * first time it is tested it replaces itself with a node for its
+ * relational operator, which compares with a constant directly when the
+ * second expression is a Number. A Condition without a relational
+ * operator becomes a generic node, which is false as in the Evaluator.
+ * Both expressions are always evaluated, in order, before they are
+ * compared.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public abstract class ConditionNode extends Node
+{
+    /**
+     * Tests the condition.
+     *
+     * @param env the environment the condition is evaluated in
+     * @return true if the condition holds, false otherwise
+     * @throws Exception when variable is not found
+     */
+    public abstract boolean test(Environment env) throws Exception;
+
+    /**
+     * Builds the node of a Condition, to be specialized when first tested.
+     *
+     * @param c the Condition
+     * @param a the node of its first expression
+     * @param b the node of its second expression
+     * @return the uninitialized node
+     */
+    static ConditionNode create(Condition c, ExpressionNode a, ExpressionNode b)
+    {
+        return new Uninitialized(c, a, b);
+    }
+
+    /**
+     * A condition on two expression nodes, either of which may replace
+     * itself.
+     */
+    abstract static class Compare extends ConditionNode
+    {
+        ExpressionNode left;
+        ExpressionNode right;
+
+        /**
+         * Constructs a Compare node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        Compare(ExpressionNode a, ExpressionNode b)
+        {
+            left = adopt(a);
+            right = adopt(b);
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child == left)
+                left = (ExpressionNode) replacement;
+            else if (child == right)
+                right = (ExpressionNode) replacement;
+            else
+                return false;
+            return true;
+        }
+    }
+
+    /**
+     * A condition that has not been tested yet.
+     */
+    static final class Uninitialized extends Compare
+    {
+        private final Condition condition;
+
+        /**
+         * Constructs an Uninitialized node.
+         *
+         * @param c the Condition
+         * @param a the node of its first expression
+         * @param b the node of its second expression
+         */
+        Uninitialized(Condition c, ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+            condition = c;
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return replace(specialize()).test(env);
+        }
+
+        /**
+         * Returns the node for the operator of the condition and for its
+         * second expression.
+         *
+         * @return the specialized node
+         */
+        private ConditionNode specialize()
+        {
+            if (right instanceof ExpressionNode.Constant)
+            {
+                int k = ((ExpressionNode.Constant) right).getValue();
+                switch (condition.getOpcode())
+                {
+                    case EQUAL:
+                        return new EqualConstant(left, k);
+                    case NOT_EQUAL:
+                        return new NotEqualConstant(left, k);
+                    case LESS:
+                        return new LessConstant(left, k);
+                    case GREATER:
+                        return new GreaterConstant(left, k);
+                    case LESS_EQUAL:
+                        return new LessEqualConstant(left, k);
+                    case GREATER_EQUAL:
+                        return new GreaterEqualConstant(left, k);
+                    default:
+                        break;
+                }
+            }
+            switch (condition.getOpcode())
+            {
+                case EQUAL:
+                    return new Equal(left, right);
+                case NOT_EQUAL:
+                    return new NotEqual(left, right);
+                case LESS:
+                    return new Less(left, right);
+                case GREATER:
+                    return new Greater(left, right);
+                case LESS_EQUAL:
+                    return new LessEqual(left, right);
+                case GREATER_EQUAL:
+                    return new GreaterEqual(left, right);
+                default:
+                    return new Generic(left, right);
+            }
+        }
+    }
+
+    /**
+     * A condition without a relational operator.
+     */
+    static final class Generic extends Compare
+    {
+        /**
+         * Constructs a Generic node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        Generic(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            left.eval(env);
+            right.eval(env);
+            return false;
+        }
+    }
+
+    /**
+     * A condition that holds if its expressions are equal.
+     */
+    static final class Equal extends Compare
+    {
+        /**
+         * Constructs an Equal node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        Equal(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) == right.eval(env);
+        }
+    }
+
+    /**
+     * A condition that holds if its expressions are not equal.
+     */
+    static final class NotEqual extends Compare
+    {
+        /**
+         * Constructs a NotEqual node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        NotEqual(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) != right.eval(env);
+        }
+    }
+
+    /**
+     * A condition that holds if its first expression is less.
+     */
+    static final class Less extends Compare
+    {
+        /**
+         * Constructs a Less node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        Less(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) < right.eval(env);
+        }
+    }
+
+    /**
+     * A condition that holds if its first expression is greater.
+     */
+    static final class Greater extends Compare
+    {
+        /**
+         * Constructs a Greater node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        Greater(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) > right.eval(env);
+        }
+    }
+
+    /**
+     * A condition that holds if its first expression is at most the second.
+     */
+    static final class LessEqual extends Compare
+    {
+        /**
+         * Constructs a LessEqual node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        LessEqual(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) <= right.eval(env);
+        }
+    }
+
+    /**
+     * A condition that holds if its first expression is at least the second.
+     */
+    static final class GreaterEqual extends Compare
+    {
+        /**
+         * Constructs a GreaterEqual node.
+         *
+         * @param a the node of the first expression
+         * @param b the node of the second expression
+         */
+        GreaterEqual(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) >= right.eval(env);
+        }
+    }
+
+    /**
+     * A condition that compares an expression node with a constant.
+     */
+    abstract static class CompareConstant extends ConditionNode
+    {
+        ExpressionNode left;
+        final int constant;
+
+        /**
+         * Constructs a CompareConstant node.
+         *
+         * @param a the node of the first expression
+         * @param k the value of the second expression
+         */
+        CompareConstant(ExpressionNode a, int k)
+        {
+            left = adopt(a);
+            constant = k;
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child != left)
+                return false;
+            left = (ExpressionNode) replacement;
+            return true;
+        }
+    }
+
+    /**
+     * A condition that holds if its expression equals a constant.
+     */
+    static final class EqualConstant extends CompareConstant
+    {
+        /**
+         * Constructs an EqualConstant node.
+         *
+         * @param a the node of the first expression
+         * @param k the value of the second expression
+         */
+        EqualConstant(ExpressionNode a, int k)
+        {
+            super(a, k);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) == constant;
+        }
+    }
+
+    /**
+     * A condition that holds if its expression is not a constant.
+     */
+    static final class NotEqualConstant extends CompareConstant
+    {
+        /**
+         * Constructs a NotEqualConstant node.
+         *
+         * @param a the node of the first expression
+         * @param k the value of the second expression
+         */
+        NotEqualConstant(ExpressionNode a, int k)
+        {
+            super(a, k);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) != constant;
+        }
+    }
+
+    /**
+     * A condition that holds if its expression is less than a constant.
+     */
+    static final class LessConstant extends CompareConstant
+    {
+        /**
+         * Constructs a LessConstant node.
+         *
+         * @param a the node of the first expression
+         * @param k the value of the second expression
+         */
+        LessConstant(ExpressionNode a, int k)
+        {
+            super(a, k);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) < constant;
+        }
+    }
+
+    /**
+     * A condition that holds if its expression is greater than a constant.
+     */
+    static final class GreaterConstant extends CompareConstant
+    {
+        /**
+         * Constructs a GreaterConstant node.
+         *
+         * @param a the node of the first expression
+         * @param k the value of the second expression
+         */
+        GreaterConstant(ExpressionNode a, int k)
+        {
+            super(a, k);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) > constant;
+        }
+    }
+
+    /**
+     * A condition that holds if its expression is at most a constant.
+     */
+    static final class LessEqualConstant extends CompareConstant
+    {
+        /**
+         * Constructs a LessEqualConstant node.
+         *
+         * @param a the node of the first expression
+         * @param k the value of the second expression
+         */
+        LessEqualConstant(ExpressionNode a, int k)
+        {
+            super(a, k);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) <= constant;
+        }
+    }
+
+    /**
+     * A condition that holds if its expression is at least a constant.
+     */
+    static final class GreaterEqualConstant extends CompareConstant
+    {
+        /**
+         * Constructs a GreaterEqualConstant node.
+         *
+         * @param a the node of the first expression
+         * @param k the value of the second expression
+         */
+        GreaterEqualConstant(ExpressionNode a, int k)
+        {
+            super(a, k);
+        }
+
+        public boolean test(Environment env) throws Exception
+        {
+            return left.eval(env) >= constant;
+        }
+    }
+}
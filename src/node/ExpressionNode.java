@@ -0,0 +1,237 @@
+package node;
+
+import environment.Environment;
+
+/**
+ * An ExpressionNode computes the value of an Expression. The kinds of
+ * expression that never change how they are evaluated, numbers, variables
+ * and the operators of a BinOp, are nested here, each doing only its own
+ * work; a procedure call is a CallNode.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public abstract class ExpressionNode extends Node
+{
+    /**
+     * Computes the value of the expression.
+     *
+     * @param env the environment the expression is evaluated in
+     * @return the int value of the expression
+     * @throws Exception when variable is not found
+     */
+    public abstract int eval(Environment env) throws Exception;
+
+    /**
+     * A Number, or 0 for an expression the Evaluator gives no value.
+     */
+    static final class Constant extends ExpressionNode
+    {
+        private final int value;
+
+        /**
+         * Constructs a Constant.
+         *
+         * @param v the value of the constant
+         */
+        Constant(int v)
+        {
+            value = v;
+        }
+
+        /**
+         * Returns the value of the constant.
+         *
+         * @return the instance field value
+         */
+        int getValue()
+        {
+            return value;
+        }
+
+        public int eval(Environment env)
+        {
+            return value;
+        }
+    }
+
+    /**
+     * A Variable, read from the environment by its SymbolTable id.
+     */
+    static final class Read extends ExpressionNode
+    {
+        private final int id;
+
+        /**
+         * Constructs a Read.
+         *
+         * @param i the SymbolTable id of the variable
+         */
+        Read(int i)
+        {
+            id = i;
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            return env.getVariable(id);
+        }
+    }
+
+    /**
+     * A BinOp, whose operator is chosen by its subclass. Its operands never
+     * hold a procedure call, which counts as 0 there, so they never
+     * replace themselves.
+     */
+    abstract static class Binary extends ExpressionNode
+    {
+        final ExpressionNode left;
+        final ExpressionNode right;
+
+        /**
+         * Constructs a Binary node.
+         *
+         * @param a the first operand
+         * @param b the second operand
+         */
+        Binary(ExpressionNode a, ExpressionNode b)
+        {
+            left = adopt(a);
+            right = adopt(b);
+        }
+    }
+
+    /**
+     * A BinOp that adds.
+     */
+    static final class Add extends Binary
+    {
+        /**
+         * Constructs an Add node.
+         *
+         * @param a the first operand
+         * @param b the second operand
+         */
+        Add(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            return left.eval(env) + right.eval(env);
+        }
+    }
+
+    /**
+     * A BinOp that subtracts.
+     */
+    static final class Subtract extends Binary
+    {
+        /**
+         * Constructs a Subtract node.
+         *
+         * @param a the first operand
+         * @param b the second operand
+         */
+        Subtract(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            return left.eval(env) - right.eval(env);
+        }
+    }
+
+    /**
+     * A BinOp that multiplies.
+     */
+    static final class Multiply extends Binary
+    {
+        /**
+         * Constructs a Multiply node.
+         *
+         * @param a the first operand
+         * @param b the second operand
+         */
+        Multiply(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            return left.eval(env) * right.eval(env);
+        }
+    }
+
+    /**
+     * A BinOp that divides.
+     */
+    static final class Divide extends Binary
+    {
+        /**
+         * Constructs a Divide node.
+         *
+         * @param a the first operand
+         * @param b the second operand
+         */
+        Divide(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            return left.eval(env) / right.eval(env);
+        }
+    }
+
+    /**
+     * A BinOp that takes the remainder.
+     */
+    static final class Mod extends Binary
+    {
+        /**
+         * Constructs a Mod node.
+         *
+         * @param a the first operand
+         * @param b the second operand
+         */
+        Mod(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            return left.eval(env) % right.eval(env);
+        }
+    }
+
+    /**
+     * A BinOp without an operator, which evaluates its operands and is 0.
+     */
+    static final class Zero extends Binary
+    {
+        /**
+         * Constructs a Zero node.
+         *
+         * @param a the first operand
+         * @param b the second operand
+         */
+        Zero(ExpressionNode a, ExpressionNode b)
+        {
+            super(a, b);
+        }
+
+        public int eval(Environment env) throws Exception
+        {
+            left.eval(env);
+            right.eval(env);
+            return 0;
+        }
+    }
+}
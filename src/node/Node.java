@@ -0,0 +1,67 @@
+package node;
+
+/**
+ * A Node is a node of a tree that a NodeCompiler builds from a Program
+ * to be interpreted. A node may replace itself in its parent with a node
+ * that is specialized to what it has seen at run time, such as the
+ * procedure a call resolves to, and that node may later replace itself
+ * with a generic one if what it assumed stops being true. So the tree
+ * rewrites itself as it runs, and each node does only the work its
+ * specialization needs.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public abstract class Node
+{
+    private Node parent;
+
+    /**
+     * Makes this node the parent of a child, so the child can replace
+     * itself.
+     *
+     * @param child the child node
+     * @param <T> the type of the child
+     * @return the child
+     */
+    protected final <T extends Node> T adopt(T child)
+    {
+        ((Node) child).parent = this;
+        return child;
+    }
+
+    /**
+     * Replaces this node in its parent with another node, which takes over
+     * its parent. A node can still be running after it was replaced, in a
+     * call further out in a recursion; if it replaces itself again then,
+     * its parent is left alone, and the replacement is only for the caller
+     * to finish with.
+     *
+     * @param replacement the node that takes the place of this one
+     * @param <T> the type of the replacement
+     * @return the replacement
+     * @throws IllegalStateException if this node has no parent
+     */
+    protected final <T extends Node> T replace(T replacement)
+    {
+        if (parent == null)
+            throw new IllegalStateException("Node has no parent");
+        if (parent.replaceChild(this, replacement))
+            ((Node) replacement).parent = parent;
+        return replacement;
+    }
+
+    /**
+     * Replaces a child of this node with another node. A node whose
+     * children never replace themselves keeps this default.
+     *
+     * @param child the child being replaced
+     * @param replacement the node that takes its place
+     * @return true if child was a child of this node and was replaced,
+     *         false otherwise
+     */
+    protected boolean replaceChild(Node child, Node replacement)
+    {
+        return false;
+    }
+}
@@ -0,0 +1,242 @@
+package node;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.If;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A NodeCompiler builds a tree of Nodes from a Program, to be interpreted
+ * by running it. Procedure calls and Conditions are built uninitialized,
+ * and specialize themselves the first time they run, as CallNode and
+ * ConditionNode describe; every other node is built as the kind it will
+ * stay. The body of each procedure is built once, the first time a call
+ * specializes to it or a generic call runs it, and shared by every call.
+ *
+ * The tree does exactly what the Evaluator does, down to its quirks, as
+ * the BytecodeCompiler does, with its variables in the Environment. The
+ * arguments of generic calls wait on an array of the compiler, so a tree
+ * should only run on one thread at a time, as with an Evaluator.
+ *
+ * Usage: new NodeCompiler().compile(program).exec(env);
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class NodeCompiler
+{
+    int[] arguments = new int[16];
+    int argumentCount;
+    private final IdentityHashMap<ProcedureDeclaration, StatementNode> bodies =
+            new IdentityHashMap<ProcedureDeclaration, StatementNode>();
+
+    /**
+     * Builds the tree of a Program, which declares every procedure of the
+     * program, in order, and then runs the main statement, as
+     * Evaluator.exec(Program) does.
+     *
+     * @param program the Program to build
+     * @return the root of the tree
+     */
+    public StatementNode compile(Program program)
+    {
+        List<ProcedureDeclaration> procedures = program.getProcedures();
+        return new StatementNode.ProgramNode(procedures.toArray(new ProcedureDeclaration[0]),
+                compile(program.getStatement()));
+    }
+
+    /**
+     * Builds the tree of a statement that the Evaluator would run with
+     * exec(Statement), which runs every kind of statement.
+     *
+     * @param statement the statement to build
+     * @return the root of the tree
+     */
+    public StatementNode compile(Statement statement)
+    {
+        if (statement instanceof ProcedureDeclaration)
+            return new StatementNode.Declare((ProcedureDeclaration) statement);
+        return compileBlockStatement(statement);
+    }
+
+    /**
+     * Returns the tree of the body of a procedure, building it the first
+     * time.
+     *
+     * @param dec the ProcedureDeclaration
+     * @return the root of the tree of its statement
+     */
+    StatementNode body(ProcedureDeclaration dec)
+    {
+        StatementNode body = bodies.get(dec);
+        if (body == null)
+        {
+            body = compile(dec.getDeclaration());
+            bodies.put(dec, body);
+        }
+        return body;
+    }
+
+    /**
+     * Pushes the value of an argument of a generic call, with the
+     * parameter it is for.
+     *
+     * @param param the SymbolTable id of the parameter
+     * @param value the value of the argument
+     */
+    void push(int param, int value)
+    {
+        if (argumentCount + 2 > arguments.length)
+            arguments = Arrays.copyOf(arguments, 2 * arguments.length);
+        arguments[argumentCount] = param;
+        arguments[argumentCount + 1] = value;
+        argumentCount += 2;
+    }
+
+    /**
+     * Builds a statement of a Block, which the Evaluator skips if it is a
+     * ProcedureDeclaration.
+     *
+     * @param statement the statement to build
+     * @return the node of the statement
+     */
+    private StatementNode compileBlockStatement(Statement statement)
+    {
+        if (statement instanceof Writeln)
+        {
+            Expression expr = ((Writeln) statement).getExpression();
+            if (!isValue(expr))
+                return new StatementNode.Nothing();
+            return new StatementNode.Write(compileExpression(expr));
+        }
+        if (statement instanceof Assignment)
+        {
+            Assignment assignment = (Assignment) statement;
+            if (!isValue(assignment.getExpression()))
+                return new StatementNode.Nothing();
+            return new StatementNode.Assign(assignment.getVariableId(),
+                    compileExpression(assignment.getExpression()));
+        }
+        if (statement instanceof Block)
+        {
+            ArrayList<StatementNode> nodes = new ArrayList<StatementNode>();
+            for (Statement s : ((Block) statement).getStatements())
+                if (!(s instanceof ProcedureDeclaration))
+                    nodes.add(compileBlockStatement(s));
+            return new StatementNode.Sequence(nodes.toArray(new StatementNode[0]));
+        }
+        if (statement instanceof If)
+        {
+            If ifStatement = (If) statement;
+            return new StatementNode.IfNode(compileCondition(ifStatement.getCondition()),
+                    compile(ifStatement.getStatement()));
+        }
+        if (statement instanceof While)
+        {
+            While whileStatement = (While) statement;
+            return new StatementNode.WhileNode(compileCondition(whileStatement.getCondition()),
+                    compile(whileStatement.getStatement()));
+        }
+        return new StatementNode.Nothing();
+    }
+
+    /**
+     * Builds the uninitialized node of a Condition.
+     *
+     * @param c the Condition to build
+     * @return the node of the Condition
+     */
+    private ConditionNode compileCondition(Condition c)
+    {
+        return ConditionNode.create(c, compileExpression(c.getExpression1()),
+                compileExpression(c.getExpression2()));
+    }
+
+    /**
+     * Builds an expression as the Evaluator evaluates it with
+     * eval(Expression).
+     *
+     * @param expr the expression to build
+     * @return the node of the expression
+     */
+    private ExpressionNode compileExpression(Expression expr)
+    {
+        if (expr instanceof Number)
+            return new ExpressionNode.Constant(((Number) expr).getValue());
+        if (expr instanceof Variable)
+            return new ExpressionNode.Read(((Variable) expr).getId());
+        if (expr instanceof BinOp)
+        {
+            BinOp binop = (BinOp) expr;
+            ExpressionNode a = compileOperand(binop.getExpression1());
+            ExpressionNode b = compileOperand(binop.getExpression2());
+            switch (binop.getOpcode())
+            {
+                case ADD:
+                    return new ExpressionNode.Add(a, b);
+                case SUBTRACT:
+                    return new ExpressionNode.Subtract(a, b);
+                case MULTIPLY:
+                    return new ExpressionNode.Multiply(a, b);
+                case DIVIDE:
+                    return new ExpressionNode.Divide(a, b);
+                case MOD:
+                    return new ExpressionNode.Mod(a, b);
+                default:
+                    return new ExpressionNode.Zero(a, b);
+            }
+        }
+        if (expr instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) expr;
+            List<Expression> args = call.getArgs();
+            ExpressionNode[] nodes = new ExpressionNode[args.size()];
+            for (int i = 0; i < nodes.length; i++)
+                nodes[i] = compileExpression(args.get(i));
+            return CallNode.create(this, call.getId(), nodes);
+        }
+        return new ExpressionNode.Constant(0);
+    }
+
+    /**
+     * Builds an operand of a BinOp, where the Evaluator counts a procedure
+     * call as 0 without calling it.
+     *
+     * @param expr the operand to build
+     * @return the node of the operand
+     */
+    private ExpressionNode compileOperand(Expression expr)
+    {
+        if (expr instanceof ProcedureCall)
+            return new ExpressionNode.Constant(0);
+        return compileExpression(expr);
+    }
+
+    /**
+     * Returns whether the Evaluator gives an expression a value when it is
+     * written or assigned, which it does for every kind the Parser makes.
+     *
+     * @param expr the expression
+     * @return true if expr is a Number, Variable, BinOp or ProcedureCall
+     */
+    private static boolean isValue(Expression expr)
+    {
+        return expr instanceof Number || expr instanceof Variable ||
+                expr instanceof BinOp || expr instanceof ProcedureCall;
+    }
+}
@@ -0,0 +1,249 @@
+package node;
+
+import ast.ProcedureDeclaration;
+import environment.Environment;
+
+/**
+ * A StatementNode runs a Statement, or a whole Program. Statements never
+ * replace themselves, but the conditions and procedure calls they hold
+ * do, so a statement that holds one of those can replace it. The kinds of
+ * statement are nested here.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public abstract class StatementNode extends Node
+{
+    /**
+     * Runs the statement.
+     *
+     * @param env the environment the statement runs in
+     * @throws Exception when variable is not found
+     */
+    public abstract void exec(Environment env) throws Exception;
+
+    /**
+     * A statement that does nothing, such as a ProcedureDeclaration in a
+     * Block.
+     */
+    static final class Nothing extends StatementNode
+    {
+        public void exec(Environment env)
+        {
+        }
+    }
+
+    /**
+     * A Writeln, which prints the value of its expression.
+     */
+    static final class Write extends StatementNode
+    {
+        private ExpressionNode value;
+
+        /**
+         * Constructs a Write node.
+         *
+         * @param v the node of the expression
+         */
+        Write(ExpressionNode v)
+        {
+            value = adopt(v);
+        }
+
+        public void exec(Environment env) throws Exception
+        {
+            System.out.println(value.eval(env));
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child != value)
+                return false;
+            value = (ExpressionNode) replacement;
+            return true;
+        }
+    }
+
+    /**
+     * An Assignment, which sets a variable to the value of its expression.
+     */
+    static final class Assign extends StatementNode
+    {
+        private final int id;
+        private ExpressionNode value;
+
+        /**
+         * Constructs an Assign node.
+         *
+         * @param i the SymbolTable id of the variable
+         * @param v the node of the expression
+         */
+        Assign(int i, ExpressionNode v)
+        {
+            id = i;
+            value = adopt(v);
+        }
+
+        public void exec(Environment env) throws Exception
+        {
+            env.setVariable(id, value.eval(env));
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child != value)
+                return false;
+            value = (ExpressionNode) replacement;
+            return true;
+        }
+    }
+
+    /**
+     * A Block, which runs its statements in order.
+     */
+    static final class Sequence extends StatementNode
+    {
+        private final StatementNode[] statements;
+
+        /**
+         * Constructs a Sequence node.
+         *
+         * @param s the nodes of the statements
+         */
+        Sequence(StatementNode[] s)
+        {
+            statements = s;
+            for (StatementNode statement : statements)
+                adopt(statement);
+        }
+
+        public void exec(Environment env) throws Exception
+        {
+            for (StatementNode statement : statements)
+                statement.exec(env);
+        }
+    }
+
+    /**
+     * An If, which runs its statement if its condition holds.
+     */
+    static final class IfNode extends StatementNode
+    {
+        private ConditionNode condition;
+        private final StatementNode body;
+
+        /**
+         * Constructs an IfNode.
+         *
+         * @param c the node of the condition
+         * @param b the node of the statement
+         */
+        IfNode(ConditionNode c, StatementNode b)
+        {
+            condition = adopt(c);
+            body = adopt(b);
+        }
+
+        public void exec(Environment env) throws Exception
+        {
+            if (condition.test(env))
+                body.exec(env);
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child != condition)
+                return false;
+            condition = (ConditionNode) replacement;
+            return true;
+        }
+    }
+
+    /**
+     * A While, which runs its statement as long as its condition holds.
+     */
+    static final class WhileNode extends StatementNode
+    {
+        private ConditionNode condition;
+        private final StatementNode body;
+
+        /**
+         * Constructs a WhileNode.
+         *
+         * @param c the node of the condition
+         * @param b the node of the statement
+         */
+        WhileNode(ConditionNode c, StatementNode b)
+        {
+            condition = adopt(c);
+            body = adopt(b);
+        }
+
+        public void exec(Environment env) throws Exception
+        {
+            while (condition.test(env))
+                body.exec(env);
+        }
+
+        protected boolean replaceChild(Node child, Node replacement)
+        {
+            if (child != condition)
+                return false;
+            condition = (ConditionNode) replacement;
+            return true;
+        }
+    }
+
+    /**
+     * A ProcedureDeclaration that is run as a statement, which declares
+     * the procedure.
+     */
+    static final class Declare extends StatementNode
+    {
+        private final ProcedureDeclaration dec;
+
+        /**
+         * Constructs a Declare node.
+         *
+         * @param d the ProcedureDeclaration
+         */
+        Declare(ProcedureDeclaration d)
+        {
+            dec = d;
+        }
+
+        public void exec(Environment env)
+        {
+            env.setProcedure(dec.getId(), dec);
+        }
+    }
+
+    /**
+     * A Program, which declares its procedures, in order, and then runs
+     * its main statement.
+     */
+    static final class ProgramNode extends StatementNode
+    {
+        private final ProcedureDeclaration[] decs;
+        private final StatementNode main;
+
+        /**
+         * Constructs a ProgramNode.
+         *
+         * @param d the procedures of the program
+         * @param m the node of the main statement
+         */
+        ProgramNode(ProcedureDeclaration[] d, StatementNode m)
+        {
+            decs = d;
+            main = adopt(m);
+        }
+
+        public void exec(Environment env) throws Exception
+        {
+            for (ProcedureDeclaration dec : decs)
+                env.setProcedure(dec.getId(), dec);
+            main.exec(env);
+        }
+    }
+}
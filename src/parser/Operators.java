@@ -0,0 +1,102 @@
+package parser;
+
+import scanner.TokenKind;
+
+/**
+ * Operators is the table of binary operators that the Parser's expression
+ * loop is driven by. Each operator has a precedence, where operators that
+ * bind more tightly have higher precedence, an associativity, and the
+ * opcode of the BinOp that it builds. Tokens that are not in the table
+ * end an expression.
+ *
+ * Adding an operator to the language only takes a TokenKind for it and
+ * one more line in the static initializer.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+final class Operators
+{
+    static final int LEFT = 0;
+    static final int RIGHT = 1;
+
+    // negation applies to a single factor, so it binds more tightly than
+    // any binary operator
+    static final int NEGATION = Integer.MAX_VALUE;
+
+    private static final int KINDS = 64;
+    private static final int[] PRECEDENCE = new int[KINDS];
+    private static final int[] ASSOCIATIVITY = new int[KINDS];
+    private static final String[] OPCODE = new String[KINDS];
+
+    static
+    {
+        add(TokenKind.PLUS, 1, LEFT, "+");
+        add(TokenKind.MINUS, 1, LEFT, "-");
+        add(TokenKind.TIMES, 2, LEFT, "*");
+        add(TokenKind.DIVIDE, 2, LEFT, "/");
+        add(TokenKind.MOD, 2, LEFT, "%");
+    }
+
+    /**
+     * Operators only holds static methods and is never instantiated.
+     */
+    private Operators()
+    {
+    }
+
+    /**
+     * Adds a binary operator to the table.
+     *
+     * @param kind the TokenKind of the operator
+     * @param precedence the precedence of the operator, at least 1
+     * @param associativity LEFT or RIGHT
+     * @param opcode the operator of the BinOp that the operator builds
+     */
+    private static void add(int kind, int precedence, int associativity, String opcode)
+    {
+        PRECEDENCE[kind] = precedence;
+        ASSOCIATIVITY[kind] = associativity;
+        OPCODE[kind] = opcode;
+    }
+
+    /**
+     * Returns the precedence of a token as a binary operator.
+     *
+     * @param kind a TokenKind
+     * @return the precedence of the operator, or 0 if kind is not one
+     */
+    static int precedence(int kind)
+    {
+        return PRECEDENCE[kind];
+    }
+
+    /**
+     * Returns whether an operator that is already waiting for its right
+     * operand must be applied before the token that follows the operand.
+     * It must be if it binds more tightly, or as tightly and the operators
+     * are left associative. Before a token that is not an operator, every
+     * operator is applied.
+     *
+     * @param waiting the precedence of the operator that is waiting, or 0
+     *                for a parenthesis or call that is not an operator
+     * @param following the TokenKind that follows
+     * @return true if the waiting operator should be applied first
+     */
+    static boolean appliesBefore(int waiting, int following)
+    {
+        int next = PRECEDENCE[following];
+        return waiting > next || waiting == next && next > 0 && ASSOCIATIVITY[following] == LEFT;
+    }
+
+    /**
+     * Returns the opcode of the BinOp that an operator builds.
+     *
+     * @param kind the TokenKind of the operator
+     * @return the operator of the BinOp
+     */
+    static String opcode(int kind)
+    {
+        return OPCODE[kind];
+    }
+}
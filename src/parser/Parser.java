@@ -4,78 +4,226 @@ import ast.*;
 import ast.Number;
 import environment.Environment;
 import scanner.ScanErrorException;
-import scanner.Scanner;
+import scanner.TokenBuffer;
+import scanner.TokenKind;
+import scanner.TokenSource;
 
 import java.awt.*;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * A parser class that parses the input from a stream of
  * tokens from a scanner. It follows the grammar rules provided.
  * The file ends with a period.
  *
+ * The tokens can come straight from a Scanner or from any other
+ * TokenSource, such as a TokenPipeline that scans on a separate thread
+ * or a TokenBuffer that holds a whole file lexed up front. A program in a
+ * TokenBuffer can also be parsed with parseParallel, which parses its
+ * procedure declarations concurrently. With setHashConsing, identical
+ * subexpressions are parsed into one shared node.
+ * The parser works on the TokenKind of each token and dispatches with
+ * switch statements, so it never compares token text; only identifiers
+ * and numbers are read from the TokenSource. Identifiers are read as
+ * SymbolTable ids, which is how every later phase refers to names.
+ *
  * @author Daniel Wu
  *
  * @version 10/19/19
  */
 public class Parser
 {
-    Scanner scanner;
-    String currentToken;
-    HashMap<String, Expression> variables;
-    ArrayList<String> varDecs;
+    // markers on the stack of parseExpression; TokenKinds are never negative
+    private static final int GROUP = -1;
+    private static final int NEGATE = -2;
+    private static final int CALL = -3;
+
+    // the fewest tokens of procedure declarations that parseParallel hands
+    // to one task, so that a task is worth scheduling
+    private static final int BATCH_TOKENS = 4096;
+
+    TokenSource scanner;
+    int currentKind;
+    int[] varDecs;
+
+    // the stack of parseExpression, kept between calls so that parsing an
+    // expression allocates nothing but the AST
+    private int[] waitingKinds;
+    private int[] waitingPrecedences;
+    private Expression[] waitingOperands;
+    private int[] waitingCalls;
+    private ArrayList<ArrayList<Expression>> waitingArgs;
+
+    // where shared expressions come from, or null if hash-consing is off
+    private ExpressionTable expressions;
 
     /**
-     * Constructs a Parser object from a Scanner and assigns
-     * instance variables scanner and currentToken.
+     * Constructs a Parser object from a TokenSource and assigns
+     * instance variables scanner and currentKind.
      *
-     * @param s the Scanner that feeds tokens to the Parser
+     * @param s the Scanner or other TokenSource that feeds tokens to the Parser
      * @throws ScanErrorException when there is an error in the Scanner
      */
-    public Parser(Scanner s) throws ScanErrorException
+    public Parser(TokenSource s) throws ScanErrorException
     {
         scanner = s;
-        currentToken = scanner.nextToken();
-        variables = new HashMap<String, Expression>();
-        varDecs = new ArrayList<String>();
+        currentKind = scanner.nextTokenKind();
+        varDecs = new int[0];
+        waitingKinds = new int[16];
+        waitingPrecedences = new int[16];
+        waitingOperands = new Expression[16];
+        waitingCalls = new int[16];
+        waitingArgs = new ArrayList<ArrayList<Expression>>();
     }
 
     /**
-     * Eats a token and sets the currentToken the next token provided by
-     * the scanner if the eaten token matches the previous currentToken.
+     * Eats a token and sets the currentKind to the kind of the next token
+     * provided by the scanner if the eaten token has the expected kind.
      *
-     * @precondition currentToken is valid and initialized
-     * @param expected the expected currentToken
-     * @throws ScanErrorException if the eaten token does not match the currentToken
+     * @precondition currentKind is valid and initialized
+     * @param expected the expected TokenKind
+     * @throws ScanErrorException if the scanner cannot scan the next token
+     * @throws IllegalArgumentException if the current token is not of the expected kind
      */
-    private void eat(String expected) throws ScanErrorException
+    private void eat(int expected) throws ScanErrorException
     {
-        if (currentToken.equals(expected))
+        if (currentKind == expected)
         {
-            currentToken = scanner.nextToken();
+            currentKind = scanner.nextTokenKind();
         }
         else
         {
-            throw new IllegalArgumentException(currentToken +
-                    " was expected and " + expected + " was found.");
+            String position = scanner.getTokenPosition();
+            throw new IllegalArgumentException(TokenKind.describe(expected) +
+                    " was expected and " + scanner.getTokenText() + " was found" +
+                    (position == null ? "." : " at " + position + "."));
+        }
+    }
+
+    /**
+     * Parses an identifier and returns its SymbolTable id. Eats the identifier.
+     *
+     * @precondition currentKind is TokenKind.IDENTIFIER
+     * @postcondition identifier token has been eaten
+     * @return the SymbolTable id of the identifier
+     * @throws ScanErrorException if eaten token does not match the currentKind
+     */
+    private int parseIdentifier() throws ScanErrorException
+    {
+        int id = currentKind == TokenKind.IDENTIFIER ? scanner.getTokenSymbol() : -1;
+        eat(TokenKind.IDENTIFIER);
+        return id;
+    }
+
+    /**
+     * Parses any number of VAR declarations and returns the ids of the
+     * variables they declare, in order.
+     *
+     * @return the SymbolTable ids of the declared variables
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
+     */
+    private int[] parseVarDeclarations() throws ScanErrorException
+    {
+        ArrayList<Integer> vars = new ArrayList<Integer>();
+        while (currentKind == TokenKind.VAR)
+        {
+            eat(TokenKind.VAR);
+            vars.add(parseIdentifier());
+            while (currentKind != TokenKind.SEMICOLON)
+            {
+                eat(TokenKind.COMMA);
+                vars.add(parseIdentifier());
+            }
+            eat(TokenKind.SEMICOLON);
         }
+        return toArray(vars);
+    }
+
+    /**
+     * Copies a list of ids into an array.
+     *
+     * @param ids the list of ids
+     * @return the ids in the same order
+     */
+    private static int[] toArray(ArrayList<Integer> ids)
+    {
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = ids.get(i);
+        return array;
     }
 
     /**
      * Parses an integer and returns its value. Eats the integer.
      *
-     * @precondition currentToken is an integer
+     * @precondition currentKind is TokenKind.NUMBER
      * @postcondition number token has been eaten
-     * @return the value of the parsed integer String
-     * @throws ScanErrorException if eaten token does not match the currentToken
+     * @return the value of the parsed integer
+     * @throws ScanErrorException if eaten token does not match the currentKind
      */
     private Number parseNumber() throws ScanErrorException
     {
-        int num = Integer.parseInt(currentToken);
-        eat(currentToken);
-        return new Number(num);
+        int num = scanner.getTokenValue();
+        eat(TokenKind.NUMBER);
+        return number(num);
+    }
+
+    /**
+     * Turns hash-consing of expressions on or off. While it is on, every
+     * Number, Variable and BinOp that the Parser builds comes from the
+     * shared ExpressionTable, so identical subexpressions are the same
+     * object. It is off by default.
+     *
+     * @param on true to share identical expressions, false to build every
+     *           node afresh
+     */
+    public void setHashConsing(boolean on)
+    {
+        expressions = on ? ExpressionTable.shared() : null;
+    }
+
+    /**
+     * Returns a Number with a value, shared if hash-consing is on.
+     *
+     * @param value the value of the number
+     * @return a Number with that value
+     */
+    private Number number(int value)
+    {
+        return expressions == null ? new Number(value) : expressions.number(value);
+    }
+
+    /**
+     * Returns a Variable with an id, shared if hash-consing is on.
+     *
+     * @param id the SymbolTable id of the variable
+     * @return a Variable with that id
+     */
+    private Variable variable(int id)
+    {
+        return expressions == null ? new Variable(id) : expressions.variable(id);
+    }
+
+    /**
+     * Returns a BinOp of an operator and two operands, shared if
+     * hash-consing is on.
+     *
+     * @param operator the operator of the operation
+     * @param e1 the first operand
+     * @param e2 the second operand
+     * @return a BinOp of operator on e1 and e2
+     */
+    private BinOp binOp(String operator, Expression e1, Expression e2)
+    {
+        return expressions == null ? new BinOp(operator, e1, e2) :
+                expressions.binOp(operator, e1, e2);
     }
 
     /**
@@ -84,248 +232,565 @@ public class Parser
      * a BEGIN END block). Returns a Program object.
      *
      * @return a Program object storing the ProcedureDeclarations and statement
-     * @throws ScanErrorException if eaten token does not match currentToken
+     * @throws ScanErrorException if eaten token does not match currentKind
      */
     public Program parseProgram() throws ScanErrorException
     {
-        ArrayList<String> vars = new ArrayList<String>();
-        while (currentToken.equals("VAR"))
-        {
-            eat("VAR");
-            String name = currentToken;
-            eat(currentToken);
-            while (!currentToken.equals(";"))
-            {
-                vars.add(name);
-                eat(",");
-                name = currentToken;
-                eat(currentToken);
-            }
-            vars.add(name);
-            eat(";");
-        }
+        int[] vars = parseVarDeclarations();
         varDecs = vars;
 
         //Parses all the procedure declarations of the program
         ArrayList<ProcedureDeclaration> decs = new ArrayList<ProcedureDeclaration>();
-        while (currentToken.equals("PROCEDURE"))
+        while (currentKind == TokenKind.PROCEDURE)
+            decs.add(parseProcedureDeclaration());
+
+        //returns a program with
+        return new Program(vars, decs, parseStatement());
+    }
+
+    /**
+     * Parses a program, handing each procedure declaration to a consumer as
+     * soon as it is parsed instead of keeping it. The Parser holds on to
+     * nothing of a procedure once it is handed over, so a consumer that
+     * compiles it and lets it go, such as a StreamingCompiler, only ever
+     * keeps one procedure's AST alive.
+     *
+     * @param procedures the consumer of the procedure declarations, in order
+     * @return a Program with the global variables and the main statement,
+     *         but no procedure declarations
+     * @throws ScanErrorException if eaten token does not match currentKind
+     */
+    public Program parseProgram(Consumer<ProcedureDeclaration> procedures)
+            throws ScanErrorException
+    {
+        int[] vars = parseVarDeclarations();
+        varDecs = vars;
+        while (currentKind == TokenKind.PROCEDURE)
+            procedures.accept(parseProcedureDeclaration());
+        return new Program(vars, new ArrayList<ProcedureDeclaration>(), parseStatement());
+    }
+
+    /**
+     * Parses a program from a TokenBuffer on the common ForkJoinPool. With
+     * only one processor nothing can run in parallel, so the program is
+     * parsed on the calling thread instead.
+     *
+     * @param tokens the tokens of the program
+     * @return the Program, exactly as parseProgram would return it
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
+     */
+    public static Program parseParallel(TokenBuffer tokens) throws ScanErrorException
+    {
+        if (Runtime.getRuntime().availableProcessors() < 2)
+            return new Parser(tokens.view()).parseProgram();
+        return parseParallel(tokens, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses a program from a TokenBuffer, parsing its procedure
+     * declarations in parallel. PROCEDURE is only ever the first token of a
+     * declaration, so the buffer is first scanned for PROCEDURE tokens,
+     * which splits the declarations apart without parsing them. Runs of
+     * declarations of at least BATCH_TOKENS tokens are then parsed on the
+     * pool, each by a Parser on its own view of the buffer, while the
+     * calling thread parses the last declaration and the main statement,
+     * whose end is only known by parsing them. The declarations are put
+     * back together in source order.
+     *
+     * A run must end exactly where the next one starts. If any run does
+     * not, or fails to parse, the whole program is parsed again on one
+     * thread, so an invalid program fails with the same error as it does in
+     * parseProgram.
+     *
+     * @param tokens the tokens of the program
+     * @param pool the pool to parse the declarations on
+     * @return the Program, exactly as parseProgram would return it
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
+     */
+    public static Program parseParallel(TokenBuffer tokens, ForkJoinPool pool)
+            throws ScanErrorException
+    {
+        TokenBuffer main = tokens.view();
+        Parser parser = new Parser(main);
+        int[] vars = parser.parseVarDeclarations();
+        parser.varDecs = vars;
+        int[] starts = procedureStarts(tokens, main.getIndex());
+        if (starts.length < 2 || starts[0] != main.getIndex())
+            return new Parser(tokens.view()).parseProgram();
+
+        // split all but the last declaration into runs and parse them on the pool
+        List<Future<ArrayList<ProcedureDeclaration>>> runs =
+                new ArrayList<Future<ArrayList<ProcedureDeclaration>>>();
+        int first = 0;
+        for (int i = 1; i < starts.length; i++)
         {
-            eat("PROCEDURE");
-            String name = currentToken;
-            eat(currentToken);
-            eat("(");
-            ArrayList<String> params = new ArrayList<String>();
-            while (!currentToken.equals(")"))
+            if (i == starts.length - 1 || starts[i] - starts[first] >= BATCH_TOKENS)
             {
-                params.add(currentToken);
-                eat(currentToken);
-                if (currentToken.equals(","))
-                    eat(",");
+                int from = first;
+                int to = i;
+                runs.add(pool.submit(() -> parseRun(tokens, starts, from, to)));
+                first = i;
             }
-            eat(")");
-            eat(";");
+        }
 
-            ArrayList<String> locals = new ArrayList<String>();
-            while (currentToken.equals("VAR"))
+        ArrayList<ProcedureDeclaration> decs = new ArrayList<ProcedureDeclaration>();
+        Statement statement;
+        try
+        {
+            main.seek(starts[starts.length - 1] - 1);
+            parser.currentKind = main.nextTokenKind();
+            ArrayList<ProcedureDeclaration> last = new ArrayList<ProcedureDeclaration>();
+            while (parser.currentKind == TokenKind.PROCEDURE)
+                last.add(parser.parseProcedureDeclaration());
+            statement = parser.parseStatement();
+
+            for (Future<ArrayList<ProcedureDeclaration>> run : runs)
             {
-                eat("VAR");
-                String localVar = currentToken;
-                eat(currentToken);
-                while (!currentToken.equals(";"))
-                {
-                    locals.add(localVar);
-                    eat(",");
-                    localVar = currentToken;
-                    eat(currentToken);
-                }
-                locals.add(localVar);
-                eat(";");
+                ArrayList<ProcedureDeclaration> parsed = run.get();
+                if (parsed == null)
+                    return new Parser(tokens.view()).parseProgram();
+                decs.addAll(parsed);
             }
-            Statement s = parseStatement();
-            decs.add(new ProcedureDeclaration(name, s, params, locals));
+            decs.addAll(last);
         }
-
-        //returns a program with
-        return new Program(vars, decs, parseStatement());
+        catch (RuntimeException | ExecutionException e)
+        {
+            return new Parser(tokens.view()).parseProgram();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return new Program(vars, decs, statement);
     }
 
     /**
-     * The method parses a single statement based on the grammar for
-     * parsing Statement.
+     * Parses a program again after an edit, reusing the parts of the
+     * previous Program that the edit cannot have changed. The program is
+     * split into units: each procedure declaration, and the main statement.
+     * A unit whose tokens all end before the edit keeps its tokens, and a
+     * unit that starts after the removed text keeps its tokens shifted by
+     * the change in length, so the ProcedureDeclarations of both are kept
+     * by identity, along with the main statement if it is after the edit.
+     * Only the units in between are parsed, from the new tokens.
      *
-     * @return a new Statement class based on what kind of Statement the file contains
-     * @throws ScanErrorException if eaten tokens do not match their currentToken
+     * A procedure ends where the next one starts, but the end of the last
+     * one is only known by parsing it, so it is parsed once more in the old
+     * tokens to find where the main statement starts.
+     *
+     * The units that are parsed must end exactly where the kept units
+     * after them start. If they do not, or if the edit touches the global
+     * VAR declarations, the whole program is parsed again, so the result and
+     * any error are always those of parseProgram on the new tokens.
+     *
+     * @precondition previous was parsed from before, and after is
+     *               before.edit(offset, removed, inserted) for some text
+     *               of length inserted
+     * @param previous the Program parsed from the tokens before the edit
+     * @param before the tokens before the edit
+     * @param after the tokens after the edit
+     * @param offset the offset of the first character removed
+     * @param removed the number of characters removed
+     * @param inserted the number of characters inserted
+     * @return the Program of the new tokens
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
      */
-    public Statement parseStatement() throws ScanErrorException
+    public static Program reparse(Program previous, TokenBuffer before, TokenBuffer after,
+            int offset, int removed, int inserted) throws ScanErrorException
     {
-        if (currentToken.equals("WRITELN"))
-        {
-            eat("WRITELN");
-            eat("(");
-            Expression exp = parseExpression();
-            eat(")");
-            eat(";");
-            return new Writeln(exp);
-        }
-        else if (currentToken.equals("BEGIN"))
+        // the first token of each unit, with the main statement last
+        int[] procedures = procedureStarts(before, 0);
+        int units = procedures.length + 1;
+        List<ProcedureDeclaration> decs = previous.getProcedures();
+        if (procedures.length == 0 || decs.size() != procedures.length ||
+                before.startAt(procedures[0]) >= offset)
+            return new Parser(after.view()).parseProgram();
+        int[] firsts = Arrays.copyOf(procedures, units);
+        try
         {
-            eat("BEGIN");
-            Block ret = parseBegin(new Block(new ArrayList<Statement>()));
-            return ret;
+            TokenBuffer last = before.view();
+            last.seek(procedures[procedures.length - 1] - 1);
+            new Parser(last).parseProcedureDeclaration();
+            firsts[units - 1] = last.getIndex();
         }
-        else if (currentToken.equals("IF"))
+        catch (RuntimeException e)
         {
-            eat("IF");
-            Condition c = parseCondition();
-            eat("THEN");
-            Statement s = parseStatement();
-            Statement ifStatement = new If(c, s);
-            return ifStatement;
+            return new Parser(after.view()).parseProgram();
         }
-        else if (currentToken.equals("WHILE"))
+
+        // units before the edit, and from which unit on they are after it
+        int kept = 0;
+        while (kept < units - 1 && before.startAt(firsts[kept + 1]) < offset)
+            kept++;
+        int resumed = units;
+        while (resumed > kept && before.startAt(firsts[resumed - 1]) > offset + removed)
+            resumed--;
+
+        int shift = after.size() - before.size();
+        int delta = inserted - removed;
+        int stop = resumed < units ? firsts[resumed] + shift : -1;
+        if (resumed < units && (stop <= 0 || stop >= after.size() ||
+                after.kindAt(stop) != before.kindAt(firsts[resumed]) ||
+                after.startAt(stop) != before.startAt(firsts[resumed]) + delta))
+            return new Parser(after.view()).parseProgram();
+
+        ArrayList<ProcedureDeclaration> result =
+                new ArrayList<ProcedureDeclaration>(decs.subList(0, kept));
+        Statement statement = previous.getStatement();
+        try
         {
-            eat("WHILE");
-            Condition c = parseCondition();
-            eat("DO");
-            Statement s = parseStatement();
-            Statement whileStatement = new While(c, s);
-            return whileStatement;
+            TokenBuffer view = after.view();
+            view.seek(firsts[kept] - 1);
+            Parser parser = new Parser(view);
+            while (parser.currentKind == TokenKind.PROCEDURE &&
+                    (resumed == units || view.getIndex() < stop))
+                result.add(parser.parseProcedureDeclaration());
+            if (resumed == units)
+                statement = parser.parseStatement();
+            else if (view.getIndex() != stop)
+                return new Parser(after.view()).parseProgram();
         }
-        else
+        catch (RuntimeException e)
         {
-            String n = currentToken;
-            eat(currentToken);
-            eat(":=");
-            Variable var = new Variable(n);
-            Expression expr = parseExpression();
-            variables.put(var.getName(), expr);
-            eat(";");
-            Statement assign = new Assignment(var.getName(), expr);
-            return assign;
+            return new Parser(after.view()).parseProgram();
         }
-
+        result.addAll(decs.subList(Math.min(resumed, decs.size()), decs.size()));
+        return new Program(previous.getGlobalVars(), result, statement);
     }
 
     /**
-     * Parses a Begin statement that parses statements with the parseStatement
-     * method until an END token is detected.
+     * Finds every PROCEDURE token from an index on.
      *
-     * @throws ScanErrorException if eaten tokens do not match their currentToken
+     * @param tokens the tokens of the program
+     * @param from the index to start looking at
+     * @return the indexes of the PROCEDURE tokens, in order
      */
-    private Block parseBegin(Block b) throws ScanErrorException
+    private static int[] procedureStarts(TokenBuffer tokens, int from)
     {
-        if (currentToken.equals("END"))
+        int[] starts = new int[16];
+        int count = 0;
+        for (int i = from; i < tokens.size(); i++)
         {
-            eat("END");
-            eat(";");
-            return b;
-        }
-        else
-        {
-            b.getStatements().add(parseStatement());
-            return parseBegin(b);
+            if (tokens.kindAt(i) == TokenKind.PROCEDURE)
+            {
+                if (count == starts.length)
+                    starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = i;
+            }
         }
+        return Arrays.copyOf(starts, count);
     }
 
     /**
-     * Parses a factor as either an expr in parentheses, number,
-     * identifier, or negative factor. This is based on the
-     * grammar provided.
+     * Parses a run of procedure declarations, each of which must end
+     * exactly where the next one starts.
      *
-     * @return the integer value of the factor given
-     * @throws ScanErrorException if eaten tokens do not match their currentToken
+     * @param tokens the tokens of the program
+     * @param starts the index of the PROCEDURE token of every declaration
+     * @param from the first declaration of the run
+     * @param to the declaration just after the run
+     * @return the declarations of the run, or null if one of them does not
+     *         end where the next one starts
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
      */
-    private Expression parseFactor() throws ScanErrorException
+    private static ArrayList<ProcedureDeclaration> parseRun(TokenBuffer tokens, int[] starts,
+            int from, int to) throws ScanErrorException
     {
-        if (currentToken.equals("(") || currentToken.equals(")"))
+        TokenBuffer view = tokens.view();
+        view.seek(starts[from] - 1);
+        Parser parser = new Parser(view);
+        ArrayList<ProcedureDeclaration> decs = new ArrayList<ProcedureDeclaration>();
+        for (int i = from; i < to; i++)
         {
-            eat("(");
-            Expression exp = parseExpression();
-            eat(")");
-            return exp;
+            decs.add(parser.parseProcedureDeclaration());
+            if (view.getIndex() != starts[i + 1])
+                return null;
         }
-        else if (currentToken.equals("-"))
+        return decs;
+    }
+
+    /**
+     * Parses a procedure declaration: its name, its parameters in
+     * parentheses, its local VAR declarations and its body.
+     *
+     * @precondition currentKind is TokenKind.PROCEDURE
+     * @return the ProcedureDeclaration parsed
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
+     */
+    private ProcedureDeclaration parseProcedureDeclaration() throws ScanErrorException
+    {
+        eat(TokenKind.PROCEDURE);
+        int name = parseIdentifier();
+        eat(TokenKind.LEFT_PAREN);
+        ArrayList<Integer> params = new ArrayList<Integer>();
+        while (currentKind != TokenKind.RIGHT_PAREN)
         {
-            eat("-");
-            return new BinOp("*", new Number(-1), parseFactor());
+            params.add(parseIdentifier());
+            if (currentKind == TokenKind.COMMA)
+                eat(TokenKind.COMMA);
         }
-        else if (scanner.isDigit(currentToken.charAt(0)))
-            return parseNumber();
-        else
-        {
-            String id = currentToken;
-            eat(currentToken);
-            if (currentToken.equals("("))
-            {
-                eat(currentToken);
-                ArrayList<Expression> args = new ArrayList<>();
-                while (!currentToken.equals(")"))
-                {
-                    args.add(parseExpression());
-                    if (currentToken.equals(","))
-                        eat(",");
-                }
-                eat(")");
-                return new ProcedureCall(id, args);
-            }
+        eat(TokenKind.RIGHT_PAREN);
+        eat(TokenKind.SEMICOLON);
 
-            return new Variable(id);
-        }
+        int[] locals = parseVarDeclarations();
+        Statement s = parseStatement();
+        return new ProcedureDeclaration(name, s, toArray(params), locals);
     }
 
     /**
-     * Parses a term as either a term * factor, term / factor,
-     * or factor based on the grammar provided.
+     * The method parses a single statement based on the grammar for
+     * parsing Statement.
      *
-     * @return the value of the term parsed based on grammars and
-     *         evaluation rules
-     * @throws ScanErrorException if eaten tokens do not match their currentToken
+     * Statements nest without recursion. A BEGIN, IF or WHILE whose inner
+     * statements are still being parsed is pushed onto an explicit stack of
+     * open statements, and each statement that is finished is handed to
+     * the innermost open one: a block adds it and waits for more, while an
+     * IF or WHILE is completed by it and is itself finished. A block of any
+     * length and statements nested to any depth are parsed in a loop, using
+     * memory in proportion to the depth.
+     *
+     * @return a new Statement class based on what kind of Statement the file contains
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
      */
-    private Expression parseTerm() throws ScanErrorException
+    public Statement parseStatement() throws ScanErrorException
     {
-        Expression exp = parseFactor();
-
-        while (currentToken.equals("*") || currentToken.equals("/"))
+        ArrayList<Object> open = new ArrayList<Object>();
+        int[] openKinds = new int[16];
+        while (true)
         {
-            if (currentToken.equals("*"))
+            Statement done = null;
+            switch (currentKind)
             {
-                eat("*");
-                exp = new BinOp("*", exp, parseFactor());
+                case TokenKind.WRITELN:
+                {
+                    eat(TokenKind.WRITELN);
+                    eat(TokenKind.LEFT_PAREN);
+                    Expression exp = parseExpression();
+                    eat(TokenKind.RIGHT_PAREN);
+                    eat(TokenKind.SEMICOLON);
+                    done = new Writeln(exp);
+                    break;
+                }
+                case TokenKind.BEGIN:
+                    eat(TokenKind.BEGIN);
+                    openKinds = push(open, openKinds, TokenKind.BEGIN,
+                            new Block(new ArrayList<Statement>()));
+                    break;
+                case TokenKind.IF:
+                {
+                    eat(TokenKind.IF);
+                    Condition c = parseCondition();
+                    eat(TokenKind.THEN);
+                    openKinds = push(open, openKinds, TokenKind.IF, c);
+                    break;
+                }
+                case TokenKind.WHILE:
+                {
+                    eat(TokenKind.WHILE);
+                    Condition c = parseCondition();
+                    eat(TokenKind.DO);
+                    openKinds = push(open, openKinds, TokenKind.WHILE, c);
+                    break;
+                }
+                default:
+                {
+                    int n = parseIdentifier();
+                    eat(TokenKind.ASSIGN);
+                    Expression expr = parseExpression();
+                    eat(TokenKind.SEMICOLON);
+                    done = new Assignment(n, expr);
+                    break;
+                }
             }
-            else if (currentToken.equals("/"))
+
+            // hand finished statements to the open statements around them
+            while (!open.isEmpty())
             {
-                eat("/");
-                exp = new BinOp("/", exp, parseFactor());
+                int top = open.size() - 1;
+                if (openKinds[top] == TokenKind.BEGIN)
+                {
+                    Block b = (Block) open.get(top);
+                    if (done != null)
+                        b.getStatements().add(done);
+                    if (currentKind != TokenKind.END)
+                        break;
+                    eat(TokenKind.END);
+                    eat(TokenKind.SEMICOLON);
+                    done = b;
+                }
+                else if (done == null)
+                    break;
+                else if (openKinds[top] == TokenKind.IF)
+                    done = new If((Condition) open.get(top), done);
+                else
+                    done = new While((Condition) open.get(top), done);
+                open.remove(top);
             }
+            if (open.isEmpty() && done != null)
+                return done;
         }
-        return exp;
     }
 
     /**
-     * Parses an expression by the rules expr + term, expr - term, and term
-     * based on the grammar. Evaluates and returns the actual values.
+     * Pushes an open statement onto the stack of open statements, growing
+     * the array of their kinds when it is full.
      *
-     * @return the int value of an expression
-     * @throws ScanErrorException if eaten tokens do not match their currentToken
+     * @param open the open statements
+     * @param openKinds the TokenKind that opened each open statement
+     * @param kind the TokenKind that opens the new statement
+     * @param statement the Block, or the Condition of an IF or WHILE
+     * @return the array of kinds, which may have been replaced by a larger one
      */
-    private Expression parseExpression() throws ScanErrorException
+    private static int[] push(ArrayList<Object> open, int[] openKinds, int kind, Object statement)
     {
-        Expression exp = parseTerm();
+        if (open.size() == openKinds.length)
+            openKinds = Arrays.copyOf(openKinds, openKinds.length * 2);
+        openKinds[open.size()] = kind;
+        open.add(statement);
+        return openKinds;
+    }
 
-        while (currentToken.equals("+") || currentToken.equals("-"))
+    /**
+     * Parses an expression and returns it. An expression is a chain of
+     * factors joined by the binary operators in the Operators table, where
+     * a factor is an expr in parentheses, a number, an identifier, a
+     * procedure call or a negative factor.
+     *
+     * The expression is parsed by precedence climbing in a single loop,
+     * with the climbing done on an explicit stack instead of by recursion.
+     * The operand just parsed is held in a local variable. An operator
+     * that follows it is pushed onto the stack together with it, to wait
+     * for its right operand, and waiting operators are applied as soon as
+     * the Operators table says that they apply before the next token.
+     * Parentheses, negation and procedure calls are pushed as markers, so
+     * nesting to any depth only grows the stack, and each operand costs the
+     * same few steps however many precedence levels there are.
+     *
+     * @return the Expression parsed
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
+     */
+    private Expression parseExpression() throws ScanErrorException
+    {
+        // for each waiting entry: the operator or marker, its precedence,
+        // and its left operand; the arguments parsed so far for a call wait
+        // in waitingArgs at the same depth
+        int[] kinds = waitingKinds;
+        int[] precedences = waitingPrecedences;
+        Expression[] operands = waitingOperands;
+        int depth = 0;
+        int deepest = 0;
+        while (true)
         {
-            if (currentToken.equals("+"))
+            if (depth == kinds.length)
+                growWaiting();
+            kinds = waitingKinds;
+            precedences = waitingPrecedences;
+            operands = waitingOperands;
+            deepest = Math.max(deepest, depth + 1);
+
+            // a factor, or the start of one
+            Expression value;
+            switch (currentKind)
             {
-                eat("+");
-                exp = new BinOp("+", exp, parseTerm());
+                case TokenKind.LEFT_PAREN:
+                    eat(TokenKind.LEFT_PAREN);
+                    kinds[depth] = GROUP;
+                    precedences[depth++] = 0;
+                    continue;
+                case TokenKind.MINUS:
+                    eat(TokenKind.MINUS);
+                    kinds[depth] = NEGATE;
+                    precedences[depth++] = Operators.NEGATION;
+                    continue;
+                case TokenKind.NUMBER:
+                    value = parseNumber();
+                    break;
+                default:
+                {
+                    int id = parseIdentifier();
+                    if (currentKind != TokenKind.LEFT_PAREN)
+                    {
+                        value = variable(id);
+                        break;
+                    }
+                    eat(TokenKind.LEFT_PAREN);
+                    if (currentKind != TokenKind.RIGHT_PAREN)
+                    {
+                        kinds[depth] = CALL;
+                        precedences[depth] = 0;
+                        waitingCalls[depth] = id;
+                        while (waitingArgs.size() <= depth)
+                            waitingArgs.add(null);
+                        waitingArgs.set(depth++, new ArrayList<Expression>());
+                        continue;
+                    }
+                    eat(TokenKind.RIGHT_PAREN);
+                    value = new ProcedureCall(id, new ArrayList<Expression>());
+                    break;
+                }
             }
-            else if (currentToken.equals("-"))
+
+            // after a factor: apply what binds tighter than the next token,
+            // then take the next operator or close what the factor ended
+            while (true)
             {
-                eat("-");
-                exp = new BinOp("-", exp, parseTerm());
+                int next = currentKind;
+                while (depth > 0 && Operators.appliesBefore(precedences[depth - 1], next))
+                {
+                    depth--;
+                    if (kinds[depth] == NEGATE)
+                        value = binOp("*", number(-1), value);
+                    else
+                        value = binOp(Operators.opcode(kinds[depth]),
+                                operands[depth], value);
+                }
+                int precedence = Operators.precedence(next);
+                if (precedence > 0)
+                {
+                    eat(next);
+                    kinds[depth] = next;
+                    precedences[depth] = precedence;
+                    operands[depth++] = value;
+                    break;
+                }
+                if (depth == 0)
+                {
+                    Arrays.fill(operands, 0, deepest, null);
+                    return value;
+                }
+                if (kinds[depth - 1] == GROUP)
+                {
+                    eat(TokenKind.RIGHT_PAREN);
+                    depth--;
+                    continue;
+                }
+
+                // kinds[depth - 1] is a CALL, and an argument just ended
+                ArrayList<Expression> args = waitingArgs.get(depth - 1);
+                args.add(value);
+                if (currentKind == TokenKind.COMMA)
+                    eat(TokenKind.COMMA);
+                if (currentKind != TokenKind.RIGHT_PAREN)
+                    break;
+                eat(TokenKind.RIGHT_PAREN);
+                depth--;
+                waitingArgs.set(depth, null);
+                value = new ProcedureCall(waitingCalls[depth], args);
             }
         }
-        return exp;
+    }
+
+    /**
+     * Doubles the size of the stack of parseExpression.
+     */
+    private void growWaiting()
+    {
+        int size = waitingKinds.length * 2;
+        waitingKinds = Arrays.copyOf(waitingKinds, size);
+        waitingPrecedences = Arrays.copyOf(waitingPrecedences, size);
+        waitingOperands = Arrays.copyOf(waitingOperands, size);
+        waitingCalls = Arrays.copyOf(waitingCalls, size);
     }
 
     /**
@@ -333,7 +798,7 @@ public class Parser
      * a relational operator based on the provided grammar.
      *
      * @return a Condition object from the information from the file
-     * @throws ScanErrorException if eaten tokens do not match their currentToken
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
      */
     private Condition parseCondition() throws ScanErrorException
     {
@@ -347,18 +812,24 @@ public class Parser
      * Parses a Relational Operator and returns the result as a String.
      *
      * @return the relational operator found as a String
-     * @throws ScanErrorException if eaten tokens do not match their currentToken
+     * @throws ScanErrorException if eaten tokens do not match their currentKind
      */
     private String parseRelop() throws ScanErrorException
     {
-        String op = currentToken;
-        if (op.equals("=") || op.equals("<>") || op.equals("<") ||
-                op.equals(">") || op.equals("<=") || op.equals(">="))
+        switch (currentKind)
         {
-            eat(currentToken);
-            return op;
+            case TokenKind.EQUAL:
+            case TokenKind.NOT_EQUAL:
+            case TokenKind.LESS:
+            case TokenKind.GREATER:
+            case TokenKind.LESS_EQUAL:
+            case TokenKind.GREATER_EQUAL:
+                String op = TokenKind.text(currentKind);
+                eat(currentKind);
+                return op;
+            default:
+                throw new ScanErrorException("Unexpected Token: RelOperator expected.");
         }
-        throw new ScanErrorException("Unexpected Token: RelOperator expected.");
     }
 
 }
\ No newline at end of file
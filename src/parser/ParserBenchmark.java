@@ -0,0 +1,322 @@
+package parser;
+
+import ast.FlatProgram;
+import ast.Program;
+import scanner.Scanner;
+import scanner.TokenBuffer;
+import scanner.TokenKind;
+import scanner.TokenPipeline;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times the Parser on generated expression-heavy programs. Each program is
+ * lexed into a TokenBuffer once, so only parsing is timed: the buffer is
+ * rewound and parsed again in every round. A program with many procedures
+ * is then parsed sequentially and with Parser.parseParallel, and scanning
+ * and parsing it from its file is timed against loading it from a
+ * ProgramCache. Last, reparsing it after a one-line edit is timed against
+ * parsing it from scratch, and scanning and parsing it with the Scanner
+ * on the parser's thread is timed against running the Scanner on its own
+ * thread through a TokenPipeline.
+ *
+ * Usage: java parser.ParserBenchmark
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class ParserBenchmark
+{
+    private static final int ROUNDS = 15;
+
+    public static void main(String[] args) throws Exception
+    {
+        time("long chains", TokenBuffer.lex(generateChains(20000, 40)));
+        time("nested", TokenBuffer.lex(generateNested(20000, 12)));
+        compareParallel(TokenBuffer.lex(generateProcedures(5000)));
+        compareCache(generateProcedures(5000));
+        compareReparse(generateProcedures(5000));
+        comparePipeline(generateProcedures(5000));
+    }
+
+    /**
+     * Times scanning and parsing a source file on one thread against
+     * parsing it from a TokenPipeline, with the time to scan it alone and
+     * to parse it alone from a TokenBuffer for reference: with a core for
+     * each side, the pipeline takes about as long as the slower of the two.
+     * Also checks that both ways give the same Program.
+     *
+     * @param source the source of the program
+     * @throws Exception if the program cannot be written or parsed
+     */
+    private static void comparePipeline(String source) throws Exception
+    {
+        Path path = Files.createTempFile("parser", ".txt");
+        path.toFile().deleteOnExit();
+        Files.write(path, source.getBytes(StandardCharsets.US_ASCII));
+        TokenBuffer tokens = TokenBuffer.lex(path);
+
+        long scanBest = Long.MAX_VALUE;
+        long parseBest = Long.MAX_VALUE;
+        long sequentialBest = Long.MAX_VALUE;
+        long pipelineBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            Scanner scanner = new Scanner(path);
+            int kind;
+            while ((kind = scanner.nextTokenKind()) != TokenKind.EOF)
+            {
+                if (kind == TokenKind.NUMBER || kind == TokenKind.IDENTIFIER)
+                    scanner.getTokenText();
+            }
+            scanBest = Math.min(scanBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            new Parser(tokens.view()).parseProgram();
+            parseBest = Math.min(parseBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Program sequential = new Parser(new Scanner(path)).parseProgram();
+            sequentialBest = Math.min(sequentialBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Program piped;
+            try (TokenPipeline pipeline = new TokenPipeline(new Scanner(path)))
+            {
+                piped = new Parser(pipeline).parseProgram();
+            }
+            pipelineBest = Math.min(pipelineBest, System.nanoTime() - start);
+
+            if (i == 0 && !Arrays.equals(FlatProgram.of(sequential).toBytes(),
+                    FlatProgram.of(piped).toBytes()))
+                throw new IllegalStateException("The pipeline parses a different Program");
+        }
+        System.out.println("Scanner and Parser on " + Runtime.getRuntime().availableProcessors() +
+                " cores, same Program both ways:");
+        System.out.printf("  scan alone  %8.2f ms%n", scanBest / 1e6);
+        System.out.printf("  parse alone %8.2f ms%n", parseBest / 1e6);
+        System.out.printf("  one thread  %8.2f ms%n", sequentialBest / 1e6);
+        System.out.printf("  pipeline    %8.2f ms%n", pipelineBest / 1e6);
+        System.out.printf("  speedup: %.2fx%n", (double) sequentialBest / pipelineBest);
+    }
+
+    /**
+     * Times parsing a program from scratch against reparsing it with
+     * Parser.reparse after a line in one of its procedures is changed.
+     *
+     * @param source the source of the program
+     * @throws Exception if the program cannot be parsed
+     */
+    private static void compareReparse(String source) throws Exception
+    {
+        TokenBuffer before = TokenBuffer.lex(source);
+        Program previous = new Parser(before.view()).parseProgram();
+        int offset = source.indexOf("\tcount := 0;", source.length() / 2);
+        String inserted = "\tcount := count * 3;\n";
+        TokenBuffer after = before.edit(offset, 0, inserted);
+
+        long parseBest = Long.MAX_VALUE;
+        long reparseBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            int parsed = new Parser(after.view()).parseProgram().getProcedures().size();
+            parseBest = Math.min(parseBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int reparsed = Parser.reparse(previous, before, after, offset, 0, inserted.length())
+                    .getProcedures().size();
+            reparseBest = Math.min(reparseBest, System.nanoTime() - start);
+
+            if (parsed != reparsed)
+                throw new IllegalStateException("Procedure counts differ: " + parsed +
+                        " and " + reparsed);
+        }
+        System.out.println("after a one-line edit:");
+        System.out.printf("  full parse %8.3f ms%n", parseBest / 1e6);
+        System.out.printf("  reparse    %8.3f ms%n", reparseBest / 1e6);
+    }
+
+    /**
+     * Times scanning and parsing a source file against loading its Program
+     * from a ProgramCache that already has an entry for it.
+     *
+     * @param source the source of the program
+     * @throws Exception if the program cannot be written, parsed or loaded
+     */
+    private static void compareCache(String source) throws Exception
+    {
+        Path path = Files.createTempFile("parser", ".txt");
+        path.toFile().deleteOnExit();
+        Files.write(path, source.getBytes(StandardCharsets.US_ASCII));
+        Path directory = Files.createTempDirectory("astcache");
+        ProgramCache cache = new ProgramCache(directory);
+        cache.parse(path);
+
+        long parseBest = Long.MAX_VALUE;
+        long loadBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            int parsed = new Parser(TokenBuffer.lex(path)).parseProgram().getProcedures().size();
+            parseBest = Math.min(parseBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int loaded = cache.parse(path).getProcedures().size();
+            loadBest = Math.min(loadBest, System.nanoTime() - start);
+
+            if (parsed != loaded)
+                throw new IllegalStateException("Procedure counts differ: " + parsed +
+                        " and " + loaded);
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory))
+        {
+            for (Path entry : entries)
+                Files.delete(entry);
+        }
+        Files.delete(directory);
+        System.out.println("program of " + source.length() + " bytes:");
+        System.out.printf("  scan and parse %8.2f ms%n", parseBest / 1e6);
+        System.out.printf("  cached         %8.2f ms%n", loadBest / 1e6);
+        System.out.printf("  speedup: %.2fx%n", (double) parseBest / loadBest);
+    }
+
+    /**
+     * Times parsing a program on one thread against parsing its procedure
+     * declarations in parallel on the common ForkJoinPool.
+     *
+     * @param tokens the tokens of the program
+     * @throws Exception if the program cannot be parsed
+     */
+    private static void compareParallel(TokenBuffer tokens) throws Exception
+    {
+        long sequentialBest = Long.MAX_VALUE;
+        long parallelBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            int sequential = new Parser(tokens.view()).parseProgram().getProcedures().size();
+            sequentialBest = Math.min(sequentialBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int parallel = Parser.parseParallel(tokens).getProcedures().size();
+            parallelBest = Math.min(parallelBest, System.nanoTime() - start);
+
+            if (sequential != parallel)
+                throw new IllegalStateException("Procedure counts differ: " + sequential +
+                        " and " + parallel);
+        }
+        System.out.println("procedures on " + ForkJoinPool.commonPool().getParallelism() +
+                " worker threads:");
+        System.out.printf("  sequential %8.2f ms%n", sequentialBest / 1e6);
+        System.out.printf("  parallel   %8.2f ms%n", parallelBest / 1e6);
+        System.out.printf("  speedup: %.2fx%n", (double) sequentialBest / parallelBest);
+    }
+
+    /**
+     * Parses a program over and over and prints the best time.
+     *
+     * @param name the name of the program
+     * @param tokens the tokens of the program
+     * @throws Exception if the program cannot be parsed
+     */
+    private static void time(String name, TokenBuffer tokens) throws Exception
+    {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            tokens.seek(-1);
+            long start = System.nanoTime();
+            new Parser(tokens).parseProgram();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-12s %8.2f ms %8.1f M tokens/s%n", name, best / 1e6,
+                tokens.size() / (best / 1e9) / 1e6);
+    }
+
+    /**
+     * Generates assignments whose right-hand sides are long chains of
+     * operands joined by every binary operator.
+     *
+     * @param statements the number of assignments
+     * @param operands the number of operands in each chain
+     * @return the source of the program
+     */
+    static String generateChains(int statements, int operands)
+    {
+        String[] operators = {" + ", " * ", " - ", " / ", " % "};
+        StringBuilder sb = new StringBuilder("BEGIN\n");
+        for (int i = 0; i < statements; i++)
+        {
+            sb.append("\tx").append(i % 50).append(" := a");
+            for (int j = 1; j < operands; j++)
+            {
+                sb.append(operators[(i + j) % operators.length]);
+                if (j % 7 == 0)
+                    sb.append("-");
+                sb.append(j % 3 == 0 ? "count" : String.valueOf(j));
+            }
+            sb.append(";\n");
+        }
+        sb.append("END;\n.");
+        return sb.toString();
+    }
+
+    /**
+     * Generates a program with many procedures, each with a few statements.
+     *
+     * @param procedures the number of procedures
+     * @return the source of the program
+     */
+    static String generateProcedures(int procedures)
+    {
+        StringBuilder sb = new StringBuilder("VAR total;\n");
+        for (int i = 0; i < procedures; i++)
+        {
+            sb.append("PROCEDURE proc").append(i).append("(first, second);\n");
+            sb.append("VAR count;\n");
+            sb.append("BEGIN\n");
+            sb.append("\tcount := 0;\n");
+            sb.append("\tWHILE count <= second DO\n");
+            sb.append("\tBEGIN\n");
+            sb.append("\t\ttotal := total + first * (count - 1) % 7;\n");
+            sb.append("\t\tIF total <> 12345 THEN WRITELN(proc").append(i / 2).append("(total, 1));\n");
+            sb.append("\t\tcount := count + 1;\n");
+            sb.append("\tEND;\n");
+            sb.append("END;\n");
+        }
+        sb.append("BEGIN\n\ttotal := proc0(3, 4);\nEND;\n.");
+        return sb.toString();
+    }
+
+    /**
+     * Generates assignments whose right-hand sides are nested parentheses
+     * and procedure calls.
+     *
+     * @param statements the number of assignments
+     * @param depth how deeply each right-hand side is nested
+     * @return the source of the program
+     */
+    static String generateNested(int statements, int depth)
+    {
+        StringBuilder sb = new StringBuilder("BEGIN\n");
+        for (int i = 0; i < statements; i++)
+        {
+            sb.append("\ty := ");
+            for (int j = 0; j < depth; j++)
+                sb.append(j % 2 == 0 ? "(1 + " : "f(y, ");
+            sb.append("z");
+            for (int j = 0; j < depth; j++)
+                sb.append(") * 2");
+            sb.append(";\n");
+        }
+        sb.append("END;\n.");
+        return sb.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package parser;
 import scanner.Scanner;
+import scanner.TokenKind;
+import scanner.TokenPipeline;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -8,10 +10,23 @@ import java.io.File;
 public class ParserTester {
 
     public static void main(String[] args) throws Exception {
+        // java parser.ParserTester -pipeline scans on a separate thread
+        // through a TokenPipeline instead of in the Parser's thread
+        boolean pipeline = args.length > 0 && args[0].equals("-pipeline");
         for (int i = 0; i < 5; i++) {
             String s = "parserTest" + i + ".txt";
             InputStream reader = new FileInputStream(s);
             Scanner scanner = new Scanner(reader);
+            if (pipeline) {
+                // the scanner belongs to the pipeline's thread, so the end
+                // of the input is seen through the Parser's current token
+                try (TokenPipeline tokens = new TokenPipeline(scanner)) {
+                    Parser p = new Parser(tokens);
+                    while (p.currentKind != TokenKind.PERIOD && p.currentKind != TokenKind.EOF)
+                        p.parseStatement();
+                }
+                continue;
+            }
             Parser p = new Parser(scanner);
             while (scanner.hasNext())
                 p.parseStatement();
@@ -0,0 +1,119 @@
+package parser;
+
+import ast.FlatProgram;
+import ast.Program;
+import scanner.ScanErrorException;
+import scanner.TableScanner;
+import scanner.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A ProgramCache keeps the parsed Program of every source file it has seen
+ * in a directory on disk, as the bytes of a FlatProgram. An entry is named
+ * by the SHA-256 hash of the source, so a file that has not changed since
+ * it was last parsed is read back from its entry without being scanned or
+ * parsed, and a file that has changed simply misses.
+ *
+ * The cache is only an optimization: an entry that cannot be read, such as
+ * one written by an older format, is parsed again and replaced, and a
+ * failure to write an entry leaves the Program parsed as usual.
+ *
+ * Usage: Program p = new ProgramCache(Paths.get("astcache")).parse(Paths.get("test"));
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class ProgramCache
+{
+    private Path directory;
+
+    /**
+     * Constructs a ProgramCache that keeps its entries in a directory. The
+     * directory is created when the first entry is written.
+     *
+     * @param dir the directory of the cache
+     */
+    public ProgramCache(Path dir)
+    {
+        directory = dir;
+    }
+
+    /**
+     * Returns the Program of a source file, from the cache if the file is
+     * unchanged since it was last parsed, and otherwise by parsing it and
+     * storing the result.
+     *
+     * @param source the path of the source file
+     * @return the Program of the file
+     * @throws IOException if the source file cannot be read
+     * @throws ScanErrorException if the file has to be parsed and contains
+     *         an invalid token
+     */
+    public Program parse(Path source) throws IOException, ScanErrorException
+    {
+        byte[] text = Files.readAllBytes(source);
+        Path entry = directory.resolve(key(text) + ".ast");
+        if (Files.isRegularFile(entry))
+        {
+            try
+            {
+                return FlatProgram.fromBytes(Files.readAllBytes(entry)).toProgram();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // a damaged or outdated entry is parsed again and replaced
+            }
+        }
+
+        Program program = new Parser(TokenBuffer.lex(new TableScanner(ByteBuffer.wrap(text))))
+                .parseProgram();
+        Path temp = null;
+        try
+        {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, "entry", ".tmp");
+            Files.write(temp, FlatProgram.of(program).toBytes());
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            // the Program is still good without an entry
+            if (temp != null)
+                Files.deleteIfExists(temp);
+        }
+        return program;
+    }
+
+    /**
+     * Returns the name of the entry of a source: the SHA-256 hash of its
+     * bytes, in hexadecimal.
+     *
+     * @param text the bytes of the source
+     * @return the key of the source
+     */
+    private static String key(byte[] text)
+    {
+        try
+        {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash)
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package scanner;
+
+/**
+ * Keywords is a perfect hash table of the reserved words of the language.
+ * The hash of a word only depends on its first character and its length,
+ * and no two keywords share a slot, so the Scanner can classify any
+ * identifier with one table lookup and at most one comparison.
+ *
+ * Adding a keyword may require choosing a new multiplier or table size;
+ * the static initializer rejects any table that is not collision free.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+final class Keywords
+{
+    private static final int SIZE = 16;
+    private static final int LENGTH_MULTIPLIER = 5;
+
+    private static final String[] TEXT = new String[SIZE];
+    private static final int[] KIND = new int[SIZE];
+
+    static
+    {
+        add(TokenKind.VAR);
+        add(TokenKind.PROCEDURE);
+        add(TokenKind.BEGIN);
+        add(TokenKind.END);
+        add(TokenKind.WRITELN);
+        add(TokenKind.IF);
+        add(TokenKind.THEN);
+        add(TokenKind.WHILE);
+        add(TokenKind.DO);
+    }
+
+    /**
+     * Keywords only holds the static table and is never instantiated.
+     */
+    private Keywords()
+    {
+    }
+
+    /**
+     * Places a keyword in its slot of the table.
+     *
+     * @param kind the TokenKind of the keyword
+     * @throws IllegalStateException if the slot is already taken
+     */
+    private static void add(int kind)
+    {
+        String text = TokenKind.text(kind);
+        int h = hash(text.charAt(0), text.length());
+        if (TEXT[h] != null)
+            throw new IllegalStateException("Keyword hash collision: " + text + " and " + TEXT[h]);
+        TEXT[h] = text;
+        KIND[h] = kind;
+    }
+
+    /**
+     * Computes the slot of a word from its first character and length.
+     *
+     * @param first the first character of the word
+     * @param length the number of characters in the word
+     * @return the slot of the word in the table
+     */
+    static int hash(char first, int length)
+    {
+        return (first + LENGTH_MULTIPLIER * length) & (SIZE - 1);
+    }
+
+    /**
+     * Returns the only keyword that could be stored in a slot.
+     *
+     * @param h the slot returned by hash
+     * @return the keyword in the slot, or null if the slot is empty
+     */
+    static String candidate(int h)
+    {
+        return TEXT[h];
+    }
+
+    /**
+     * Returns the TokenKind of the keyword stored in a slot.
+     *
+     * @precondition candidate(h) is not null
+     * @param h the slot returned by hash
+     * @return the TokenKind of the keyword in the slot
+     */
+    static int kind(int h)
+    {
+        return KIND[h];
+    }
+}
@@ -1,5 +1,9 @@
 package scanner;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * scanner is a simple scanner for Compilers and Interpreters (2014-2015)
@@ -12,14 +16,36 @@ import java.io.*;
  * lexemes based on regular expressions for identifiers,
  * digits, and operators.
  *
- * @version 09/08/2019
+ * The scanner can be used in two ways. nextToken returns every token as
+ * a String. nextTokenKind instead returns a TokenKind code and leaves the
+ * token's start and end offsets in a reusable character buffer; numbers
+ * are converted to an int while they are scanned and the text of a token
+ * is only built when getTokenText is called.
+ *
+ * A scanner built from a Path maps the whole file into memory and scans
+ * its ASCII bytes directly, skipping the reader and charset decoding.
+ *
+ * @version 10/17/2026
  */
-public class Scanner
+public class Scanner implements TokenSource
 {
-    private BufferedReader in;
+    private static final int BUFFER_SIZE = 8192;
+
+    private Reader in;
     private char currentChar;
     private boolean eof;
 
+    private char[] buffer;
+    private ByteBuffer bytes;
+    private int pos;
+    private int limit;
+
+    private int tokenKind;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenValue;
+    private boolean tokenOverflow;
+
 
     /**
      * scanner constructor for construction of a scanner that
@@ -32,7 +58,8 @@ public class Scanner
      */
     public Scanner(InputStream inStream)
     {
-        in = new BufferedReader(new InputStreamReader(inStream));
+        in = new InputStreamReader(inStream);
+        buffer = new char[BUFFER_SIZE];
         eof = false;
         getNextChar();
     }
@@ -48,36 +75,109 @@ public class Scanner
      */
     public Scanner(String inString)
     {
-        in = new BufferedReader(new StringReader(inString));
+        in = new StringReader(inString);
+        buffer = new char[inString.length() + 1];
+        eof = false;
+        getNextChar();
+    }
+
+    /**
+     * scanner constructor for constructing a scanner that scans a file by
+     * mapping it into memory. The file is read as ASCII bytes without any
+     * charset decoding, and the mapping stays valid after the channel used
+     * to create it is closed.
+     * Usage: scanner lex = new scanner(Paths.get(<file name>));
+     *
+     * @param path the path of the file to scan
+     * @throws IOException if the file cannot be opened or is too large to map
+     */
+    public Scanner(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too large to map: " + path);
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        limit = bytes.limit();
         eof = false;
         getNextChar();
     }
 
     /**
      * Method: getNextChar
-     * Gets the next character from the input stream and sets it to
-     * the currentChar. If the end of file is reached, the eof
-     * boolean is set to true.
+     * Gets the next character from the input buffer and sets it to
+     * the currentChar, refilling the buffer from the input stream when it
+     * runs out. If the end of file is reached, the eof boolean is set to true.
      *
+     * @postcondition pos is the offset just past currentChar in the buffer
      */
     private void getNextChar()
     {
-        try
+        if (pos < limit || fill())
         {
-            int tempChar = in.read();
-            if (tempChar == -1)
-            {
-                eof = true;
-            }
+            if (bytes != null)
+                currentChar = (char) (bytes.get(pos++) & 0xFF);
             else
-                currentChar = (char) tempChar;
+                currentChar = buffer[pos++];
+        }
+        else
+            eof = true;
+    }
+
+    /**
+     * Reads the next block of characters from the input stream into the
+     * buffer. The characters of the token being scanned are first moved to
+     * the front of the buffer so that the token stays contiguous, and the
+     * buffer is doubled if the token already fills it.
+     *
+     * @precondition pos == limit
+     * @return true if at least one character was read, false at end of file
+     */
+    private boolean fill()
+    {
+        if (bytes != null)
+            return false;
+        int keep = limit - tokenStart;
+        if (tokenStart > 0)
+        {
+            System.arraycopy(buffer, tokenStart, buffer, 0, keep);
+            pos -= tokenStart;
+            tokenStart = 0;
+            limit = keep;
+        }
+        if (limit == buffer.length)
+        {
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        try
+        {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read <= 0)
+                return false;
+            limit += read;
+            return true;
         }
         catch (IOException e)
         {
             e.printStackTrace();
             System.exit(-1);
+            return false;
         }
+    }
 
+    /**
+     * Returns the buffer offset of currentChar, or the offset just past
+     * the last character once the end of file has been reached.
+     *
+     * @return the offset of the character the scanner is looking at
+     */
+    private int offset()
+    {
+        return eof ? pos : pos - 1;
     }
 
     /**
@@ -168,124 +268,152 @@ public class Scanner
     }
 
     /**
-     * Scans a number based on the regex (digit)(digit)*; if the regex is
-     * not met, the method returns a blank String
+     * Scans a number based on the regex (digit)(digit)* and converts it to
+     * an int in place, storing the value in tokenValue. A number too large
+     * for an int is still scanned, but it is marked with tokenOverflow.
      *
-     * @return a String based on the regular expression (digit)(digit)*
-     * or an empty String
+     * @precondition currentChar is a digit
+     * @return TokenKind.NUMBER
      * @throws ScanErrorException An exception that is thrown when
      * the eat method does not eat the currentChar
      */
-    private String scanNumber() throws ScanErrorException
+    private int scanNumber() throws ScanErrorException
     {
-        String ret = "";
-        if (isDigit(currentChar))
+        int value = currentChar - '0';
+        boolean overflow = false;
+        eat(currentChar);
+        while (hasNext() && isDigit(currentChar))
         {
-            ret += currentChar;
+            int digit = currentChar - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10)
+                overflow = true;
+            value = value * 10 + digit;
             eat(currentChar);
-            while (hasNext() && isDigit(currentChar))
-            {
-                ret+= currentChar;
-                eat(currentChar);
-            }
         }
-        return ret;
+        tokenValue = value;
+        tokenOverflow = overflow;
+        return TokenKind.NUMBER;
     }
 
     /**
-     * Scans an identifier based on the regex (letter)(letter | digit)*; if the regex is
-     * not met, the method returns a blank String
+     * Scans an identifier based on the regex (letter)(letter | digit)*. The
+     * text of the identifier is left in the buffer, and the identifier is
+     * classified as a keyword or a plain identifier.
      *
-     * @return a String based on the regular expression (letter)(letter | digit)*
-     * or an empty String
+     * @precondition currentChar is a letter
+     * @return the TokenKind of the keyword, or TokenKind.IDENTIFIER
      * @throws ScanErrorException An exception that is thrown when
      * the eat method does not eat the currentChar
      */
-    private String scanIdentifier() throws ScanErrorException
+    private int scanIdentifier() throws ScanErrorException
     {
-        String ret = "";
-        if (isLetter(currentChar))
+        eat(currentChar);
+        while (hasNext() && (isDigit(currentChar) || isLetter(currentChar)))
         {
-            ret += currentChar;
             eat(currentChar);
-            while (hasNext() && (isDigit(currentChar) || isLetter(currentChar)))
-            {
-                ret+= currentChar;
-                eat(currentChar);
-            }
         }
-        return ret;
+        return classifyIdentifier(tokenStart, offset());
     }
 
     /**
-     * Scans an identifier based on the regex ( = | + | - | * | / | % | ( | ) | > | < | . );
-     * if the regex is not met, the method returns a blank String
+     * Looks up the word between two buffer offsets in the Keywords perfect
+     * hash table. Only the single keyword in the word's slot is compared.
      *
-     * @return a String based on the regular expression
-     * ( = | + | - | * | / | % | ( | ) | > | < | . ) or an empty String
+     * @param start the offset of the first character of the word
+     * @param end the offset just past the last character of the word
+     * @return the TokenKind of the keyword, or TokenKind.IDENTIFIER
+     */
+    private int classifyIdentifier(int start, int end)
+    {
+        int length = end - start;
+        int h = Keywords.hash(charAt(start), length);
+        String keyword = Keywords.candidate(h);
+        if (keyword == null || keyword.length() != length)
+            return TokenKind.IDENTIFIER;
+        for (int i = 0; i < length; i++)
+        {
+            if (charAt(start + i) != keyword.charAt(i))
+                return TokenKind.IDENTIFIER;
+        }
+        return Keywords.kind(h);
+    }
+
+    /**
+     * Scans an operator based on the regex ( + | - | * | / | % | ( | ) | . | , ).
+     * A period marks the end of the program, so it sets the end-of-file flag
+     * without reading any further.
+     *
+     * @return the TokenKind of the operator
      * @throws ScanErrorException An exception that is thrown when
-     * the eat method does not eat the currentChar
+     * the currentChar is not an operator
      */
-    private String scanOperator() throws ScanErrorException
+    private int scanOperator() throws ScanErrorException
     {
-        if (currentChar == '+' || currentChar == '-' ||
-                currentChar == '*' || currentChar == '/' || currentChar == '%' ||
-                currentChar == '(' || currentChar == ')' || currentChar == '.' ||
-                currentChar == ',')
+        int kind;
+        if (currentChar == '+')
+            kind = TokenKind.PLUS;
+        else if (currentChar == '-')
+            kind = TokenKind.MINUS;
+        else if (currentChar == '*')
+            kind = TokenKind.TIMES;
+        else if (currentChar == '/')
+            kind = TokenKind.DIVIDE;
+        else if (currentChar == '%')
+            kind = TokenKind.MOD;
+        else if (currentChar == '(')
+            kind = TokenKind.LEFT_PAREN;
+        else if (currentChar == ')')
+            kind = TokenKind.RIGHT_PAREN;
+        else if (currentChar == ',')
+            kind = TokenKind.COMMA;
+        else if (currentChar == '.')
         {
-            if (currentChar == '.')
-            {
-                eof = true;
-                return ".";
-            }
-            char ret = currentChar;
-            eat(currentChar);
-            return Character.toString(ret);
+            eof = true;
+            return TokenKind.PERIOD;
         }
         else
             throw new ScanErrorException("Unrecognized character");
+        eat(currentChar);
+        return kind;
     }
 
     /**
      * Scans a valid relational operator defined by the grammar.
      *
-     * @return a String of the relational operator
+     * @return the TokenKind of the relational operator
      * @throws ScanErrorException if eaten char does not match currentChar
      */
-    private String scanRelOperator() throws ScanErrorException
+    private int scanRelOperator() throws ScanErrorException
     {
-        if (currentChar == '=' || currentChar == '>' || currentChar == '<')
+        if (currentChar == '=')
+        {
+            eat(currentChar);
+            return TokenKind.EQUAL;
+        }
+        else if (currentChar == '>')
         {
-            if (currentChar == '=')
+            eat(currentChar);
+            if (hasNext() && currentChar == '=')
             {
-                eat(currentChar);
-                return "=";
+                eat('=');
+                return TokenKind.GREATER_EQUAL;
             }
-            else if (currentChar == '>')
+            return TokenKind.GREATER;
+        }
+        else if (currentChar == '<')
+        {
+            eat(currentChar);
+            if (hasNext() && currentChar == '>')
             {
                 eat(currentChar);
-                if (currentChar == '=')
-                {
-                    eat('=');
-                    return ">=";
-                }
-                return ">";
+                return TokenKind.NOT_EQUAL;
             }
-            else
+            else if (hasNext() && currentChar == '=')
             {
                 eat(currentChar);
-                if (currentChar == '>')
-                {
-                    eat(currentChar);
-                    return "<>";
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    return "<=";
-                }
-                return "<";
+                return TokenKind.LESS_EQUAL;
             }
+            return TokenKind.LESS;
         }
         throw new ScanErrorException("RelOp Expected.");
     }
@@ -303,63 +431,182 @@ public class Scanner
     }
 
     /**
-     * Scans a special character based on the regex defined in the method isSpecial; if
-     * the regex is not met, the method returns a blank String
+     * Scans a special character based on the regex defined in the method isSpecial.
      *
-     * @return a String based on the regular expression from isSpecial()
-     * or an empty String
+     * @return the TokenKind of the special character
      * @throws ScanErrorException An exception that is thrown when
-     * the eat method does not eat the currentChar
+     * the currentChar is not a special character
      */
-    private String scanSpecial() throws ScanErrorException
+    private int scanSpecial() throws ScanErrorException
     {
-        if (isSpecial(currentChar))
+        if (currentChar == ':')
         {
-            if (currentChar == ':')
+            eat(currentChar);
+            if (hasNext() && currentChar == '=')
             {
-                eat(currentChar);
-                if (currentChar == '=')
-                {
-                    eat('=');
-                    return ":=";
-                }
-                return ":";
+                eat('=');
+                return TokenKind.ASSIGN;
             }
-            char ret = currentChar;
-            eat(currentChar);
-            return Character.toString(ret);
+            return TokenKind.COLON;
         }
+        int kind;
+        if (currentChar == ';')
+            kind = TokenKind.SEMICOLON;
+        else if (currentChar == '$')
+            kind = TokenKind.DOLLAR;
+        else if (currentChar == '^')
+            kind = TokenKind.CARET;
+        else if (currentChar == '@')
+            kind = TokenKind.AT;
         else
             throw new ScanErrorException("Unrecognized Special Character");
+        eat(currentChar);
+        return kind;
     }
 
     /**
-     * Method: nextToken
-     * Returns the next Token based on a regex defining an identifier, digit, operator, or
-     * special character. Returns "END" if the stream is at the end of file.
+     * Method: nextTokenKind
+     * Scans the next token and returns its TokenKind without building a String.
+     * The token occupies the characters from getTokenStart() up to getTokenEnd()
+     * in getBuffer(), and the value of a number is available from
+     * getTokenValue(). Returns TokenKind.EOF if the stream is at the end of file.
      *
-     * @return the next Token produced by the scanner based on the currentChar
-     * @throws ScanErrorException when the eaten character does not match the currentChar
+     * @return the TokenKind of the next token
+     * @throws ScanErrorException when the next character does not start a token
      */
-    public String nextToken() throws ScanErrorException
+    public int nextTokenKind() throws ScanErrorException
     {
-        if (eof)
-            return "END";
+        tokenStart = offset();
         while (hasNext() && isWhiteSpace(currentChar))
         {
+            tokenStart = pos;
             eat(currentChar);
         }
+        if (eof)
+        {
+            tokenStart = offset();
+            tokenEnd = tokenStart;
+            tokenKind = TokenKind.EOF;
+            return tokenKind;
+        }
+        tokenStart = pos - 1;
         if (isDigit(currentChar))
-            return scanNumber();
+            tokenKind = scanNumber();
         else if (isLetter(currentChar))
-            return scanIdentifier();
+            tokenKind = scanIdentifier();
         else if (isSpecial(currentChar))
-            return scanSpecial();
+            tokenKind = scanSpecial();
         else if (isRelOperator())
-            return scanRelOperator();
-        else if (eof)
-            return "END";
+            tokenKind = scanRelOperator();
         else
-            return scanOperator();
+            tokenKind = scanOperator();
+        tokenEnd = tokenKind == TokenKind.PERIOD ? tokenStart + 1 : offset();
+        return tokenKind;
+    }
+
+    /**
+     * Returns the TokenKind of the token most recently scanned by nextTokenKind.
+     *
+     * @return the instance field tokenKind
+     */
+    public int getTokenKind()
+    {
+        return tokenKind;
+    }
+
+    /**
+     * Returns the buffer holding the text of the current token. The buffer is
+     * reused, so its contents are only valid until the next call to
+     * nextTokenKind. A scanner reading a mapped file has no character buffer;
+     * use charAt instead.
+     *
+     * @return the instance field buffer, or null for a mapped file
+     */
+    public char[] getBuffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * Returns the offset of the first character of the current token in the buffer.
+     *
+     * @return the instance field tokenStart
+     */
+    public int getTokenStart()
+    {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the offset just past the last character of the current token
+     * in the buffer.
+     *
+     * @return the instance field tokenEnd
+     */
+    public int getTokenEnd()
+    {
+        return tokenEnd;
+    }
+
+    /**
+     * Returns the value of the current token if it is a number.
+     *
+     * @precondition the current token is a TokenKind.NUMBER
+     * @return the instance field tokenValue
+     * @throws ScanErrorException if the number does not fit in an int
+     */
+    public int getTokenValue() throws ScanErrorException
+    {
+        if (tokenOverflow)
+            throw new ScanErrorException("Integer literal out of range");
+        return tokenValue;
+    }
+
+    /**
+     * Returns the input character at a given offset, reading from either the
+     * character buffer or the mapped file.
+     *
+     * @precondition offset is between getTokenStart() and getTokenEnd()
+     * @param offset the offset of the character
+     * @return the character at the offset
+     */
+    public char charAt(int offset)
+    {
+        if (bytes != null)
+            return (char) (bytes.get(offset) & 0xFF);
+        return buffer[offset];
+    }
+
+    /**
+     * Builds the text of the current token. Operators and keywords share
+     * their fixed text, so only numbers and identifiers create a new String.
+     *
+     * @return the text of the token most recently scanned by nextTokenKind
+     */
+    public String getTokenText()
+    {
+        String text = TokenKind.text(tokenKind);
+        if (text != null)
+            return text;
+        if (bytes == null)
+            return new String(buffer, tokenStart, tokenEnd - tokenStart);
+        char[] chars = new char[tokenEnd - tokenStart];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = (char) (bytes.get(tokenStart + i) & 0xFF);
+        return new String(chars);
+    }
+
+    /**
+     * Method: nextToken
+     * Returns the next Token based on a regex defining an identifier, digit, operator, or
+     * special character. Returns "END" if the stream is at the end of file.
+     *
+     * @return the next Token produced by the scanner based on the currentChar
+     * @throws ScanErrorException when the eaten character does not match the currentChar
+     */
+    public String nextToken() throws ScanErrorException
+    {
+        nextTokenKind();
+        return getTokenText();
     }
 }
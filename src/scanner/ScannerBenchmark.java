@@ -0,0 +1,319 @@
+package scanner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times the Scanner against the TableScanner on the same file. Both read
+ * the file through a memory mapping, so only the lexing differs. It then
+ * times the TableScanner with and without bulk skipping on generated
+ * whitespace-heavy and identifier-heavy inputs, and finally lexes the file
+ * into a TokenBuffer sequentially and in parallel chunks, re-lexes it
+ * after a one-line edit, and drains it through a TokenPipeline, checking
+ * that the pipeline delivers the same tokens as the Scanner.
+ *
+ * Usage: java scanner.ScannerBenchmark [file]
+ * Without a file, a few megabytes of generated source are used.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class ScannerBenchmark
+{
+    private static final int ROUNDS = 15;
+
+    public static void main(String[] args) throws Exception
+    {
+        Path path;
+        if (args.length > 0)
+            path = Paths.get(args[0]);
+        else
+        {
+            path = Files.createTempFile("scanner", ".txt");
+            path.toFile().deleteOnExit();
+            Files.write(path, generate(40000).getBytes(StandardCharsets.US_ASCII));
+        }
+        long size = Files.size(path);
+
+        long scannerBest = Long.MAX_VALUE;
+        long tableBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            int scanned = count(new Scanner(path));
+            scannerBest = Math.min(scannerBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int tabled = count(new TableScanner(path));
+            tableBest = Math.min(tableBest, System.nanoTime() - start);
+
+            if (scanned != tabled)
+                throw new IllegalStateException("Token counts differ: " + scanned + " and " + tabled);
+        }
+        report("Scanner", size, scannerBest);
+        report("TableScanner", size, tableBest);
+        System.out.printf("speedup: %.2fx%n", (double) scannerBest / tableBest);
+
+        compareBulkSkip("whitespace-heavy", generateIndented(4000000));
+        compareBulkSkip("identifier-heavy", generateLongNames(400000));
+        compareParallel(path);
+        compareEdit(path);
+        comparePipeline(path);
+    }
+
+    /**
+     * Times draining the Scanner on this thread against draining a
+     * TokenPipeline that runs the Scanner on its own thread, and checks
+     * that both give the same kind and text for every token.
+     *
+     * @param path the file to scan
+     * @throws Exception if the file cannot be read or scanned
+     */
+    private static void comparePipeline(Path path) throws Exception
+    {
+        long scannerBest = Long.MAX_VALUE;
+        long pipelineBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            int scanned = count(new Scanner(path));
+            scannerBest = Math.min(scannerBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int piped;
+            try (TokenPipeline tokens = new TokenPipeline(new Scanner(path)))
+            {
+                piped = count(tokens);
+            }
+            pipelineBest = Math.min(pipelineBest, System.nanoTime() - start);
+
+            if (scanned != piped)
+                throw new IllegalStateException("Token counts differ: " + scanned + " and " + piped);
+        }
+
+        Scanner scanner = new Scanner(path);
+        try (TokenPipeline tokens = new TokenPipeline(new Scanner(path)))
+        {
+            int kind;
+            int index = 0;
+            do
+            {
+                kind = scanner.nextTokenKind();
+                if (tokens.nextTokenKind() != kind ||
+                        !tokens.getTokenText().equals(scanner.getTokenText()))
+                    throw new IllegalStateException("Pipeline differs at token " + index +
+                            ": " + scanner.getTokenText() + " and " + tokens.getTokenText());
+                index++;
+            }
+            while (kind != TokenKind.EOF);
+        }
+
+        long size = Files.size(path);
+        System.out.println("TokenPipeline, same tokens as the Scanner:");
+        report("  Scanner", size, scannerBest);
+        report("  pipeline", size, pipelineBest);
+    }
+
+    /**
+     * Times lexing a whole file into a TokenBuffer against re-lexing the
+     * buffer after one line in the middle of the file is changed.
+     *
+     * @param path the file to lex
+     * @throws Exception if the file cannot be read or lexed
+     */
+    private static void compareEdit(Path path) throws Exception
+    {
+        TokenBuffer tokens = TokenBuffer.lex(path);
+        int middle = tokens.startAt(tokens.size() / 2);
+        String inserted = "\n\tcount := count * 3;";
+
+        long lexBest = Long.MAX_VALUE;
+        long editBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            TokenBuffer.lex(path);
+            lexBest = Math.min(lexBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            tokens.edit(middle, 0, inserted);
+            editBest = Math.min(editBest, System.nanoTime() - start);
+        }
+        System.out.println("TokenBuffer after a one-line edit:");
+        System.out.printf("  full lex  %10.3f ms%n", lexBest / 1e6);
+        System.out.printf("  edit      %10.3f ms%n", editBest / 1e6);
+    }
+
+    /**
+     * Times lexing a file into a TokenBuffer on one thread against lexing
+     * it in chunks on the common ForkJoinPool.
+     *
+     * @param path the file to lex
+     * @throws Exception if the file cannot be read or lexed
+     */
+    private static void compareParallel(Path path) throws Exception
+    {
+        long sequentialBest = Long.MAX_VALUE;
+        long parallelBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            int sequential = TokenBuffer.lex(path).size();
+            sequentialBest = Math.min(sequentialBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int parallel = TokenBuffer.lexParallel(path).size();
+            parallelBest = Math.min(parallelBest, System.nanoTime() - start);
+
+            if (sequential != parallel)
+                throw new IllegalStateException("Token counts differ: " + sequential + " and " + parallel);
+        }
+        long size = Files.size(path);
+        System.out.println("TokenBuffer on " + ForkJoinPool.commonPool().getParallelism() +
+                " worker threads:");
+        report("  sequential", size, sequentialBest);
+        report("  parallel", size, parallelBest);
+        System.out.printf("  speedup: %.2fx%n", (double) sequentialBest / parallelBest);
+    }
+
+    /**
+     * Times the TableScanner with bulk skipping off and on over the same input.
+     *
+     * @param name the name of the input
+     * @param source the input to scan
+     * @throws Exception if the input cannot be written or scanned
+     */
+    private static void compareBulkSkip(String name, String source) throws Exception
+    {
+        Path path = Files.createTempFile("scanner", ".txt");
+        path.toFile().deleteOnExit();
+        Files.write(path, source.getBytes(StandardCharsets.US_ASCII));
+
+        long scalarBest = Long.MAX_VALUE;
+        long bulkBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            TableScanner scalar = new TableScanner(path);
+            long start = System.nanoTime();
+            int scanned = count(scalar);
+            scalarBest = Math.min(scalarBest, System.nanoTime() - start);
+
+            TableScanner bulk = new TableScanner(path);
+            bulk.setBulkSkip(true);
+            start = System.nanoTime();
+            int skipped = count(bulk);
+            bulkBest = Math.min(bulkBest, System.nanoTime() - start);
+
+            if (scanned != skipped)
+                throw new IllegalStateException("Token counts differ: " + scanned + " and " + skipped);
+        }
+        System.out.println(name + ":");
+        report("  per byte", source.length(), scalarBest);
+        report("  bulk skip", source.length(), bulkBest);
+        System.out.printf("  speedup: %.2fx%n", (double) scalarBest / bulkBest);
+    }
+
+    /**
+     * Scans every token of a source and returns how many there were.
+     *
+     * @param source the TokenSource to drain
+     * @return the number of tokens before the end of the input
+     * @throws ScanErrorException if the input cannot be scanned
+     */
+    private static int count(TokenSource source) throws ScanErrorException
+    {
+        int tokens = 0;
+        while (source.nextTokenKind() != TokenKind.EOF)
+            tokens++;
+        return tokens;
+    }
+
+    /**
+     * Prints the best time and throughput of one scanner.
+     *
+     * @param name the name of the scanner
+     * @param bytes the size of the input
+     * @param nanos the best time of all the rounds
+     */
+    private static void report(String name, long bytes, long nanos)
+    {
+        System.out.printf("%-14s %8.2f ms %8.1f MB/s%n", name, nanos / 1e6,
+                bytes / (nanos / 1e9) / (1 << 20));
+    }
+
+    /**
+     * Generates an indented program with the given number of procedures,
+     * shaped like the parserTest files.
+     *
+     * @param procedures the number of procedures to generate
+     * @return the source of the program
+     */
+    static String generate(int procedures)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("VAR ignore, total, count;\n");
+        for (int i = 0; i < procedures; i++)
+        {
+            sb.append("PROCEDURE proc").append(i).append("(first, second);\n");
+            sb.append("BEGIN\n");
+            sb.append("\tcount := 0;\n");
+            sb.append("\tWHILE count <= second DO\n");
+            sb.append("\tBEGIN\n");
+            sb.append("\t\ttotal := total + first * (count - 1) / 2;\n");
+            sb.append("\t\tIF total <> 12345 THEN WRITELN(total);\n");
+            sb.append("\t\tcount := count + 1;\n");
+            sb.append("\tEND;\n");
+            sb.append("END;\n");
+        }
+        sb.append("BEGIN\n\tignore := proc0(3, 4);\nEND;\n.");
+        return sb.toString();
+    }
+
+    /**
+     * Generates statements that are each indented by a long run of tabs
+     * and spaces, so most of the input is whitespace.
+     *
+     * @param bytes the approximate size of the source
+     * @return the source
+     */
+    static String generateIndented(int bytes)
+    {
+        StringBuilder sb = new StringBuilder("BEGIN\n");
+        int depth = 0;
+        while (sb.length() < bytes)
+        {
+            depth = (depth + 7) % 48;
+            sb.append('\n');
+            for (int i = 0; i < depth; i++)
+                sb.append(i % 5 == 4 ? ' ' : '\t');
+            sb.append("x := x + 1;\n");
+        }
+        sb.append("END;\n.");
+        return sb.toString();
+    }
+
+    /**
+     * Generates assignments between long identifiers and numbers, so most
+     * of the input is identifier and digit runs.
+     *
+     * @param bytes the approximate size of the source
+     * @return the source
+     */
+    static String generateLongNames(int bytes)
+    {
+        StringBuilder sb = new StringBuilder("BEGIN\n");
+        int n = 0;
+        while (sb.length() < bytes)
+        {
+            sb.append("accumulatedTotalForIteration").append(n % 997)
+                    .append(" := previousRunningValueOfCounter").append(n % 991)
+                    .append(" + 1234567890").append(n % 10).append(";\n");
+            n++;
+        }
+        sb.append("END;\n.");
+        return sb.toString();
+    }
+}
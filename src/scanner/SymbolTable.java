@@ -0,0 +1,88 @@
+package scanner;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SymbolTable maps every identifier to a dense int id, starting at 0, the
+ * first time it is interned. It is global: the same name always gets the
+ * same id, whichever source, thread or phase interns it, so the Parser,
+ * the Environment and the Emitter can all key on ids instead of Strings
+ * and look names up by indexing arrays.
+ *
+ * Looking up a name that is already interned takes no lock. Interning a
+ * new name takes a lock, so ids stay dense when many threads intern at
+ * once, such as the chunks of TokenBuffer.lexParallel. Which of two new
+ * names interned at the same time gets the smaller id is not defined.
+ *
+ * Usage: int id = SymbolTable.intern("count");
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public final class SymbolTable
+{
+    private static final ConcurrentHashMap<String, Integer> IDS =
+            new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] names = new String[256];
+    private static volatile int count;
+
+    /**
+     * SymbolTable only holds static methods and is never instantiated.
+     */
+    private SymbolTable()
+    {
+    }
+
+    /**
+     * Returns the id of a name, giving it the next free id the first time
+     * it is seen.
+     *
+     * @param name the identifier
+     * @return the id of the identifier
+     */
+    public static int intern(String name)
+    {
+        Integer id = IDS.get(name);
+        if (id != null)
+            return id;
+        synchronized (IDS)
+        {
+            id = IDS.get(name);
+            if (id != null)
+                return id;
+            String[] table = names;
+            if (count == table.length)
+                table = Arrays.copyOf(table, count * 2);
+            table[count] = name;
+            names = table;
+            id = count;
+            count = id + 1;
+            IDS.put(name, id);
+            return id;
+        }
+    }
+
+    /**
+     * Returns the name of an id.
+     *
+     * @precondition id was returned by intern
+     * @param id the id of an identifier
+     * @return the identifier
+     */
+    public static String name(int id)
+    {
+        return names[id];
+    }
+
+    /**
+     * Returns the number of names interned so far. Every id is smaller
+     * than this, so it is the size of an array indexed by id.
+     *
+     * @return the static field count
+     */
+    public static int size()
+    {
+        return count;
+    }
+}
@@ -0,0 +1,469 @@
+package scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TableScanner is a table-driven version of the Scanner for input that is
+ * already in memory. Instead of the isDigit, isLetter, isSpecial and
+ * scanOperator chains, every byte is mapped to a character class by a
+ * 128-entry table and the next state is read from a transition table, so
+ * the inner loop does the same two lookups for every byte. The states
+ * cover maximal munch for :=, <=, <> and >=. Leading whitespace is folded
+ * into the tables too: a third lookup by state says how far it moves the
+ * start of the token, so the only way the loop stops early is the STOP
+ * state. The loop still compares its position with the end of the input
+ * before every byte, because a mapped file has no room for a sentinel
+ * byte after its end, and a STOP check remains because Java has no
+ * computed exit from a loop.
+ *
+ * It produces exactly the same tokens, values and errors as the Scanner.
+ *
+ * With setBulkSkip(true), runs of whitespace, identifier characters and
+ * digits are skipped eight bytes at a time by ByteRuns instead of going
+ * through the tables one byte at a time. This pays off on heavily indented
+ * input and long names; the tokens produced are the same either way. Bulk
+ * skipping is a separate loop, since deciding which runs to skip is a
+ * branch on the state after every byte.
+ *
+ * Usage: TableScanner lex = new TableScanner(Paths.get(<file name>));
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class TableScanner implements TokenSource
+{
+    // character classes
+    private static final int OTHER = 0;
+    private static final int SPACE = 1;
+    private static final int LETTER = 2;
+    private static final int DIGIT = 3;
+    private static final int COLON = 4;
+    private static final int LESS = 5;
+    private static final int GREATER = 6;
+    private static final int EQUAL = 7;
+    private static final int PERIOD = 8;
+    private static final int SINGLE = 9;
+    private static final int CLASSES = 10;
+
+    // states, each numbered by the offset of its row in NEXT; STOP means
+    // the token ended before the current byte
+    private static final int STOP = -1;
+    private static final int START = 0;
+    private static final int IN_IDENTIFIER = CLASSES;
+    private static final int IN_NUMBER = 2 * CLASSES;
+    private static final int AFTER_COLON = 3 * CLASSES;
+    private static final int AFTER_ASSIGN = 4 * CLASSES;
+    private static final int AFTER_LESS = 5 * CLASSES;
+    private static final int AFTER_LESS_EQUAL = 6 * CLASSES;
+    private static final int AFTER_NOT_EQUAL = 7 * CLASSES;
+    private static final int AFTER_GREATER = 8 * CLASSES;
+    private static final int AFTER_GREATER_EQUAL = 9 * CLASSES;
+    private static final int AFTER_EQUAL = 10 * CLASSES;
+    private static final int AFTER_SINGLE = 11 * CLASSES;
+    private static final int AFTER_PERIOD = 12 * CLASSES;
+    private static final int INVALID = 13 * CLASSES;
+    private static final int STATES = 14;
+
+    private static final byte[] CLASS = new byte[128];
+    private static final int[] SINGLE_KIND = new int[128];
+    private static final int[] NEXT = new int[STATES * CLASSES];
+    private static final int[] ACCEPT = new int[STATES * CLASSES];
+    private static final int[] LEADING = new int[STATES * CLASSES];
+
+    static
+    {
+        CLASS[' '] = SPACE;
+        CLASS['\t'] = SPACE;
+        CLASS['\n'] = SPACE;
+        CLASS['\r'] = SPACE;
+        for (char c = 'a'; c <= 'z'; c++)
+            CLASS[c] = LETTER;
+        for (char c = 'A'; c <= 'Z'; c++)
+            CLASS[c] = LETTER;
+        for (char c = '0'; c <= '9'; c++)
+            CLASS[c] = DIGIT;
+        CLASS[':'] = COLON;
+        CLASS['<'] = LESS;
+        CLASS['>'] = GREATER;
+        CLASS['='] = EQUAL;
+        CLASS['.'] = PERIOD;
+        single('+', TokenKind.PLUS);
+        single('-', TokenKind.MINUS);
+        single('*', TokenKind.TIMES);
+        single('/', TokenKind.DIVIDE);
+        single('%', TokenKind.MOD);
+        single('(', TokenKind.LEFT_PAREN);
+        single(')', TokenKind.RIGHT_PAREN);
+        single(',', TokenKind.COMMA);
+        single(';', TokenKind.SEMICOLON);
+        single('$', TokenKind.DOLLAR);
+        single('^', TokenKind.CARET);
+        single('@', TokenKind.AT);
+
+        for (int i = 0; i < NEXT.length; i++)
+            NEXT[i] = STOP;
+        NEXT[START + OTHER] = INVALID;
+        NEXT[START + SPACE] = START;
+        NEXT[START + LETTER] = IN_IDENTIFIER;
+        NEXT[START + DIGIT] = IN_NUMBER;
+        NEXT[START + COLON] = AFTER_COLON;
+        NEXT[START + LESS] = AFTER_LESS;
+        NEXT[START + GREATER] = AFTER_GREATER;
+        NEXT[START + EQUAL] = AFTER_EQUAL;
+        NEXT[START + PERIOD] = AFTER_PERIOD;
+        NEXT[START + SINGLE] = AFTER_SINGLE;
+        NEXT[IN_IDENTIFIER + LETTER] = IN_IDENTIFIER;
+        NEXT[IN_IDENTIFIER + DIGIT] = IN_IDENTIFIER;
+        NEXT[IN_NUMBER + DIGIT] = IN_NUMBER;
+        NEXT[AFTER_COLON + EQUAL] = AFTER_ASSIGN;
+        NEXT[AFTER_LESS + EQUAL] = AFTER_LESS_EQUAL;
+        NEXT[AFTER_LESS + GREATER] = AFTER_NOT_EQUAL;
+        NEXT[AFTER_GREATER + EQUAL] = AFTER_GREATER_EQUAL;
+
+        ACCEPT[IN_IDENTIFIER] = TokenKind.IDENTIFIER;
+        ACCEPT[IN_NUMBER] = TokenKind.NUMBER;
+        ACCEPT[AFTER_COLON] = TokenKind.COLON;
+        ACCEPT[AFTER_ASSIGN] = TokenKind.ASSIGN;
+        ACCEPT[AFTER_LESS] = TokenKind.LESS;
+        ACCEPT[AFTER_LESS_EQUAL] = TokenKind.LESS_EQUAL;
+        ACCEPT[AFTER_NOT_EQUAL] = TokenKind.NOT_EQUAL;
+        ACCEPT[AFTER_GREATER] = TokenKind.GREATER;
+        ACCEPT[AFTER_GREATER_EQUAL] = TokenKind.GREATER_EQUAL;
+        ACCEPT[AFTER_EQUAL] = TokenKind.EQUAL;
+        ACCEPT[AFTER_PERIOD] = TokenKind.PERIOD;
+
+        // a byte that leaves the scanner in START was leading whitespace,
+        // and the token starts after it
+        LEADING[START] = 1;
+    }
+
+    private ByteBuffer bytes;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean bulkSkip;
+
+    private int tokenKind;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Constructs a TableScanner that scans a file by mapping it into memory.
+     *
+     * @param path the path of the file to scan
+     * @throws IOException if the file cannot be opened or is too large to map
+     */
+    public TableScanner(Path path) throws IOException
+    {
+        this(map(path));
+    }
+
+    /**
+     * Constructs a TableScanner that scans a String. Characters outside of
+     * ASCII are not part of any token, so they are scanned as invalid bytes.
+     *
+     * @param inString the string to scan
+     */
+    public TableScanner(String inString)
+    {
+        this(ByteBuffer.wrap(inString.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    /**
+     * Constructs a TableScanner that scans the bytes of a buffer from its
+     * position up to its limit. The scanner reads through a big-endian view
+     * of the buffer and never changes the buffer itself.
+     *
+     * @param input the bytes to scan
+     */
+    public TableScanner(ByteBuffer input)
+    {
+        bytes = input.duplicate().order(ByteOrder.BIG_ENDIAN);
+        pos = input.position();
+        limit = input.limit();
+    }
+
+    /**
+     * Maps a whole file into memory for reading.
+     *
+     * @param path the path of the file to map
+     * @return the bytes of the file
+     * @throws IOException if the file cannot be opened or is too large to map
+     */
+    static ByteBuffer map(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too large to map: " + path);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Copies the whole input of this scanner with an edit applied.
+     * Characters outside of ASCII in the inserted text become invalid bytes,
+     * just as they do in the String constructor.
+     *
+     * @param offset the offset of the first character removed
+     * @param removed the number of characters removed
+     * @param inserted the text inserted at offset
+     * @return the edited input, positioned at its first byte
+     */
+    ByteBuffer edited(int offset, int removed, String inserted)
+    {
+        byte[] text = inserted.getBytes(StandardCharsets.ISO_8859_1);
+        int tail = limit - offset - removed;
+        byte[] result = new byte[offset + text.length + tail];
+        ByteBuffer in = bytes.duplicate();
+        in.limit(limit).position(0);
+        in.get(result, 0, offset);
+        System.arraycopy(text, 0, result, offset, text.length);
+        in.position(offset + removed);
+        in.get(result, offset + text.length, tail);
+        return ByteBuffer.wrap(result);
+    }
+
+    /**
+     * Marks a character as a token on its own and records its kind.
+     *
+     * @param c the character
+     * @param kind the TokenKind of the character
+     */
+    private static void single(char c, int kind)
+    {
+        CLASS[c] = SINGLE;
+        SINGLE_KIND[c] = kind;
+    }
+
+    /**
+     * Returns the character class of a byte. Bytes outside of ASCII are
+     * negative and are masked to OTHER without a branch.
+     *
+     * @param b the byte
+     * @return the character class of the byte
+     */
+    private static int classOf(byte b)
+    {
+        return CLASS[b & 0x7F] & ~(b >> 31);
+    }
+
+    /**
+     * Turns bulk skipping of whitespace, identifier and digit runs on or off.
+     *
+     * @param bulk true to skip runs eight bytes at a time, false to use the
+     *             tables for every byte
+     */
+    public void setBulkSkip(boolean bulk)
+    {
+        bulkSkip = bulk;
+    }
+
+    /**
+     * Returns whether or not the input has more characters to scan.
+     *
+     * @return true if the end of the input has not been reached
+     */
+    public boolean hasNext()
+    {
+        return !eof && pos < limit;
+    }
+
+    /**
+     * Scans the next token by running the transition table until it stops,
+     * then maps the final state to a TokenKind. Returns TokenKind.EOF if the
+     * input is exhausted.
+     *
+     * @return the TokenKind of the next token
+     * @throws ScanErrorException when the next character does not start a token
+     */
+    public int nextTokenKind() throws ScanErrorException
+    {
+        if (eof)
+        {
+            tokenStart = pos;
+            tokenEnd = pos;
+            tokenKind = TokenKind.EOF;
+            return tokenKind;
+        }
+        ByteBuffer in = bytes;
+        int p = pos;
+        int state = START;
+        int start;
+        if (bulkSkip)
+        {
+            p = ByteRuns.skipSpaces(in, p, limit);
+            start = p;
+            while (p < limit)
+            {
+                int next = NEXT[state + classOf(in.get(p))];
+                if (next == STOP)
+                    break;
+                start += LEADING[next];
+                state = next;
+                p++;
+                if (state == IN_IDENTIFIER)
+                    p = ByteRuns.skipWord(in, p, limit);
+                else if (state == IN_NUMBER)
+                    p = ByteRuns.skipDigits(in, p, limit);
+            }
+        }
+        else
+        {
+            start = p;
+            while (p < limit)
+            {
+                int next = NEXT[state + classOf(in.get(p))];
+                if (next == STOP)
+                    break;
+                start += LEADING[next];
+                state = next;
+                p++;
+            }
+        }
+        tokenStart = start;
+        tokenEnd = p;
+
+        if (state == START)
+        {
+            pos = p;
+            tokenStart = p;
+            tokenKind = TokenKind.EOF;
+        }
+        else if (state == INVALID)
+        {
+            pos = start;
+            throw new ScanErrorException("Unrecognized character");
+        }
+        else if (state == IN_IDENTIFIER)
+        {
+            pos = p;
+            tokenKind = classifyIdentifier(start, p);
+        }
+        else if (state == AFTER_SINGLE)
+        {
+            pos = p;
+            tokenKind = SINGLE_KIND[in.get(start)];
+        }
+        else if (state == AFTER_PERIOD)
+        {
+            pos = start;
+            eof = true;
+            tokenKind = TokenKind.PERIOD;
+        }
+        else
+        {
+            pos = p;
+            tokenKind = ACCEPT[state];
+        }
+        return tokenKind;
+    }
+
+    /**
+     * Looks up the word between two offsets in the Keywords perfect hash
+     * table, exactly as the Scanner does.
+     *
+     * @param start the offset of the first byte of the word
+     * @param end the offset just past the last byte of the word
+     * @return the TokenKind of the keyword, or TokenKind.IDENTIFIER
+     */
+    private int classifyIdentifier(int start, int end)
+    {
+        int length = end - start;
+        int h = Keywords.hash((char) bytes.get(start), length);
+        String keyword = Keywords.candidate(h);
+        if (keyword == null || keyword.length() != length)
+            return TokenKind.IDENTIFIER;
+        for (int i = 0; i < length; i++)
+        {
+            if (bytes.get(start + i) != keyword.charAt(i))
+                return TokenKind.IDENTIFIER;
+        }
+        return Keywords.kind(h);
+    }
+
+    /**
+     * Returns the input character at a given offset.
+     *
+     * @param offset the offset of the character
+     * @return the character at the offset
+     */
+    public char charAt(int offset)
+    {
+        return (char) (bytes.get(offset) & 0xFF);
+    }
+
+    /**
+     * Returns the offset just past the last byte of the input.
+     *
+     * @return the instance field limit
+     */
+    int length()
+    {
+        return limit;
+    }
+
+    /**
+     * Returns the offset of the first byte of the current token.
+     *
+     * @return the instance field tokenStart
+     */
+    public int getTokenStart()
+    {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the offset just past the last byte of the current token.
+     *
+     * @return the instance field tokenEnd
+     */
+    public int getTokenEnd()
+    {
+        return tokenEnd;
+    }
+
+    /**
+     * Converts the digits of the current token to an int.
+     *
+     * @precondition the current token is a TokenKind.NUMBER
+     * @return the value of the current token
+     * @throws ScanErrorException if the number does not fit in an int
+     */
+    public int getTokenValue() throws ScanErrorException
+    {
+        int value = 0;
+        for (int i = tokenStart; i < tokenEnd; i++)
+        {
+            int digit = bytes.get(i) - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10)
+                throw new ScanErrorException("Integer literal out of range");
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Builds the text of the current token. Operators and keywords share
+     * their fixed text, so only numbers and identifiers create a new String.
+     *
+     * @return the text of the token most recently scanned by nextTokenKind
+     */
+    public String getTokenText()
+    {
+        String text = TokenKind.text(tokenKind);
+        if (text != null)
+            return text;
+        byte[] chars = new byte[tokenEnd - tokenStart];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = bytes.get(tokenStart + i);
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,852 @@
+package scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A TokenBuffer holds every token of a source file, lexed up front. The
+ * tokens are stored as parallel int arrays (struct of arrays) instead of
+ * one object per token:
+ *
+ *   kinds      the TokenKind of the token
+ *   starts     the offset of the token in the source
+ *   lengths    the number of characters in the token
+ *   positions  the line and column of the token, packed into one int
+ *   values     the value of a number, or the symbol id of an identifier
+ *
+ * Identifiers are interned into the global SymbolTable as they are lexed,
+ * so each distinct name is stored once however often it appears, and the
+ * Parser gets its symbol id without looking the name up again.
+ *
+ * A TokenBuffer is also a TokenSource. Its cursor can be read and moved
+ * with getIndex and seek, which gives a Parser random-access lookahead and
+ * backtracking without scanning anything twice.
+ *
+ * Very large files can be lexed with lexParallel, which splits the input
+ * into chunks at whitespace, lexes the chunks concurrently on a
+ * ForkJoinPool and stitches the chunks' tokens into one buffer.
+ *
+ * After a small edit to the source, edit re-lexes only the tokens around
+ * the edit and reuses the rest of the buffer.
+ *
+ * Usage: Parser p = new Parser(TokenBuffer.lex(Paths.get(<file name>)));
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class TokenBuffer implements TokenSource
+{
+    private static final int COLUMN_BITS = 12;
+    private static final int MAX_COLUMN = (1 << COLUMN_BITS) - 1;
+    private static final int MAX_LINE = (1 << (32 - COLUMN_BITS)) - 1;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private TableScanner source;
+    private int[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int[] positions;
+    private int[] values;
+    private int size;
+
+    private int index;
+
+    // where lexing has counted lines up to, only used while lexing
+    private int line;
+    private int lineStart;
+    private int counted;
+
+    /**
+     * Constructs an empty TokenBuffer over a source.
+     *
+     * @param s the scanner whose input the tokens refer to
+     * @param capacity the number of tokens to make room for
+     */
+    private TokenBuffer(TableScanner s, int capacity)
+    {
+        source = s;
+        kinds = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        positions = new int[capacity];
+        values = new int[capacity];
+        index = -1;
+        line = 1;
+    }
+
+    /**
+     * Constructs a TokenBuffer over the same tokens as another one, with a
+     * cursor of its own before the first token.
+     *
+     * @param tokens the buffer whose tokens to share
+     */
+    private TokenBuffer(TokenBuffer tokens)
+    {
+        source = tokens.source;
+        kinds = tokens.kinds;
+        starts = tokens.starts;
+        lengths = tokens.lengths;
+        positions = tokens.positions;
+        values = tokens.values;
+        size = tokens.size;
+        index = -1;
+    }
+
+    /**
+     * Lexes a whole file into a TokenBuffer.
+     *
+     * @param path the path of the file to lex
+     * @return the tokens of the file
+     * @throws IOException if the file cannot be read
+     * @throws ScanErrorException if the file contains an invalid token
+     */
+    public static TokenBuffer lex(Path path) throws IOException, ScanErrorException
+    {
+        return lex(new TableScanner(path));
+    }
+
+    /**
+     * Lexes a whole String into a TokenBuffer.
+     *
+     * @param inString the string to lex
+     * @return the tokens of the string
+     * @throws ScanErrorException if the string contains an invalid token
+     */
+    public static TokenBuffer lex(String inString) throws ScanErrorException
+    {
+        return lex(new TableScanner(inString));
+    }
+
+    /**
+     * Lexes the remaining input of a TableScanner into a TokenBuffer. The
+     * buffer ends with a single TokenKind.EOF token.
+     *
+     * @param s the scanner to drain
+     * @return the tokens of the scanner's input
+     * @throws ScanErrorException if the input contains an invalid token; the
+     *         message includes the line and column of the token
+     */
+    public static TokenBuffer lex(TableScanner s) throws ScanErrorException
+    {
+        return lex(s, 0, 1, 0);
+    }
+
+    /**
+     * Lexes the remaining input of a TableScanner, given where its input
+     * starts in the lines of the source.
+     *
+     * @param s the scanner to drain
+     * @param from the offset of the scanner's first byte
+     * @param line the line that the first byte is on
+     * @param lineStart the offset of the start of that line
+     * @return the tokens of the scanner's input
+     * @throws ScanErrorException if the input contains an invalid token; the
+     *         message includes the line and column of the token
+     */
+    private static TokenBuffer lex(TableScanner s, int from, int line, int lineStart)
+            throws ScanErrorException
+    {
+        TokenBuffer tokens = new TokenBuffer(s, 1024);
+        tokens.counted = from;
+        tokens.line = line;
+        tokens.lineStart = lineStart;
+        int kind;
+        do
+        {
+            int value = 0;
+            try
+            {
+                kind = s.nextTokenKind();
+                if (kind == TokenKind.NUMBER)
+                    value = s.getTokenValue();
+                else if (kind == TokenKind.IDENTIFIER)
+                    value = SymbolTable.intern(s.getTokenText());
+            }
+            catch (ScanErrorException e)
+            {
+                throw new ScanErrorException(e.getMessage() + " at " +
+                        describe(tokens.positionOf(s.getTokenStart())));
+            }
+            int start = s.getTokenStart();
+            tokens.add(kind, start, s.getTokenEnd() - start, tokens.positionOf(start), value);
+        }
+        while (kind != TokenKind.EOF);
+        return tokens;
+    }
+
+    /**
+     * Lexes a whole file into a TokenBuffer, lexing chunks of it in parallel
+     * on the common ForkJoinPool.
+     *
+     * @param path the path of the file to lex
+     * @return the tokens of the file, exactly as lex would produce them
+     * @throws IOException if the file cannot be read
+     * @throws ScanErrorException if the file contains an invalid token
+     */
+    public static TokenBuffer lexParallel(Path path) throws IOException, ScanErrorException
+    {
+        return lexParallel(TableScanner.map(path), ForkJoinPool.commonPool(), CHUNK_SIZE);
+    }
+
+    /**
+     * Lexes the bytes of a buffer from its position up to its limit in
+     * parallel. The input is split into chunks of roughly chunkSize bytes.
+     * Every split is moved forward onto a whitespace byte, and no token
+     * contains whitespace, so no token straddles two chunks. The chunks are
+     * lexed in two parallel passes: the first counts the lines of every
+     * chunk, so that the second can lex each chunk knowing the line it
+     * starts on. The chunks are then stitched together in order; each
+     * everything after the first period or scan error is dropped, just as
+     * a sequential scan would stop there.
+     *
+     * @param input the bytes to lex
+     * @param pool the pool to lex the chunks on
+     * @param chunkSize the number of bytes to aim for in each chunk
+     * @return the tokens of the input, exactly as lex would produce them
+     * @throws ScanErrorException if the input contains an invalid token; the
+     *         message includes the line and column of the token
+     */
+    public static TokenBuffer lexParallel(ByteBuffer input, ForkJoinPool pool, int chunkSize)
+            throws ScanErrorException
+    {
+        TableScanner source = new TableScanner(input);
+        int[] bounds = split(source, input.position(), input.limit(), chunkSize);
+        int chunks = bounds.length - 1;
+        if (chunks == 1)
+            return lex(source);
+
+        List<Callable<int[]>> counters = new ArrayList<Callable<int[]>>();
+        for (int i = 0; i < chunks; i++)
+        {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            counters.add(() -> countLines(source, from, to));
+        }
+        List<Future<int[]>> counts = pool.invokeAll(counters);
+
+        List<Callable<TokenBuffer>> lexers = new ArrayList<Callable<TokenBuffer>>();
+        int line = 1;
+        int lineStart = bounds[0];
+        for (int i = 0; i < chunks; i++)
+        {
+            ByteBuffer chunk = input.duplicate();
+            chunk.limit(bounds[i + 1]).position(bounds[i]);
+            int from = bounds[i];
+            int startLine = line;
+            int startOfLine = lineStart;
+            lexers.add(() -> lex(new TableScanner(chunk), from, startLine, startOfLine));
+
+            int[] count = result(counts.get(i));
+            line += count[0];
+            if (count[0] > 0)
+                lineStart = count[1];
+        }
+        return stitch(source, pool, pool.invokeAll(lexers));
+    }
+
+    /**
+     * Picks the offsets at which to split an input into chunks. Each split
+     * is at least chunkSize bytes after the previous one and is on a
+     * whitespace byte.
+     *
+     * @param source the scanner over the whole input
+     * @param from the offset of the first byte of the input
+     * @param to the offset just past the last byte of the input
+     * @param chunkSize the smallest number of bytes in a chunk
+     * @return the offsets of the splits, starting with from and ending with to
+     */
+    private static int[] split(TableScanner source, int from, int to, int chunkSize)
+    {
+        int[] bounds = new int[(to - from) / chunkSize + 2];
+        int n = 0;
+        bounds[n++] = from;
+        int at = from + chunkSize;
+        while (at < to)
+        {
+            while (at < to && !Scanner.isWhiteSpace(source.charAt(at)))
+                at++;
+            if (at < to)
+                bounds[n++] = at;
+            at += chunkSize;
+        }
+        bounds[n++] = to;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    /**
+     * Counts the newlines of one chunk.
+     *
+     * @param source the scanner over the whole input
+     * @param from the offset of the first byte of the chunk
+     * @param to the offset just past the last byte of the chunk
+     * @return the number of newlines, and the offset just past the last one
+     */
+    private static int[] countLines(TableScanner source, int from, int to)
+    {
+        int newlines = 0;
+        int lineStart = from;
+        for (int i = from; i < to; i++)
+        {
+            if (source.charAt(i) == '\n')
+            {
+                newlines++;
+                lineStart = i + 1;
+            }
+        }
+        return new int[] {newlines, lineStart};
+    }
+
+    /**
+     * Waits for the result of a chunk, passing on any ScanErrorException or
+     * RuntimeException that it threw.
+     *
+     * @param future the chunk's result
+     * @param <T> the type of the result
+     * @return the result
+     * @throws ScanErrorException if the chunk could not be scanned
+     */
+    private static <T> T result(Future<T> future) throws ScanErrorException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            // some pools wrap the exception of a Callable in a RuntimeException
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+            {
+                if (cause instanceof ScanErrorException)
+                    throw (ScanErrorException) cause;
+            }
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Joins the tokens of the chunks of an input into one buffer. Each
+     * chunk ends with its own EOF token, which is dropped unless it is the
+     * last chunk used. A chunk that ends in a period is the last one used,
+     * and an earlier chunk that failed to scan fails the whole input.
+     *
+     * @param source the scanner over the whole input
+     * @param pool the pool to copy the chunks on
+     * @param chunks the results of lexing each chunk, in order
+     * @return the tokens of the whole input
+     * @throws ScanErrorException if a chunk that is used could not be scanned
+     */
+    private static TokenBuffer stitch(TableScanner source, ForkJoinPool pool,
+                                      List<Future<TokenBuffer>> chunks) throws ScanErrorException
+    {
+        ArrayList<TokenBuffer> used = new ArrayList<TokenBuffer>();
+        int total = 0;
+        for (Future<TokenBuffer> future : chunks)
+        {
+            TokenBuffer chunk = result(future);
+            used.add(chunk);
+            total += chunk.size - 1;
+            if (chunk.size > 1 && chunk.kinds[chunk.size - 2] == TokenKind.PERIOD)
+                break;
+        }
+
+        TokenBuffer tokens = new TokenBuffer(source, total + 1);
+        tokens.size = total + 1;
+        List<Callable<Object>> copiers = new ArrayList<Callable<Object>>();
+        int at = 0;
+        for (int i = 0; i < used.size(); i++)
+        {
+            TokenBuffer chunk = used.get(i);
+            int to = at;
+            int count = i == used.size() - 1 ? chunk.size : chunk.size - 1;
+            copiers.add(() -> tokens.copy(chunk, count, to));
+            at += chunk.size - 1;
+        }
+        for (Future<Object> future : pool.invokeAll(copiers))
+            result(future);
+        return tokens;
+    }
+
+    /**
+     * Returns the tokens of the source with an edit applied, re-lexing only
+     * the damaged region. Lexing restarts at the end of the last token that
+     * ends before the edit, since the byte that ended that token has not
+     * changed. It stops as soon as a new token starts past the inserted
+     * text at the same place, in the unchanged text, as an old token: the
+     * scanner keeps no state between tokens, so from there on the old
+     * tokens are the new tokens shifted by the change in length. They are
+     * copied rather than scanned again.
+     *
+     * This buffer is left unchanged.
+     *
+     * @param offset the offset of the first character removed
+     * @param removed the number of characters removed
+     * @param inserted the text inserted at offset
+     * @return the tokens of the edited source
+     * @throws ScanErrorException if the edit introduces an invalid token; the
+     *         message includes the line and column of the token
+     */
+    public TokenBuffer edit(int offset, int removed, String inserted) throws ScanErrorException
+    {
+        if (offset < 0 || removed < 0 || offset + removed > source.length())
+            throw new IndexOutOfBoundsException("Edit of " + removed + " at " + offset +
+                    " out of " + source.length());
+        ByteBuffer text = source.edited(offset, removed, inserted);
+        TokenBuffer tokens = new TokenBuffer(new TableScanner(text), size + 16);
+
+        // the first token that the edit may have changed
+        int first = firstEndingAtOrAfter(offset);
+        if (first > 0 && kinds[first - 1] == TokenKind.PERIOD)
+        {
+            // the source already ended before the edit
+            copyPrefix(tokens, size);
+            return tokens;
+        }
+        copyPrefix(tokens, first);
+
+        int from = first == 0 ? 0 : starts[first - 1] + lengths[first - 1];
+        tokens.counted = from;
+        if (first == 0)
+        {
+            tokens.line = 1;
+            tokens.lineStart = 0;
+        }
+        else
+        {
+            tokens.line = lineAt(first - 1);
+            tokens.lineStart = from;
+            while (tokens.lineStart > 0 && tokens.source.charAt(tokens.lineStart - 1) != '\n')
+                tokens.lineStart--;
+        }
+
+        ByteBuffer rest = text.duplicate();
+        rest.position(from);
+        TableScanner s = new TableScanner(rest);
+        int delta = inserted.length() - removed;
+        int unchanged = offset + inserted.length();
+        int old = first;
+        int kind;
+        do
+        {
+            int value = 0;
+            try
+            {
+                kind = s.nextTokenKind();
+                int start = s.getTokenStart();
+                if (kind != TokenKind.EOF && start >= unchanged)
+                {
+                    while (old < size - 1 && starts[old] < start - delta)
+                        old++;
+                    if (old < size - 1 && starts[old] == start - delta)
+                    {
+                        tokens.positionOf(start);
+                        tokens.appendShifted(this, old, delta);
+                        return tokens;
+                    }
+                }
+                if (kind == TokenKind.NUMBER)
+                    value = s.getTokenValue();
+                else if (kind == TokenKind.IDENTIFIER)
+                    value = SymbolTable.intern(s.getTokenText());
+            }
+            catch (ScanErrorException e)
+            {
+                throw new ScanErrorException(e.getMessage() + " at " +
+                        describe(tokens.positionOf(s.getTokenStart())));
+            }
+            int start = s.getTokenStart();
+            tokens.add(kind, start, s.getTokenEnd() - start, tokens.positionOf(start), value);
+        }
+        while (kind != TokenKind.EOF);
+        return tokens;
+    }
+
+    /**
+     * Finds the first token, other than the final EOF, that ends at or
+     * after an offset.
+     *
+     * @param offset the offset in the source
+     * @return the index of that token, or the index of the final EOF token
+     *         if every other token ends before the offset
+     */
+    private int firstEndingAtOrAfter(int offset)
+    {
+        int low = 0;
+        int high = size - 1;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] + lengths[middle] < offset)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Copies the first tokens of this buffer, unchanged, into an empty buffer.
+     *
+     * @param tokens the buffer to copy into
+     * @param count the number of tokens to copy
+     */
+    private void copyPrefix(TokenBuffer tokens, int count)
+    {
+        System.arraycopy(kinds, 0, tokens.kinds, 0, count);
+        System.arraycopy(starts, 0, tokens.starts, 0, count);
+        System.arraycopy(lengths, 0, tokens.lengths, 0, count);
+        System.arraycopy(positions, 0, tokens.positions, 0, count);
+        System.arraycopy(values, 0, tokens.values, 0, count);
+        tokens.size = count;
+    }
+
+    /**
+     * Appends the tokens of an older buffer from an index to its end,
+     * shifted by the change in length of an edit before them. Lexing must
+     * have counted lines up to the first of them. Tokens on the same line
+     * as the first get new columns; later tokens only move by the number of
+     * lines added or removed. Lines past the largest line that can be
+     * stored stay saturated.
+     *
+     * @param older the buffer to copy from
+     * @param from the index of the first token to copy
+     * @param delta the number of characters added by the edit
+     */
+    private void appendShifted(TokenBuffer older, int from, int delta)
+    {
+        int count = older.size - from;
+        int capacity = size + count;
+        if (capacity > kinds.length)
+        {
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(older.kinds, from, kinds, size, count);
+        System.arraycopy(older.lengths, from, lengths, size, count);
+        System.arraycopy(older.values, from, values, size, count);
+        if (delta == 0 && older.positions[from] == pack(line, older.starts[from] - lineStart))
+        {
+            System.arraycopy(older.starts, from, starts, size, count);
+            System.arraycopy(older.positions, from, positions, size, count);
+            size = capacity;
+            return;
+        }
+        int firstLine = older.positions[from] >>> COLUMN_BITS;
+        int lines = line - firstLine;
+        for (int i = 0; i < count; i++)
+        {
+            int start = older.starts[from + i] + delta;
+            int position = older.positions[from + i];
+            int oldLine = position >>> COLUMN_BITS;
+            starts[size + i] = start;
+            if (oldLine == firstLine)
+                positions[size + i] = pack(line, start - lineStart);
+            else if (oldLine == MAX_LINE)
+                positions[size + i] = position;
+            else
+                positions[size + i] = pack(oldLine + lines, position & MAX_COLUMN);
+        }
+        size = capacity;
+    }
+
+    /**
+     * Copies the first tokens of a chunk into this buffer.
+     *
+     * @param chunk the buffer to copy from
+     * @param count the number of tokens to copy
+     * @param at the index in this buffer of the first token copied
+     * @return null, once the tokens are copied
+     */
+    private Object copy(TokenBuffer chunk, int count, int at)
+    {
+        System.arraycopy(chunk.kinds, 0, kinds, at, count);
+        System.arraycopy(chunk.starts, 0, starts, at, count);
+        System.arraycopy(chunk.lengths, 0, lengths, at, count);
+        System.arraycopy(chunk.positions, 0, positions, at, count);
+        System.arraycopy(chunk.values, 0, values, at, count);
+        return null;
+    }
+
+    /**
+     * Counts the lines of the source up to an offset and returns the packed
+     * position of that offset. Offsets must be passed in increasing order.
+     *
+     * @param offset the offset in the source
+     * @return the packed line and column of the offset
+     */
+    private int positionOf(int offset)
+    {
+        for (int i = counted; i < offset; i++)
+        {
+            if (source.charAt(i) == '\n')
+            {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        counted = Math.max(counted, offset);
+        return pack(line, offset - lineStart);
+    }
+
+    /**
+     * Appends a token, doubling the arrays when they are full.
+     *
+     * @param kind the TokenKind of the token
+     * @param start the offset of the token
+     * @param length the length of the token
+     * @param position the packed line and column of the token
+     * @param value the number value or symbol id of the token
+     */
+    private void add(int kind, int start, int length, int position, int value)
+    {
+        if (size == kinds.length)
+        {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        lengths[size] = length;
+        positions[size] = position;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Packs a line and a zero-based column into one int. Lines and columns
+     * that do not fit are saturated.
+     *
+     * @param line the one-based line number
+     * @param column the zero-based column
+     * @return the packed position
+     */
+    private static int pack(int line, int column)
+    {
+        return Math.min(line, MAX_LINE) << COLUMN_BITS | Math.min(column, MAX_COLUMN);
+    }
+
+    /**
+     * Describes a packed position with a one-based column.
+     *
+     * @param position the packed position
+     * @return a description such as "line 3, column 7"
+     */
+    private static String describe(int position)
+    {
+        return "line " + (position >>> COLUMN_BITS) + ", column " +
+                ((position & MAX_COLUMN) + 1);
+    }
+
+    /**
+     * Returns the number of tokens in the buffer, including the final EOF.
+     *
+     * @return the instance field size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the TokenKind of the token at an index.
+     *
+     * @param i the index of the token
+     * @return the kind of the token
+     */
+    public int kindAt(int i)
+    {
+        return kinds[i];
+    }
+
+    /**
+     * Returns the offset in the source of the token at an index.
+     *
+     * @param i the index of the token
+     * @return the start offset of the token
+     */
+    public int startAt(int i)
+    {
+        return starts[i];
+    }
+
+    /**
+     * Returns the length of the token at an index.
+     *
+     * @param i the index of the token
+     * @return the number of characters in the token
+     */
+    public int lengthAt(int i)
+    {
+        return lengths[i];
+    }
+
+    /**
+     * Returns the one-based line of the token at an index.
+     *
+     * @param i the index of the token
+     * @return the line of the token
+     */
+    public int lineAt(int i)
+    {
+        return positions[i] >>> COLUMN_BITS;
+    }
+
+    /**
+     * Returns the one-based column of the token at an index.
+     *
+     * @param i the index of the token
+     * @return the column of the token
+     */
+    public int columnAt(int i)
+    {
+        return (positions[i] & MAX_COLUMN) + 1;
+    }
+
+    /**
+     * Returns the number value or symbol id of the token at an index.
+     *
+     * @param i the index of the token
+     * @return the value of a number, the symbol id of an identifier, or 0
+     */
+    public int valueAt(int i)
+    {
+        return values[i];
+    }
+
+    /**
+     * Returns the index of the current token, or -1 before the first call
+     * to nextTokenKind.
+     *
+     * @return the instance field index
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Moves the cursor so that the token at an index becomes the current
+     * token. Seeking backwards re-reads tokens without rescanning them.
+     *
+     * @param i the index of the new current token
+     */
+    public void seek(int i)
+    {
+        if (i < -1 || i >= size)
+            throw new IndexOutOfBoundsException("Token index " + i + " out of " + size);
+        index = i;
+    }
+
+    /**
+     * Returns a TokenBuffer over the same tokens with a cursor of its own,
+     * before the first token. The tokens are shared rather than copied, and
+     * are never changed once lexed, so each of several threads can read the
+     * buffer through a view of its own.
+     *
+     * @return a view of the tokens
+     */
+    public TokenBuffer view()
+    {
+        return new TokenBuffer(this);
+    }
+
+    /**
+     * Returns the TokenKind of a token after the current one without moving
+     * the cursor. Looking past the end returns TokenKind.EOF.
+     *
+     * @param ahead how many tokens past the current token to look
+     * @return the kind of that token
+     */
+    public int peekKind(int ahead)
+    {
+        return kinds[Math.min(index + ahead, size - 1)];
+    }
+
+    /**
+     * Advances the cursor to the next token. The cursor stays on the final
+     * EOF token once it reaches it.
+     *
+     * @return the TokenKind of the next token
+     */
+    public int nextTokenKind()
+    {
+        if (index < size - 1)
+            index++;
+        return kinds[index];
+    }
+
+    /**
+     * Returns the value of the current token if it is a number.
+     *
+     * @precondition the current token is a TokenKind.NUMBER
+     * @return the instance field value of the current token
+     */
+    public int getTokenValue()
+    {
+        return values[index];
+    }
+
+    /**
+     * Returns the text of the current token. Identifiers come from the
+     * SymbolTable and operators and keywords have fixed text, so only numbers
+     * create a new String.
+     *
+     * @return the text of the current token
+     */
+    public String getTokenText()
+    {
+        int kind = kinds[index];
+        if (kind == TokenKind.IDENTIFIER)
+            return SymbolTable.name(values[index]);
+        String text = TokenKind.text(kind);
+        if (text != null)
+            return text;
+        char[] chars = new char[lengths[index]];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = source.charAt(starts[index] + i);
+        return new String(chars);
+    }
+
+    /**
+     * Returns the symbol id of the current token, which was interned when
+     * the token was lexed.
+     *
+     * @precondition the current token is a TokenKind.IDENTIFIER
+     * @return the instance field value of the current token
+     */
+    public int getTokenSymbol()
+    {
+        return values[index];
+    }
+
+    /**
+     * Describes where the current token is in the source.
+     *
+     * @return a description such as "line 3, column 7"
+     */
+    public String getTokenPosition()
+    {
+        return describe(positions[index]);
+    }
+}
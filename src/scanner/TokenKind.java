@@ -0,0 +1,95 @@
+package scanner;
+
+/**
+ * TokenKind holds the primitive codes that the Scanner uses to classify
+ * tokens in its token stream mode. Operators, special characters and
+ * keywords each get their own code so that a consumer never has to look at
+ * the text of a token to tell them apart; only numbers and identifiers
+ * carry text.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public final class TokenKind
+{
+    public static final int EOF = 0;
+    public static final int NUMBER = 1;
+    public static final int IDENTIFIER = 2;
+    public static final int PLUS = 3;
+    public static final int MINUS = 4;
+    public static final int TIMES = 5;
+    public static final int DIVIDE = 6;
+    public static final int MOD = 7;
+    public static final int LEFT_PAREN = 8;
+    public static final int RIGHT_PAREN = 9;
+    public static final int PERIOD = 10;
+    public static final int COMMA = 11;
+    public static final int SEMICOLON = 12;
+    public static final int COLON = 13;
+    public static final int ASSIGN = 14;
+    public static final int DOLLAR = 15;
+    public static final int CARET = 16;
+    public static final int AT = 17;
+    public static final int EQUAL = 18;
+    public static final int NOT_EQUAL = 19;
+    public static final int LESS = 20;
+    public static final int LESS_EQUAL = 21;
+    public static final int GREATER = 22;
+    public static final int GREATER_EQUAL = 23;
+    public static final int VAR = 24;
+    public static final int PROCEDURE = 25;
+    public static final int BEGIN = 26;
+    public static final int END = 27;
+    public static final int WRITELN = 28;
+    public static final int IF = 29;
+    public static final int THEN = 30;
+    public static final int WHILE = 31;
+    public static final int DO = 32;
+
+    /**
+     * The fixed text of every kind, indexed by kind. Numbers and
+     * identifiers have no fixed text and map to null.
+     */
+    private static final String[] TEXT = {
+        "END", null, null, "+", "-", "*", "/", "%", "(", ")", ".", ",",
+        ";", ":", ":=", "$", "^", "@", "=", "<>", "<", "<=", ">", ">=",
+        "VAR", "PROCEDURE", "BEGIN", "END", "WRITELN", "IF", "THEN", "WHILE", "DO"
+    };
+
+    /**
+     * TokenKind only holds constants and is never instantiated.
+     */
+    private TokenKind()
+    {
+    }
+
+    /**
+     * Returns the fixed text of a token kind, which is the same String the
+     * Scanner's nextToken method returns for a token of that kind.
+     *
+     * @param kind the token kind
+     * @return the text of the kind, or null for NUMBER and IDENTIFIER
+     */
+    public static String text(int kind)
+    {
+        return TEXT[kind];
+    }
+
+    /**
+     * Returns a readable name for a token kind, for use in error messages.
+     *
+     * @param kind the token kind
+     * @return the fixed text of the kind, or a description for kinds
+     *         without fixed text
+     */
+    public static String describe(int kind)
+    {
+        if (kind == NUMBER)
+            return "number";
+        else if (kind == IDENTIFIER)
+            return "identifier";
+        else if (kind == EOF)
+            return "end of file";
+        return TEXT[kind];
+    }
+}
@@ -0,0 +1,258 @@
+package scanner;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A TokenPipeline runs a Scanner on its own thread so that scanning and
+ * parsing overlap. The scanner thread writes tokens into a bounded ring
+ * that has exactly one producer and one consumer, so the ring needs no
+ * locks: each side owns one counter and only reads the other's.
+ *
+ * Usage:
+ * try (TokenPipeline tokens = new TokenPipeline(new Scanner(...)))
+ * {
+ *     Program p = new Parser(tokens).parseProgram();
+ * }
+ *
+ * The Parser sees exactly the tokens it would see from the Scanner,
+ * including a ScanErrorException at the point where scanning failed. Any
+ * other exception or error on the scanner thread ends the ring the same
+ * way, and is rethrown to the consumer at the token where it happened.
+ * The owner of a pipeline must close it, so that a consumer that stops
+ * early, such as a Parser that throws, does not leave the scanner thread
+ * waiting on a full ring.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class TokenPipeline implements TokenSource, AutoCloseable
+{
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final Scanner scanner;
+    private final int mask;
+    private final int[] kinds;
+    private final int[] values;
+    private final String[] texts;
+    private final Throwable[] errors;
+    private final Thread producer;
+
+    private final AtomicLong written;
+    private final AtomicLong read;
+    private volatile boolean closed;
+
+    private long cachedWritten;
+    private long cachedRead;
+
+    private int currentKind;
+    private int currentValue;
+    private String currentText;
+    private Throwable currentError;
+    private boolean finished;
+
+    /**
+     * Constructs a TokenPipeline with the default ring capacity and starts
+     * the scanner thread.
+     *
+     * @param s the Scanner that produces the tokens
+     */
+    public TokenPipeline(Scanner s)
+    {
+        this(s, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a TokenPipeline and starts the scanner thread.
+     *
+     * @precondition capacity is a power of two
+     * @param s the Scanner that produces the tokens
+     * @param capacity the number of tokens the ring can hold
+     */
+    public TokenPipeline(Scanner s, int capacity)
+    {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0)
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        scanner = s;
+        mask = capacity - 1;
+        kinds = new int[capacity];
+        values = new int[capacity];
+        texts = new String[capacity];
+        errors = new Throwable[capacity];
+        written = new AtomicLong();
+        read = new AtomicLong();
+
+        producer = new Thread(this::produce, "scanner");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Runs on the scanner thread. Scans tokens into the ring until the end of
+     * the input, a failure, or close is called. A failure of any kind is
+     * put in the ring as its last slot, so the consumer never waits for a
+     * token that will not come. Identifier and number text is built here so
+     * the parser thread does not pay for it.
+     */
+    private void produce()
+    {
+        long next = 0;
+        boolean done = false;
+        while (!done)
+        {
+            int idle = 0;
+            while (next - cachedRead > mask)
+            {
+                if (closed)
+                    return;
+                cachedRead = read.get();
+                idle = backOff(idle);
+            }
+
+            int slot = (int) next & mask;
+            try
+            {
+                int kind = scanner.nextTokenKind();
+                kinds[slot] = kind;
+                if (kind == TokenKind.NUMBER || kind == TokenKind.IDENTIFIER)
+                    texts[slot] = scanner.getTokenText();
+                if (kind == TokenKind.NUMBER)
+                {
+                    try
+                    {
+                        values[slot] = scanner.getTokenValue();
+                    }
+                    catch (ScanErrorException e)
+                    {
+                        errors[slot] = e;
+                    }
+                }
+                done = kind == TokenKind.EOF;
+            }
+            catch (Throwable t)
+            {
+                kinds[slot] = TokenKind.EOF;
+                errors[slot] = t;
+                done = true;
+            }
+            next++;
+            written.lazySet(next);
+        }
+    }
+
+    /**
+     * Waits a little longer each time one side of the ring finds it has
+     * nothing to do: first by spinning, then by yielding, then by parking.
+     *
+     * @param idle the number of times in a row this side has waited
+     * @return the new idle count
+     */
+    private static int backOff(int idle)
+    {
+        if (idle < 64)
+            Thread.onSpinWait();
+        else if (idle < 128)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(50000);
+        return idle + 1;
+    }
+
+    /**
+     * Takes the next token from the ring, waiting for the scanner thread if
+     * the ring is empty. A scanning error is thrown here, at the same token
+     * where the Scanner would have thrown it, and so is any other exception
+     * or error that stopped the scanner thread.
+     *
+     * @return the TokenKind of the next token
+     * @throws ScanErrorException when the Scanner failed to scan the next token
+     * @throws IllegalStateException if the pipeline was closed before the
+     *         next token was scanned
+     */
+    public int nextTokenKind() throws ScanErrorException
+    {
+        if (!finished)
+        {
+            long next = read.get();
+            int idle = 0;
+            while (next >= cachedWritten)
+            {
+                cachedWritten = written.get();
+                if (next < cachedWritten)
+                    break;
+                if (closed)
+                    throw new IllegalStateException("TokenPipeline is closed");
+                idle = backOff(idle);
+            }
+
+            int slot = (int) next & mask;
+            currentKind = kinds[slot];
+            currentValue = values[slot];
+            currentText = texts[slot];
+            currentError = errors[slot];
+            texts[slot] = null;
+            errors[slot] = null;
+            finished = currentKind == TokenKind.EOF;
+            read.lazySet(next + 1);
+        }
+        if (currentError != null && currentKind != TokenKind.NUMBER)
+            rethrow(currentError);
+        return currentKind;
+    }
+
+    /**
+     * Returns the value of the current token if it is a number.
+     *
+     * @precondition the current token is a TokenKind.NUMBER
+     * @return the int value of the current token
+     * @throws ScanErrorException if the number does not fit in an int
+     */
+    public int getTokenValue() throws ScanErrorException
+    {
+        if (currentError != null)
+            rethrow(currentError);
+        return currentValue;
+    }
+
+    /**
+     * Throws a failure of the scanner thread on the consumer thread. It is
+     * a ScanErrorException or an unchecked exception or error, as those
+     * are all the Scanner can throw.
+     *
+     * @param failure the failure to throw
+     * @throws ScanErrorException if failure is one
+     */
+    private static void rethrow(Throwable failure) throws ScanErrorException
+    {
+        if (failure instanceof ScanErrorException)
+            throw (ScanErrorException) failure;
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+        throw new IllegalStateException(failure);
+    }
+
+    /**
+     * Returns the text of the current token.
+     *
+     * @return the text of the token most recently returned by nextTokenKind
+     */
+    public String getTokenText()
+    {
+        if (currentText != null)
+            return currentText;
+        return TokenKind.text(currentKind);
+    }
+
+    /**
+     * Stops the scanner thread, for when the consumer gives up before
+     * reaching the end of the input. Closing a pipeline that has already
+     * delivered its last token does nothing.
+     */
+    public void close()
+    {
+        closed = true;
+        LockSupport.unpark(producer);
+    }
+}
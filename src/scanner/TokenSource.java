@@ -0,0 +1,72 @@
+package scanner;
+
+/**
+ * A TokenSource is anything the Parser can pull tokens from. The Scanner
+ * itself is a TokenSource, and other sources replay or forward the tokens
+ * of a Scanner in the same order.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public interface TokenSource
+{
+    /**
+     * Advances to the next token and returns its TokenKind. Once the end of
+     * the input is reached, every further call returns TokenKind.EOF.
+     *
+     * @return the TokenKind of the next token
+     * @throws ScanErrorException when the next token cannot be scanned
+     */
+    int nextTokenKind() throws ScanErrorException;
+
+    /**
+     * Returns the value of the current token if it is a number.
+     *
+     * @precondition the current token is a TokenKind.NUMBER
+     * @return the int value of the current token
+     * @throws ScanErrorException if the number does not fit in an int
+     */
+    int getTokenValue() throws ScanErrorException;
+
+    /**
+     * Returns the text of the current token.
+     *
+     * @return the text of the token most recently returned by nextTokenKind
+     */
+    String getTokenText();
+
+    /**
+     * Returns the SymbolTable id of the current token if it is an identifier.
+     *
+     * @precondition the current token is a TokenKind.IDENTIFIER
+     * @return the symbol id of the current token
+     */
+    default int getTokenSymbol()
+    {
+        return SymbolTable.intern(getTokenText());
+    }
+
+    /**
+     * Describes where the current token is in the source, for error messages.
+     * Sources that do not track positions return null.
+     *
+     * @return a description such as "line 3, column 7", or null
+     */
+    default String getTokenPosition()
+    {
+        return null;
+    }
+
+    /**
+     * Advances to the next token and returns its text, or "END" at the end
+     * of the input.
+     *
+     * @return the text of the next token
+     * @throws ScanErrorException when the next token cannot be scanned
+     */
+    default String nextToken() throws ScanErrorException
+    {
+        nextTokenKind();
+        return getTokenText();
+    }
+}
@@ -0,0 +1,364 @@
+package vm;
+
+import ast.ProcedureDeclaration;
+
+import java.util.Arrays;
+
+/**
+ * Bytecode is a Program compiled by a BytecodeCompiler for the
+ * VirtualMachine to run. All of its code is in one int array. An
+ * instruction is an opcode followed by a fixed number of int operands,
+ * and a jump target is the index of an instruction in the array.
+ *
+ * The code is register based: the operands of an instruction name the
+ * registers it reads and writes rather than popping and pushing an operand
+ * stack. An arithmetic instruction or a conditional jump can also take
+ * its second operand straight from a number or a variable. Registers
+ * belong to the frame of the function that is running, and each function
+ * knows how many it needs.
+ *
+ * The variables of a function live in the Environment, since a procedure
+ * sees the variables of its caller, but each one also has a home register
+ * in the frame that can hold its value between calls. A home register that
+ * has been written is dirty until it is stored back to its variable, which
+ * CALL and RETURN do themselves when the variable may be seen again, and
+ * which STOREs do before HALT. For an
+ * instruction that throws, getDirty says which home registers are dirty,
+ * so the VirtualMachine can store them before the exception leaves.
+ *
+ * Function 0 is the main statement. Every other function is the body of
+ * a ProcedureDeclaration, and ends with RETURN.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class Bytecode
+{
+    /** CONST d k: register d gets constant k of the pool. */
+    public static final int CONST = 0;
+    /** LOAD d v: register d gets the value of variable v. */
+    public static final int LOAD = 1;
+    /** STORE v s: variable v is set to register s. */
+    public static final int STORE = 2;
+    /** ADD d a b: register d gets register a plus register b. */
+    public static final int ADD = 3;
+    /** SUBTRACT d a b: register d gets register a minus register b. */
+    public static final int SUBTRACT = 4;
+    /** MULTIPLY d a b: register d gets register a times register b. */
+    public static final int MULTIPLY = 5;
+    /** DIVIDE d a b: register d gets register a divided by register b. */
+    public static final int DIVIDE = 6;
+    /** MOD d a b: register d gets register a mod register b. */
+    public static final int MOD = 7;
+    /** ADD_CONSTANT d a k: register d gets register a plus the number k. */
+    public static final int ADD_CONSTANT = 8;
+    /** SUBTRACT_CONSTANT d a k: register d gets register a minus the number k. */
+    public static final int SUBTRACT_CONSTANT = 9;
+    /** MULTIPLY_CONSTANT d a k: register d gets register a times the number k. */
+    public static final int MULTIPLY_CONSTANT = 10;
+    /**
+     * DIVIDE_CONSTANT d a k: register d gets register a divided by the number
+     * k, which is never 0.
+     */
+    public static final int DIVIDE_CONSTANT = 11;
+    /** MOD_CONSTANT d a k: register d gets register a mod the number k, which is never 0. */
+    public static final int MOD_CONSTANT = 12;
+    /** ADD_VARIABLE d a v: register d gets register a plus variable v. */
+    public static final int ADD_VARIABLE = 13;
+    /** SUBTRACT_VARIABLE d a v: register d gets register a minus variable v. */
+    public static final int SUBTRACT_VARIABLE = 14;
+    /** MULTIPLY_VARIABLE d a v: register d gets register a times variable v. */
+    public static final int MULTIPLY_VARIABLE = 15;
+    /** DIVIDE_VARIABLE d a v: register d gets register a divided by variable v. */
+    public static final int DIVIDE_VARIABLE = 16;
+    /** MOD_VARIABLE d a v: register d gets register a mod variable v. */
+    public static final int MOD_VARIABLE = 17;
+    /** JUMP t: continues at instruction t. */
+    public static final int JUMP = 18;
+    /** JUMP_EQUAL a b t: continues at t if register a equals register b. */
+    public static final int JUMP_EQUAL = 19;
+    /** JUMP_NOT_EQUAL a b t: continues at t if register a is not register b. */
+    public static final int JUMP_NOT_EQUAL = 20;
+    /** JUMP_LESS a b t: continues at t if register a is less than register b. */
+    public static final int JUMP_LESS = 21;
+    /** JUMP_GREATER a b t: continues at t if register a is greater than register b. */
+    public static final int JUMP_GREATER = 22;
+    /** JUMP_LESS_EQUAL a b t: continues at t if register a is at most register b. */
+    public static final int JUMP_LESS_EQUAL = 23;
+    /** JUMP_GREATER_EQUAL a b t: continues at t if register a is at least register b. */
+    public static final int JUMP_GREATER_EQUAL = 24;
+    /** JUMP_EQUAL_CONSTANT a k t: continues at t if register a equals the number k. */
+    public static final int JUMP_EQUAL_CONSTANT = 25;
+    /**
+     * JUMP_NOT_EQUAL_CONSTANT a k t: continues at t if register a is not the
+     * number k.
+     */
+    public static final int JUMP_NOT_EQUAL_CONSTANT = 26;
+    /**
+     * JUMP_LESS_CONSTANT a k t: continues at t if register a is less than
+     * the number k.
+     */
+    public static final int JUMP_LESS_CONSTANT = 27;
+    /**
+     * JUMP_GREATER_CONSTANT a k t: continues at t if register a is greater
+     * than the number k.
+     */
+    public static final int JUMP_GREATER_CONSTANT = 28;
+    /**
+     * JUMP_LESS_EQUAL_CONSTANT a k t: continues at t if register a is at
+     * most the number k.
+     */
+    public static final int JUMP_LESS_EQUAL_CONSTANT = 29;
+    /**
+     * JUMP_GREATER_EQUAL_CONSTANT a k t: continues at t if register a is at
+     * least the number k.
+     */
+    public static final int JUMP_GREATER_EQUAL_CONSTANT = 30;
+    /** JUMP_EQUAL_VARIABLE a v t: continues at t if register a equals variable v. */
+    public static final int JUMP_EQUAL_VARIABLE = 31;
+    /** JUMP_NOT_EQUAL_VARIABLE a v t: continues at t if register a is not variable v. */
+    public static final int JUMP_NOT_EQUAL_VARIABLE = 32;
+    /** JUMP_LESS_VARIABLE a v t: continues at t if register a is less than variable v. */
+    public static final int JUMP_LESS_VARIABLE = 33;
+    /**
+     * JUMP_GREATER_VARIABLE a v t: continues at t if register a is greater
+     * than variable v.
+     */
+    public static final int JUMP_GREATER_VARIABLE = 34;
+    /**
+     * JUMP_LESS_EQUAL_VARIABLE a v t: continues at t if register a is at
+     * most variable v.
+     */
+    public static final int JUMP_LESS_EQUAL_VARIABLE = 35;
+    /**
+     * JUMP_GREATER_EQUAL_VARIABLE a v t: continues at t if register a is at
+     * least variable v.
+     */
+    public static final int JUMP_GREATER_EQUAL_VARIABLE = 36;
+    /** WRITE s: prints register s on its own line. */
+    public static final int WRITE = 37;
+    /**
+     * CALL p a n d k: stores the home registers of dirty set k, then calls
+     * procedure p on registers a to a + n - 1, into register d. The
+     * arguments are copied into registers 0 to n - 1 of the new frame.
+     */
+    public static final int CALL = 38;
+    /**
+     * RETURN s k: stores the home registers of dirty set k, then returns
+     * register s, the value of the procedure's name, to its caller.
+     */
+    public static final int RETURN = 39;
+    /** DEFINE f: declares function f as the procedure of its name. */
+    public static final int DEFINE = 40;
+    /** HALT: ends the program. */
+    public static final int HALT = 41;
+    /** MOVE d s: register d gets register s. */
+    public static final int MOVE = 42;
+
+    /**
+     * The number of operands of each opcode.
+     */
+    static final int[] OPERANDS = {
+            2, 2, 2, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 1, 3, 3, 3, 3, 3, 3, 3,
+            3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 1, 5, 2, 1, 0, 2
+    };
+
+    /**
+     * The name of each opcode in a listing.
+     */
+    private static final String[] MNEMONICS = {
+            "const", "load", "store", "add", "sub", "mul", "div", "mod", "addk", "subk",
+            "mulk", "divk", "modk", "addv", "subv", "mulv", "divv", "modv", "jump", "jeq",
+            "jne", "jlt", "jgt", "jle", "jge", "jeqk", "jnek", "jltk", "jgtk", "jlek",
+            "jgek", "jeqv", "jnev", "jltv", "jgtv", "jlev", "jgev", "write", "call",
+            "return", "define", "halt", "move"
+    };
+
+    private int[] code;
+    private int[] constants;
+    private int[] entries;
+    private int[] frameSizes;
+    private ProcedureDeclaration[] declarations;
+    private int procedureCount;
+    private int[] dirtyStarts;
+    private int[][] dirty;
+    private int[][] bindings;
+
+    /**
+     * Constructs Bytecode.
+     *
+     * @param c the instructions of every function
+     * @param k the constant pool
+     * @param e the index in c of the first instruction of each function
+     * @param f the number of registers each function needs
+     * @param d the ProcedureDeclaration each function was compiled from,
+     *          or null for the main statement
+     * @param p one more than the largest procedure id the code uses
+     * @param ds the index in c of each instruction from which on the home
+     *           registers in the matching element of dv may not be stored
+     * @param dv pairs of a variable id and its home register for each
+     *           index of ds
+     * @param b the ids each function binds when it is called, as
+     *          getBindings returns them
+     */
+    Bytecode(int[] c, int[] k, int[] e, int[] f, ProcedureDeclaration[] d, int p,
+             int[] ds, int[][] dv, int[][] b)
+    {
+        code = c;
+        constants = k;
+        entries = e;
+        frameSizes = f;
+        declarations = d;
+        procedureCount = p;
+        dirtyStarts = ds;
+        dirty = dv;
+        bindings = b;
+    }
+
+    /**
+     * Returns the instructions of every function.
+     *
+     * @return the instance field code
+     */
+    public int[] getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Returns the constant pool.
+     *
+     * @return the instance field constants
+     */
+    public int[] getConstants()
+    {
+        return constants;
+    }
+
+    /**
+     * Returns the number of functions, including the main statement.
+     *
+     * @return the number of functions
+     */
+    public int getFunctionCount()
+    {
+        return entries.length;
+    }
+
+    /**
+     * Returns where a function starts in the code.
+     *
+     * @param function the index of the function
+     * @return the index of the first instruction of the function
+     */
+    public int getEntry(int function)
+    {
+        return entries[function];
+    }
+
+    /**
+     * Returns the number of registers a function needs.
+     *
+     * @param function the index of the function
+     * @return the size of the frame of the function
+     */
+    public int getFrameSize(int function)
+    {
+        return frameSizes[function];
+    }
+
+    /**
+     * Returns the ProcedureDeclaration a function was compiled from.
+     *
+     * @param function the index of the function
+     * @return the declaration, or null for the main statement
+     */
+    public ProcedureDeclaration getDeclaration(int function)
+    {
+        return declarations[function];
+    }
+
+    /**
+     * Returns the ids that a call of a function binds in the Environment:
+     * the procedure's name and then its parameters, in the order the
+     * Evaluator binds them. A variable whose binding the function and its
+     * callees never use, since it only lives in a register, is -1 instead,
+     * and those at the end are left off.
+     *
+     * @param function the index of the function
+     * @return the ids, which are empty for the main statement
+     */
+    public int[] getBindings(int function)
+    {
+        return bindings[function];
+    }
+
+    /**
+     * Returns one more than the largest procedure id that the code
+     * declares or calls, so a table indexed by procedure id can be sized.
+     *
+     * @return the instance field procedureCount
+     */
+    public int getProcedureCount()
+    {
+        return procedureCount;
+    }
+
+    /**
+     * Returns every dirty set, in the order of the instructions they start
+     * at, each as pairs of a variable id and its home register. CALL and
+     * RETURN name the set they store by its index here.
+     *
+     * @return the instance field dirty
+     */
+    public int[][] getDirtySets()
+    {
+        return dirty;
+    }
+
+    /**
+     * Returns the home registers that may hold a value their variables do
+     * not have yet when an instruction starts, so that they can be stored
+     * if it throws. Only the frame of the running function can have them;
+     * its callers stored theirs before calling it, except for those of
+     * variables their own frames bind, which are lost when the exception
+     * unbinds them.
+     *
+     * @param pc the index of the instruction
+     * @return pairs of a variable id and its home register
+     */
+    public int[] getDirty(int pc)
+    {
+        int i = Arrays.binarySearch(dirtyStarts, pc);
+        if (i < 0)
+            i = -i - 2;
+        return i < 0 ? new int[0] : dirty[i];
+    }
+
+    /**
+     * Returns a readable listing of the code, one instruction per line,
+     * with the start of each function marked.
+     *
+     * @return the listing
+     */
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        int function = 0;
+        for (int pc = 0; pc < code.length; pc += 1 + OPERANDS[code[pc]])
+        {
+            while (function < entries.length && entries[function] == pc)
+            {
+                sb.append(declarations[function] == null ? "main"
+                        : declarations[function].getName());
+                sb.append(" (").append(frameSizes[function]).append(" registers):\n");
+                function++;
+            }
+            sb.append(String.format("%5d  %-6s", pc, MNEMONICS[code[pc]]));
+            for (int i = 1; i <= OPERANDS[code[pc]]; i++)
+                sb.append(' ').append(code[pc + i]);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,1022 @@
+package vm;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.If;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A BytecodeCompiler compiles a Program into Bytecode that does exactly
+ * what the Evaluator does when it runs the Program, down to its quirks:
+ * a procedure call that is an operand of a BinOp counts as 0 without
+ * being called, a ProcedureDeclaration inside a Block is skipped, and one
+ * that is the body of an If, While or procedure declares the procedure
+ * when it is reached.
+ *
+ * Every variable a function uses gets a home register at the bottom of
+ * its frame, the parameters of a procedure first, where CALL puts the
+ * arguments. Reading a variable loads it into its home register once, and
+ * later reads use the register until a call that CallEffects says may
+ * change the variable makes it stale. An assignment only writes the home
+ * register, and the value is stored to the variable by the next CALL that
+ * may read it or RETURN, or before HALT, so a loop without calls runs on
+ * registers alone: the variables it uses that are already known to be
+ * declared are loaded before it starts and stored once after it ends. A
+ * variable that the frame of a procedure binds is never stored when no
+ * call can see it, since it is unbound when the procedure returns, and it
+ * is not bound at all if the code never uses its binding. The compiler
+ * tracks which home registers are valid and which are dirty as it goes,
+ * taking at an If the registers valid on both paths, and records the dirty
+ * ones for every instruction so that an exception still leaves the
+ * Environment as the Evaluator would.
+ *
+ * Registers above the homes are handed out like a stack. An expression
+ * leaves its value in the first register it takes, or in the home register
+ * of a variable it reads, and the registers above it are free again once
+ * it is compiled. When the second operand of a BinOp or Condition is a
+ * Number, or a Variable whose home register is not valid, it is not put
+ * in a register at all: the _CONSTANT or _VARIABLE form of the
+ * instruction reads it.
+ *
+ * Usage: Bytecode code = new BytecodeCompiler().compile(program);
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class BytecodeCompiler
+{
+    private int[] code;
+    private int size;
+    private ArrayList<Integer> constants;
+    private HashMap<Integer, Integer> constantIndex;
+    private ArrayList<ProcedureDeclaration> functions;
+    private int registers;
+    private int frameSize;
+    private int procedureCount;
+    private int last;
+
+    private int[] homes;
+    private int[] variables;
+    private int homeCount;
+    private BitSet valid;
+    private BitSet dirty;
+    private BitSet known;
+    private BitSet own;
+    private BitSet seen;
+    private ArrayList<int[]> bindings;
+    private CallEffects effects;
+
+    private ArrayList<Integer> dirtyStarts;
+    private ArrayList<BitSet> dirtySets;
+    private ArrayList<int[]> dirtyPairs;
+
+    /**
+     * Compiles a Program. The main statement becomes function 0, which
+     * first declares every procedure of the program, in order, as
+     * Evaluator.exec(Program) does, and every procedure becomes a function
+     * of its own.
+     *
+     * @param program the Program to compile
+     * @return the Bytecode of the program
+     */
+    public Bytecode compile(Program program)
+    {
+        code = new int[256];
+        size = 0;
+        constants = new ArrayList<Integer>();
+        constantIndex = new HashMap<Integer, Integer>();
+        functions = new ArrayList<ProcedureDeclaration>();
+        procedureCount = 0;
+        functions.add(null);
+        homes = new int[0];
+        variables = new int[8];
+        homeCount = 0;
+        dirtyStarts = new ArrayList<Integer>();
+        dirtySets = new ArrayList<BitSet>();
+        dirtyPairs = new ArrayList<int[]>();
+        effects = new CallEffects(program);
+        bindings = new ArrayList<int[]>();
+
+        int[] entries = new int[8];
+        int[] frameSizes = new int[8];
+        for (int f = 0; f < functions.size(); f++)
+        {
+            if (f == entries.length)
+            {
+                entries = Arrays.copyOf(entries, 2 * f);
+                frameSizes = Arrays.copyOf(frameSizes, 2 * f);
+            }
+            entries[f] = size;
+            ProcedureDeclaration dec = functions.get(f);
+            Statement body = dec == null ? program.getStatement() : dec.getDeclaration();
+            startFunction(body, dec);
+            if (dec == null)
+            {
+                for (ProcedureDeclaration p : program.getProcedures())
+                    define(p);
+                compileStatement(body);
+                flush(dirty);
+                emit(Bytecode.HALT);
+                bindings.add(new int[0]);
+            }
+            else
+            {
+                compileStatement(body);
+                // the frame is unbound when the procedure returns, so the
+                // variables it binds are not stored, and the value of the
+                // name goes back in a register
+                int name = home(dec.getId());
+                dirty.andNot(own);
+                read(dec.getId());
+                emit(Bytecode.RETURN, name, noteDirty());
+                bindings.add(frame(dec));
+            }
+            frameSizes[f] = frameSize;
+        }
+
+        int[] pool = new int[constants.size()];
+        for (int i = 0; i < pool.length; i++)
+            pool[i] = constants.get(i);
+        int[] starts = new int[dirtyStarts.size()];
+        for (int i = 0; i < starts.length; i++)
+            starts[i] = dirtyStarts.get(i);
+        return new Bytecode(Arrays.copyOf(code, size), pool,
+                Arrays.copyOf(entries, functions.size()),
+                Arrays.copyOf(frameSizes, functions.size()),
+                functions.toArray(new ProcedureDeclaration[0]), procedureCount,
+                starts, dirtyPairs.toArray(new int[0][]), bindings.toArray(new int[0][]));
+    }
+
+    /**
+     * Gets ready to compile a function: gives a home register to every
+     * variable the function uses, the parameters first. The function starts
+     * with only the parameters that every call passes valid, since CALL
+     * copies the arguments into the first registers of the frame, unless
+     * a parameter is repeated and so may take its value from a later one.
+     *
+     * @param body the statement the function runs
+     * @param dec the ProcedureDeclaration of the function, or null for the
+     *            main statement
+     */
+    private void startFunction(Statement body, ProcedureDeclaration dec)
+    {
+        for (int h = 0; h < homeCount; h++)
+            homes[variables[h]] = -1;
+        homeCount = 0;
+        valid = new BitSet();
+        dirty = new BitSet();
+        known = new BitSet();
+        own = new BitSet();
+        seen = new BitSet();
+        if (dec != null)
+        {
+            int[] params = dec.getParams();
+            for (int i = 0; i < params.length; i++)
+                home(params[i]);
+            boolean distinct = true;
+            for (int i = 0; i < params.length; i++)
+                distinct &= home(params[i]) == i;
+            if (distinct)
+                valid.set(0, effects.arguments(dec));
+            BitSet bound = effects.bound(dec);
+            for (int v = bound.nextSetBit(0); v >= 0; v = bound.nextSetBit(v + 1))
+                own.set(home(v));
+            known.or(own);
+        }
+        scan(body, new BitSet(), new BitSet());
+        registers = homeCount;
+        frameSize = homeCount;
+        // the dirty registers of the last function do not carry over
+        dirtyStarts.add(size);
+        dirtySets.add(new BitSet());
+        dirtyPairs.add(new int[0]);
+    }
+
+    /**
+     * Returns the ids that a call of the procedure just compiled binds, as
+     * Bytecode.getBindings returns them. A variable whose binding the code
+     * never used need not be bound, since no one else can see it.
+     *
+     * @param dec the ProcedureDeclaration of the procedure
+     * @return the ids, with -1 for those that are not bound
+     */
+    private int[] frame(ProcedureDeclaration dec)
+    {
+        int[] params = dec.getParams();
+        int[] names = new int[1 + params.length];
+        int length = 0;
+        for (int i = 0; i < names.length; i++)
+        {
+            int id = i == 0 ? dec.getId() : params[i - 1];
+            names[i] = seen.get(id) ? id : -1;
+            if (names[i] >= 0)
+                length = i + 1;
+        }
+        return Arrays.copyOf(names, length);
+    }
+
+    /**
+     * Compiles a statement that the Evaluator would run with
+     * exec(Statement), which runs every kind of statement.
+     *
+     * @param statement the statement to compile
+     */
+    private void compileStatement(Statement statement)
+    {
+        if (statement instanceof ProcedureDeclaration)
+            define((ProcedureDeclaration) statement);
+        else
+            compileBlockStatement(statement);
+    }
+
+    /**
+     * Compiles a statement of a Block, which the Evaluator skips if it is
+     * a ProcedureDeclaration.
+     *
+     * @param statement the statement to compile
+     */
+    private void compileBlockStatement(Statement statement)
+    {
+        if (statement instanceof Writeln)
+        {
+            Expression expr = ((Writeln) statement).getExpression();
+            if (isValue(expr))
+            {
+                int r = compileExpression(expr);
+                emit(Bytecode.WRITE, r);
+                free(r);
+            }
+        }
+        else if (statement instanceof Assignment)
+        {
+            Assignment assignment = (Assignment) statement;
+            if (isValue(assignment.getExpression()))
+                assign(assignment.getVariableId(),
+                        compileExpression(assignment.getExpression()));
+        }
+        else if (statement instanceof Block)
+        {
+            List<Statement> statements = ((Block) statement).getStatements();
+            for (int i = 0; i < statements.size(); i++)
+                compileBlockStatement(statements.get(i));
+        }
+        else if (statement instanceof If)
+        {
+            If ifStatement = (If) statement;
+            // a call in the branch makes every home register stale, so the
+            // dirty ones the branch does not assign again after its last
+            // call are stored while both paths share them
+            if (scan(ifStatement.getStatement(), new BitSet(), new BitSet()))
+            {
+                BitSet stale = (BitSet) dirty.clone();
+                stale.andNot(assignedLast(ifStatement.getStatement(), new BitSet()));
+                flush(stale);
+            }
+            int branch = compileBranch(ifStatement.getCondition(), true);
+            BitSet[] skipped = saveState();
+            compileStatement(ifStatement.getStatement());
+            join(skipped);
+            code[branch] = size;
+        }
+        else if (statement instanceof While)
+            compileWhile((While) statement);
+    }
+
+    /**
+     * Compiles a While loop, with its condition after its body so that each
+     * iteration takes one jump. A loop without calls keeps its variables in
+     * registers: those that are known to be declared are loaded before it,
+     * so every iteration starts with them valid. A loop with calls starts
+     * each iteration with no valid registers, after storing the dirty ones.
+     *
+     * @param loop the While loop to compile
+     */
+    private void compileWhile(While loop)
+    {
+        BitSet used = new BitSet();
+        BitSet assigned = new BitSet();
+        boolean calls = scan(loop.getCondition(), used) |
+                scan(loop.getStatement(), used, assigned);
+        if (calls)
+        {
+            flush(dirty);
+            valid.clear();
+        }
+        else
+        {
+            used.and(known);
+            used.andNot(valid);
+            for (int h = used.nextSetBit(0); h >= 0; h = used.nextSetBit(h + 1))
+                read(variables[h]);
+            assigned.and(valid);
+            dirty.or(assigned);
+        }
+        BitSet[] header = saveState();
+        emit(Bytecode.JUMP, 0);
+        int jump = size - 1;
+
+        // the body starts where the condition leaves off, so the condition
+        // is compiled once to see what it reads, then again after the body
+        int start = size;
+        compileBranch(loop.getCondition(), false);
+        BitSet[] tested = saveState();
+        size = start;
+        while (dirtyStarts.get(dirtyStarts.size() - 1) >= start)
+        {
+            dirtyStarts.remove(dirtyStarts.size() - 1);
+            dirtySets.remove(dirtySets.size() - 1);
+            dirtyPairs.remove(dirtyPairs.size() - 1);
+        }
+
+        restoreState(tested);
+        int body = size;
+        compileStatement(loop.getStatement());
+        BitSet stale = (BitSet) dirty.clone();
+        stale.andNot(header[0]);
+        flush(stale);
+        code[jump] = size;
+        restoreState(header);
+        int branch = compileBranch(loop.getCondition(), false);
+        if (branch >= 0)
+            code[branch] = body;
+    }
+
+    /**
+     * Compiles an assignment of a value that is already in a register. The
+     * instruction that computed the value writes the home register of the
+     * variable instead, if it can.
+     *
+     * @param id the id of the variable
+     * @param r the register that holds the value
+     */
+    private void assign(int id, int r)
+    {
+        int h = home(id);
+        if (isTemporary(r) && destination(last) >= 0 && code[destination(last)] == r)
+            code[destination(last)] = h;
+        else if (r != h)
+            emit(Bytecode.MOVE, h, r);
+        free(r);
+        valid.set(h);
+        dirty.set(h);
+        known.set(h);
+    }
+
+    /**
+     * Returns where an instruction keeps the register it writes.
+     *
+     * @param pc the index of the instruction
+     * @return the index of its destination operand, or -1 if it writes no
+     *         register
+     */
+    private int destination(int pc)
+    {
+        int op = code[pc];
+        if (op == Bytecode.CALL)
+            return pc + 4;
+        if (op == Bytecode.CONST || op == Bytecode.LOAD || op == Bytecode.MOVE ||
+                (op >= Bytecode.ADD && op <= Bytecode.MOD_VARIABLE))
+            return pc + 1;
+        return -1;
+    }
+
+    /**
+     * Reads a variable into its home register, unless the register already
+     * holds it.
+     *
+     * @param id the id of the variable
+     * @return the home register of the variable
+     */
+    private int read(int id)
+    {
+        int h = home(id);
+        if (!valid.get(h))
+        {
+            emit(Bytecode.LOAD, h, id);
+            valid.set(h);
+            known.set(h);
+        }
+        return h;
+    }
+
+    /**
+     * Stores home registers to their variables, after which they are no
+     * longer dirty.
+     *
+     * @param homeRegisters the home registers to store
+     */
+    private void flush(BitSet homeRegisters)
+    {
+        BitSet stored = (BitSet) homeRegisters.clone();
+        for (int h = stored.nextSetBit(0); h >= 0; h = stored.nextSetBit(h + 1))
+        {
+            emit(Bytecode.STORE, variables[h], h);
+            dirty.clear(h);
+        }
+    }
+
+    /**
+     * Ends a branch that may have been skipped. The home registers that are
+     * valid after it are those valid on both paths, and one that is dirty
+     * only at the end of the branch and not valid on the other path is
+     * stored there.
+     *
+     * @param skipped the state on the path that skips the branch
+     */
+    private void join(BitSet[] skipped)
+    {
+        BitSet both = (BitSet) valid.clone();
+        both.and(skipped[0]);
+        BitSet lost = (BitSet) dirty.clone();
+        lost.andNot(both);
+        flush(lost);
+        dirty.or(skipped[1]);
+        dirty.and(both);
+        valid = both;
+        known = skipped[2];
+    }
+
+    /**
+     * Returns copies of which home registers are valid, dirty and known to
+     * belong to declared variables.
+     *
+     * @return the three sets, in that order
+     */
+    private BitSet[] saveState()
+    {
+        return new BitSet[] {(BitSet) valid.clone(), (BitSet) dirty.clone(),
+                (BitSet) known.clone()};
+    }
+
+    /**
+     * Goes back to a state returned by saveState.
+     *
+     * @param state the three sets saveState returned
+     */
+    private void restoreState(BitSet[] state)
+    {
+        valid = (BitSet) state[0].clone();
+        dirty = (BitSet) state[1].clone();
+        known = (BitSet) state[2].clone();
+    }
+
+    /**
+     * Finds the variables that are sure to be assigned after the last call a
+     * statement makes, and so are valid in their home registers after it.
+     *
+     * @param statement the statement
+     * @param assigned the home registers of the variables assigned since the
+     *                 last call before the statement; it is updated
+     * @return assigned
+     */
+    private BitSet assignedLast(Statement statement, BitSet assigned)
+    {
+        if (statement instanceof Assignment)
+        {
+            Assignment assignment = (Assignment) statement;
+            if (isValue(assignment.getExpression()))
+            {
+                if (scan(assignment.getExpression(), new BitSet()))
+                    assigned.clear();
+                assigned.set(home(assignment.getVariableId()));
+            }
+        }
+        else if (statement instanceof Block)
+        {
+            for (Statement s : ((Block) statement).getStatements())
+                assignedLast(s, assigned);
+        }
+        else if (scan(statement, new BitSet(), new BitSet()))
+            assigned.clear();
+        return assigned;
+    }
+
+    /**
+     * Finds the variables a statement uses as it is compiled, giving each a
+     * home register, and whether it calls a procedure. A procedure declared
+     * in the statement is a function of its own and is not looked into.
+     *
+     * @param statement the statement
+     * @param used the home registers of the variables it reads or assigns
+     * @param assigned the home registers of the variables it assigns
+     * @return true if the statement may call a procedure
+     */
+    private boolean scan(Statement statement, BitSet used, BitSet assigned)
+    {
+        if (statement instanceof Writeln)
+        {
+            Expression expr = ((Writeln) statement).getExpression();
+            return isValue(expr) && scan(expr, used);
+        }
+        if (statement instanceof Assignment)
+        {
+            Assignment assignment = (Assignment) statement;
+            if (!isValue(assignment.getExpression()))
+                return false;
+            int h = home(assignment.getVariableId());
+            used.set(h);
+            assigned.set(h);
+            return scan(assignment.getExpression(), used);
+        }
+        boolean calls = false;
+        if (statement instanceof Block)
+        {
+            for (Statement s : ((Block) statement).getStatements())
+                calls |= scan(s, used, assigned);
+        }
+        else if (statement instanceof If)
+        {
+            calls = scan(((If) statement).getCondition(), used);
+            calls |= scan(((If) statement).getStatement(), used, assigned);
+        }
+        else if (statement instanceof While)
+        {
+            calls = scan(((While) statement).getCondition(), used);
+            calls |= scan(((While) statement).getStatement(), used, assigned);
+        }
+        return calls;
+    }
+
+    /**
+     * Finds the variables a Condition reads and whether it calls a procedure.
+     *
+     * @param c the Condition
+     * @param used the home registers of the variables it reads
+     * @return true if the Condition calls a procedure
+     */
+    private boolean scan(Condition c, BitSet used)
+    {
+        return scan(c.getExpression1(), used) | scan(c.getExpression2(), used);
+    }
+
+    /**
+     * Finds the variables an expression reads and whether it calls a
+     * procedure, which it does only if it is a call itself, since a call
+     * that is an operand of a BinOp is not made.
+     *
+     * @param expr the expression
+     * @param used the home registers of the variables it reads
+     * @return true if the expression calls a procedure
+     */
+    private boolean scan(Expression expr, BitSet used)
+    {
+        if (expr instanceof Variable)
+            used.set(home(((Variable) expr).getId()));
+        else if (expr instanceof BinOp)
+        {
+            BinOp binop = (BinOp) expr;
+            if (!(binop.getExpression1() instanceof ProcedureCall))
+                scan(binop.getExpression1(), used);
+            if (!(binop.getExpression2() instanceof ProcedureCall))
+                scan(binop.getExpression2(), used);
+        }
+        else if (expr instanceof ProcedureCall)
+        {
+            for (Expression arg : ((ProcedureCall) expr).getArgs())
+                scan(arg, used);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the home register of a variable in the current function,
+     * giving it the next one if it has none yet.
+     *
+     * @param id the id of the variable
+     * @return its home register
+     */
+    private int home(int id)
+    {
+        if (id >= homes.length)
+        {
+            int old = homes.length;
+            homes = Arrays.copyOf(homes, Math.max(id + 1, 2 * old));
+            Arrays.fill(homes, old, homes.length, -1);
+        }
+        if (homes[id] < 0)
+        {
+            if (homeCount == variables.length)
+                variables = Arrays.copyOf(variables, 2 * homeCount);
+            variables[homeCount] = id;
+            homes[id] = homeCount++;
+        }
+        return homes[id];
+    }
+
+    /**
+     * Returns the home registers that variables have in the current
+     * function, leaving out variables that have none.
+     *
+     * @param ids the ids of the variables
+     * @return their home registers
+     */
+    private BitSet homes(BitSet ids)
+    {
+        BitSet found = new BitSet();
+        for (int v = ids.nextSetBit(0); v >= 0 && v < homes.length; v = ids.nextSetBit(v + 1))
+        {
+            if (homes[v] >= 0)
+                found.set(homes[v]);
+        }
+        return found;
+    }
+
+    /**
+     * Declares a procedure where the code reaches this point, giving it
+     * a function of its own to be compiled after the current one.
+     *
+     * @param dec the ProcedureDeclaration to declare
+     */
+    private void define(ProcedureDeclaration dec)
+    {
+        emit(Bytecode.DEFINE, functions.size());
+        functions.add(dec);
+        procedureCount = Math.max(procedureCount, dec.getId() + 1);
+    }
+
+    /**
+     * Compiles a Condition into a conditional jump whose target is left to
+     * be filled in, after evaluating both of its expressions. A second
+     * expression that is a Number or a Variable is read by the jump itself.
+     *
+     * @param c the Condition to compile
+     * @param whenFalse true to jump when the Condition is false, false to
+     *                  jump when it is true
+     * @return the index of the target operand of the jump, or -1 if the
+     *         Condition is never true and there is no jump when it is
+     */
+    private int compileBranch(Condition c, boolean whenFalse)
+    {
+        int a = compileExpression(c.getExpression1());
+        if (!isTemporary(a) && c.getExpression2() instanceof ProcedureCall)
+        {
+            // the call may change the variable and so reload its register
+            int t = allocate();
+            emit(Bytecode.MOVE, t, a);
+            a = t;
+        }
+        int op;
+        switch (c.getOpcode())
+        {
+            case EQUAL:
+                op = whenFalse ? Bytecode.JUMP_NOT_EQUAL : Bytecode.JUMP_EQUAL;
+                break;
+            case NOT_EQUAL:
+                op = whenFalse ? Bytecode.JUMP_EQUAL : Bytecode.JUMP_NOT_EQUAL;
+                break;
+            case LESS:
+                op = whenFalse ? Bytecode.JUMP_GREATER_EQUAL : Bytecode.JUMP_LESS;
+                break;
+            case GREATER:
+                op = whenFalse ? Bytecode.JUMP_LESS_EQUAL : Bytecode.JUMP_GREATER;
+                break;
+            case LESS_EQUAL:
+                op = whenFalse ? Bytecode.JUMP_GREATER : Bytecode.JUMP_LESS_EQUAL;
+                break;
+            case GREATER_EQUAL:
+                op = whenFalse ? Bytecode.JUMP_LESS : Bytecode.JUMP_GREATER_EQUAL;
+                break;
+            default:
+                free(compileExpression(c.getExpression2()));
+                free(a);
+                if (!whenFalse)
+                    return -1;
+                emit(Bytecode.JUMP, 0);
+                return size - 1;
+        }
+        Expression second = c.getExpression2();
+        if (second instanceof Number)
+            emit(op + Bytecode.JUMP_EQUAL_CONSTANT - Bytecode.JUMP_EQUAL, a,
+                    ((Number) second).getValue(), 0);
+        else if (isStale(second))
+        {
+            emit(op + Bytecode.JUMP_EQUAL_VARIABLE - Bytecode.JUMP_EQUAL, a,
+                    ((Variable) second).getId(), 0);
+            known.set(home(((Variable) second).getId()));
+        }
+        else
+        {
+            int b = compileExpression(second);
+            free(b);
+            emit(op, a, b, 0);
+        }
+        free(a);
+        return size - 1;
+    }
+
+    /**
+     * Compiles an expression as the Evaluator evaluates it with
+     * eval(Expression), into the next free register or, for a Variable,
+     * into its home register.
+     *
+     * @param expr the expression to compile
+     * @return the register the value of the expression is left in
+     */
+    private int compileExpression(Expression expr)
+    {
+        if (expr instanceof ProcedureCall)
+            return compileCall((ProcedureCall) expr);
+        if (expr instanceof BinOp)
+        {
+            BinOp binop = (BinOp) expr;
+            int a = compileOperand(binop.getExpression1());
+            int op;
+            switch (binop.getOpcode())
+            {
+                case ADD:
+                    op = Bytecode.ADD;
+                    break;
+                case SUBTRACT:
+                    op = Bytecode.SUBTRACT;
+                    break;
+                case MULTIPLY:
+                    op = Bytecode.MULTIPLY;
+                    break;
+                case DIVIDE:
+                    op = Bytecode.DIVIDE;
+                    break;
+                case MOD:
+                    op = Bytecode.MOD;
+                    break;
+                default:
+                {
+                    free(compileOperand(binop.getExpression2()));
+                    int d = isTemporary(a) ? a : allocate();
+                    emit(Bytecode.CONST, d, constant(0));
+                    return d;
+                }
+            }
+            Expression second = binop.getExpression2();
+            // a division by the number 0 takes the register form, which
+            // checks for it, so the _CONSTANT forms never have to
+            if (second instanceof Number && (((Number) second).getValue() != 0 ||
+                    (op != Bytecode.DIVIDE && op != Bytecode.MOD)))
+            {
+                int d = isTemporary(a) ? a : allocate();
+                emit(op + Bytecode.ADD_CONSTANT - Bytecode.ADD, d, a,
+                        ((Number) second).getValue());
+                return d;
+            }
+            if (isStale(second))
+            {
+                int d = isTemporary(a) ? a : allocate();
+                emit(op + Bytecode.ADD_VARIABLE - Bytecode.ADD, d, a,
+                        ((Variable) second).getId());
+                known.set(home(((Variable) second).getId()));
+                return d;
+            }
+            int b = compileOperand(second);
+            int d;
+            if (isTemporary(a))
+            {
+                free(b);
+                d = a;
+            }
+            else
+                d = isTemporary(b) ? b : allocate();
+            emit(op, d, a, b);
+            return d;
+        }
+        if (expr instanceof Variable)
+            return read(((Variable) expr).getId());
+        int r = allocate();
+        if (expr instanceof Number)
+            emit(Bytecode.CONST, r, constant(((Number) expr).getValue()));
+        else
+            emit(Bytecode.CONST, r, constant(0));
+        return r;
+    }
+
+    /**
+     * Returns whether an expression is a Variable whose home register does
+     * not hold its value.
+     *
+     * @param expr the expression
+     * @return true if expr is a Variable that is not valid
+     */
+    private boolean isStale(Expression expr)
+    {
+        return expr instanceof Variable && !valid.get(home(((Variable) expr).getId()));
+    }
+
+    /**
+     * Compiles an operand of a BinOp, where the Evaluator counts a
+     * procedure call as 0 without calling it.
+     *
+     * @param expr the operand to compile
+     * @return the register the value of the operand is left in
+     */
+    private int compileOperand(Expression expr)
+    {
+        if (!(expr instanceof ProcedureCall))
+            return compileExpression(expr);
+        int r = allocate();
+        emit(Bytecode.CONST, r, constant(0));
+        return r;
+    }
+
+    /**
+     * Compiles a procedure call. The arguments are evaluated into
+     * consecutive registers, and the result replaces the first of them.
+     * The CALL stores the dirty home registers of the variables the
+     * procedure may read or change, since it sees the variables of its
+     * caller, and those of variables the frame does not bind, which an
+     * exception would otherwise lose. Those it may change are not valid
+     * afterwards.
+     *
+     * @param call the ProcedureCall to compile
+     * @return the register the result of the call is left in
+     */
+    private int compileCall(ProcedureCall call)
+    {
+        int base = registers;
+        List<Expression> args = call.getArgs();
+        for (int i = 0; i < args.size(); i++)
+        {
+            int r = compileExpression(args.get(i));
+            if (!isTemporary(r))
+                emit(Bytecode.MOVE, allocate(), r);
+        }
+        registers = base;
+        int r = allocate();
+        BitSet read = new BitSet();
+        BitSet written = new BitSet();
+        effects.addEffects(call, read, written);
+        seen.or(read);
+        seen.or(written);
+        read = homes(read);
+        written = homes(written);
+        BitSet kept = (BitSet) own.clone();
+        kept.andNot(read);
+        kept.andNot(written);
+        kept.and(dirty);
+        dirty.andNot(kept);
+        emit(Bytecode.CALL, call.getId(), base, args.size(), r, noteDirty());
+        dirty = kept;
+        valid.andNot(written);
+        procedureCount = Math.max(procedureCount, call.getId() + 1);
+        return r;
+    }
+
+    /**
+     * Returns whether the Evaluator gives an expression a value when it is
+     * written or assigned, which it does for every kind the Parser makes.
+     *
+     * @param expr the expression
+     * @return true if expr is a Number, Variable, BinOp or ProcedureCall
+     */
+    private static boolean isValue(Expression expr)
+    {
+        return expr instanceof Number || expr instanceof Variable ||
+                expr instanceof BinOp || expr instanceof ProcedureCall;
+    }
+
+    /**
+     * Takes the next free register of the frame.
+     *
+     * @return the register
+     */
+    private int allocate()
+    {
+        registers++;
+        frameSize = Math.max(frameSize, registers);
+        return registers - 1;
+    }
+
+    /**
+     * Gives back a register taken by allocate, which must be the last one
+     * still taken. A home register is not given back.
+     *
+     * @param r the register
+     */
+    private void free(int r)
+    {
+        if (isTemporary(r))
+            registers--;
+    }
+
+    /**
+     * Returns whether a register is one handed out by allocate rather than
+     * the home register of a variable.
+     *
+     * @param r the register
+     * @return true if r is above the home registers
+     */
+    private boolean isTemporary(int r)
+    {
+        return r >= homeCount;
+    }
+
+    /**
+     * Returns the index of a value in the constant pool, adding it if it is
+     * not there yet.
+     *
+     * @param value the constant
+     * @return its index in the pool
+     */
+    private int constant(int value)
+    {
+        Integer index = constantIndex.get(value);
+        if (index == null)
+        {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * Notes which home registers are dirty from the next instruction on, if
+     * that changed since the last instruction.
+     *
+     * @return the index of the note, which a CALL or RETURN takes as the
+     *         home registers it stores
+     */
+    private int noteDirty()
+    {
+        int note = dirtySets.size() - 1;
+        if (dirty.equals(dirtySets.get(note)))
+            return note;
+        if (dirtyStarts.get(note) < size)
+            note++;
+        else
+        {
+            dirtyStarts.remove(note);
+            dirtySets.remove(note);
+            dirtyPairs.remove(note);
+        }
+        int[] pairs = new int[2 * dirty.cardinality()];
+        int i = 0;
+        for (int h = dirty.nextSetBit(0); h >= 0; h = dirty.nextSetBit(h + 1))
+        {
+            pairs[i++] = variables[h];
+            pairs[i++] = h;
+        }
+        dirtyStarts.add(size);
+        dirtySets.add((BitSet) dirty.clone());
+        dirtyPairs.add(pairs);
+        return note;
+    }
+
+    /**
+     * Notes the variables whose bindings an instruction may use: the one it
+     * loads, stores or reads, and the dirty ones if it stores them itself
+     * or may throw, when the VirtualMachine stores them.
+     *
+     * @param words the opcode and then the operands of the instruction
+     */
+    private void see(int[] words)
+    {
+        int op = words[0];
+        if (op == Bytecode.STORE)
+        {
+            seen.set(words[1]);
+            return;
+        }
+        if (op == Bytecode.LOAD ||
+                (op >= Bytecode.JUMP_EQUAL_VARIABLE && op <= Bytecode.JUMP_GREATER_EQUAL_VARIABLE))
+            seen.set(words[2]);
+        else if (op >= Bytecode.ADD_VARIABLE && op <= Bytecode.MOD_VARIABLE)
+            seen.set(words[3]);
+        else if (op != Bytecode.DIVIDE && op != Bytecode.MOD && op != Bytecode.CALL &&
+                op != Bytecode.RETURN)
+            return;
+        for (int h = dirty.nextSetBit(0); h >= 0; h = dirty.nextSetBit(h + 1))
+            seen.set(variables[h]);
+    }
+
+    /**
+     * Appends an instruction to the code, first noting which home registers
+     * are dirty there.
+     *
+     * @param words the opcode and then the operands of the instruction
+     */
+    private void emit(int... words)
+    {
+        noteDirty();
+        see(words);
+        if (size + words.length > code.length)
+            code = Arrays.copyOf(code, 2 * code.length);
+        last = size;
+        for (int w : words)
+            code[size++] = w;
+    }
+}
@@ -0,0 +1,266 @@
+package vm;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.If;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * CallEffects finds which variables a procedure call may read or assign
+ * in the bindings its caller sees, for the BytecodeCompiler to keep the
+ * other variables in registers across the call. A procedure sees its
+ * caller's variables, so it reaches every variable it uses, and every one
+ * the procedures it calls reach, except for those its own frame binds:
+ * its name, and the parameters that the call passes arguments for.
+ *
+ * Every ProcedureDeclaration in the Program counts, wherever it is, and a
+ * call may run any declaration with its name. The sets grow until no call
+ * adds to them.
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+class CallEffects
+{
+    private ArrayList<ProcedureDeclaration> declarations;
+    private IdentityHashMap<ProcedureDeclaration, Integer> indices;
+    private ArrayList<BitSet> reads;
+    private ArrayList<BitSet> writes;
+    private ArrayList<List<ProcedureCall>> calls;
+    private int[] fewest;
+
+    /**
+     * Finds the effects of calling every procedure of a Program.
+     *
+     * @param program the Program
+     */
+    CallEffects(Program program)
+    {
+        declarations = new ArrayList<ProcedureDeclaration>();
+        indices = new IdentityHashMap<ProcedureDeclaration, Integer>();
+        reads = new ArrayList<BitSet>();
+        writes = new ArrayList<BitSet>();
+        calls = new ArrayList<List<ProcedureCall>>();
+        fewest = new int[0];
+
+        for (ProcedureDeclaration dec : program.getProcedures())
+            add(dec);
+        List<ProcedureCall> main = new ArrayList<ProcedureCall>();
+        find(program.getStatement(), new BitSet(), new BitSet(), main);
+        for (int d = 0; d < declarations.size(); d++)
+            find(declarations.get(d).getDeclaration(), reads.get(d), writes.get(d),
+                    calls.get(d));
+
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (int d = 0; d < declarations.size(); d++)
+            {
+                BitSet read = (BitSet) reads.get(d).clone();
+                BitSet written = (BitSet) writes.get(d).clone();
+                for (ProcedureCall call : calls.get(d))
+                    addEffects(call, read, written);
+                if (!read.equals(reads.get(d)) || !written.equals(writes.get(d)))
+                {
+                    reads.set(d, read);
+                    writes.set(d, written);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the variables a call may read and assign, outside of the frame
+     * it binds, to two sets.
+     *
+     * @param call the ProcedureCall
+     * @param read the ids of the variables read; it is updated
+     * @param written the ids of the variables assigned; it is updated
+     */
+    void addEffects(ProcedureCall call, BitSet read, BitSet written)
+    {
+        for (int d = 0; d < declarations.size(); d++)
+        {
+            ProcedureDeclaration dec = declarations.get(d);
+            if (dec.getId() == call.getId())
+            {
+                BitSet bound = bound(dec, call.getArgs().size());
+                BitSet r = (BitSet) reads.get(d).clone();
+                r.andNot(bound);
+                read.or(r);
+                BitSet w = (BitSet) writes.get(d).clone();
+                w.andNot(bound);
+                written.or(w);
+            }
+        }
+    }
+
+    /**
+     * Returns the variables that every call of a procedure binds in its
+     * frame, which the caller does not see again once the call returns: its
+     * name, and the parameters that even the call with the fewest arguments
+     * passes.
+     *
+     * @param dec the ProcedureDeclaration
+     * @return the ids of the variables
+     */
+    BitSet bound(ProcedureDeclaration dec)
+    {
+        return bound(dec, arguments(dec));
+    }
+
+    /**
+     * Returns the fewest arguments that any call of a procedure passes, or
+     * the number of its parameters if that is fewer.
+     *
+     * @param dec the ProcedureDeclaration
+     * @return the number of parameters every call binds
+     */
+    int arguments(ProcedureDeclaration dec)
+    {
+        int id = dec.getId();
+        int count = id < fewest.length ? fewest[id] : Integer.MAX_VALUE;
+        return Math.min(count, dec.getParams().length);
+    }
+
+    /**
+     * Returns the variables that a call of a procedure with some number of
+     * arguments binds in its frame.
+     *
+     * @param dec the ProcedureDeclaration
+     * @param count the number of arguments
+     * @return the ids of the variables
+     */
+    private static BitSet bound(ProcedureDeclaration dec, int count)
+    {
+        BitSet bound = new BitSet();
+        bound.set(dec.getId());
+        int[] params = dec.getParams();
+        for (int i = 0; i < count && i < params.length; i++)
+            bound.set(params[i]);
+        return bound;
+    }
+
+    /**
+     * Adds a ProcedureDeclaration to those found, unless it is there already.
+     *
+     * @param dec the ProcedureDeclaration
+     */
+    private void add(ProcedureDeclaration dec)
+    {
+        if (indices.containsKey(dec))
+            return;
+        indices.put(dec, declarations.size());
+        declarations.add(dec);
+        reads.add(new BitSet());
+        writes.add(new BitSet());
+        calls.add(new ArrayList<ProcedureCall>());
+    }
+
+    /**
+     * Finds the variables a statement reads and assigns and the calls it
+     * makes itself. A ProcedureDeclaration in it is added to those found and
+     * not looked into.
+     *
+     * @param statement the statement
+     * @param read the ids of the variables read; it is updated
+     * @param written the ids of the variables assigned; it is updated
+     * @param made the calls made; it is updated
+     */
+    private void find(Statement statement, BitSet read, BitSet written,
+            List<ProcedureCall> made)
+    {
+        if (statement instanceof ProcedureDeclaration)
+            add((ProcedureDeclaration) statement);
+        else if (statement instanceof Writeln)
+            find(((Writeln) statement).getExpression(), read, made);
+        else if (statement instanceof Assignment)
+        {
+            written.set(((Assignment) statement).getVariableId());
+            find(((Assignment) statement).getExpression(), read, made);
+        }
+        else if (statement instanceof Block)
+        {
+            for (Statement s : ((Block) statement).getStatements())
+                find(s, read, written, made);
+        }
+        else if (statement instanceof If)
+        {
+            find(((If) statement).getCondition(), read, made);
+            find(((If) statement).getStatement(), read, written, made);
+        }
+        else if (statement instanceof While)
+        {
+            find(((While) statement).getCondition(), read, made);
+            find(((While) statement).getStatement(), read, written, made);
+        }
+    }
+
+    /**
+     * Finds the variables a Condition reads and the calls it makes.
+     *
+     * @param c the Condition
+     * @param read the ids of the variables read; it is updated
+     * @param made the calls made; it is updated
+     */
+    private void find(Condition c, BitSet read, List<ProcedureCall> made)
+    {
+        find(c.getExpression1(), read, made);
+        find(c.getExpression2(), read, made);
+    }
+
+    /**
+     * Finds the variables an expression reads and the calls it makes, noting
+     * the fewest arguments each procedure is called with. A call that is an
+     * operand of a BinOp is not made.
+     *
+     * @param expr the expression
+     * @param read the ids of the variables read; it is updated
+     * @param made the calls made; it is updated
+     */
+    private void find(Expression expr, BitSet read, List<ProcedureCall> made)
+    {
+        if (expr instanceof Variable)
+            read.set(((Variable) expr).getId());
+        else if (expr instanceof BinOp)
+        {
+            BinOp binop = (BinOp) expr;
+            if (!(binop.getExpression1() instanceof ProcedureCall))
+                find(binop.getExpression1(), read, made);
+            if (!(binop.getExpression2() instanceof ProcedureCall))
+                find(binop.getExpression2(), read, made);
+        }
+        else if (expr instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) expr;
+            made.add(call);
+            int id = call.getId();
+            if (id >= fewest.length)
+            {
+                int old = fewest.length;
+                fewest = Arrays.copyOf(fewest, Math.max(id + 1, 2 * old));
+                Arrays.fill(fewest, old, fewest.length, Integer.MAX_VALUE);
+            }
+            fewest[id] = Math.min(fewest[id], call.getArgs().size());
+            for (Expression arg : call.getArgs())
+                find(arg, read, made);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package vm;
+
+import ast.ProcedureDeclaration;
+import ast.Program;
+import environment.Environment;
+import scanner.SymbolTable;
+
+import java.util.Arrays;
+
+/**
+ * A VirtualMachine runs Bytecode in a single loop that switches on each
+ * opcode, instead of walking the AST the way the Evaluator does. Its
+ * output and its effect on the Environment are the same as the
+ * Evaluator's, except that a call to a procedure that was never declared,
+ * or with more arguments than parameters, fails after all its arguments
+ * are evaluated rather than partway through them.
+ *
+ * The registers of every active function are in one int array, each frame
+ * right above its caller's, and procedure calls push onto a stack of ints
+ * rather than onto the Java stack, so a call allocates nothing once the
+ * arrays have grown, and recursion too deep for the Java stack of the
+ * Evaluator still runs. The home registers that hold variables are stored
+ * by the code itself before calls and returns; when an instruction throws,
+ * the ones it had not stored yet are stored before the exception leaves.
+ *
+ * Usage: new VirtualMachine().exec(program, new Environment(null));
+ *
+ * @author Daniel Wu
+ * @version 10/17/2026
+ */
+public class VirtualMachine
+{
+    private static final int FRAME = 5;
+
+    private int[] registers = new int[64];
+    private int[] calls = new int[16 * FRAME];
+
+    /**
+     * Compiles a Program with a BytecodeCompiler and runs it.
+     *
+     * @param program the Program to run
+     * @param env the global environment of the program
+     * @throws Exception when variable is not found
+     */
+    public void exec(Program program, Environment env) throws Exception
+    {
+        exec(new BytecodeCompiler().compile(program), env);
+    }
+
+    /**
+     * Runs Bytecode from the start of its main statement until it halts.
+     * The procedures it declares are also set in the Environment.
+     *
+     * @param bytecode the Bytecode to run
+     * @param env the global environment of the program
+     * @throws Exception when variable is not found
+     */
+    public void exec(Bytecode bytecode, Environment env) throws Exception
+    {
+        int[] code = bytecode.getCode();
+        int[] constants = bytecode.getConstants();
+        int[] procedures = new int[bytecode.getProcedureCount()];
+        Arrays.fill(procedures, -1);
+        int functions = bytecode.getFunctionCount();
+        int[] entries = new int[functions];
+        int[] frameSizes = new int[functions];
+        int[][] params = new int[functions][];
+        int[][] binds = new int[functions][];
+        int[][] stores = bytecode.getDirtySets();
+        for (int f = 0; f < functions; f++)
+        {
+            entries[f] = bytecode.getEntry(f);
+            frameSizes[f] = bytecode.getFrameSize(f);
+            binds[f] = bytecode.getBindings(f);
+            if (f > 0)
+                params[f] = bytecode.getDeclaration(f).getParams();
+        }
+
+        int[] r = ensureRegisters(bytecode.getFrameSize(0));
+        int function = 0;
+        int fp = 0;
+        int sp = 0;
+        int pc = bytecode.getEntry(0);
+        // variables are read and written straight through the arrays of
+        // the environment when they are declared in it; the arrays have
+        // room for every id, so binding a frame never replaces them
+        env.reserveVariables(SymbolTable.size());
+        int[] values = env.getValues();
+        boolean[] declared = env.getDeclared();
+        int mark = env.getBindings();
+        try
+        {
+            while (true)
+            {
+                switch (code[pc])
+                {
+                    case Bytecode.CONST:
+                        r[fp + code[pc + 1]] = constants[code[pc + 2]];
+                        pc += 3;
+                        break;
+                    case Bytecode.LOAD:
+                    {
+                        int v = code[pc + 2];
+                        r[fp + code[pc + 1]] = declared[v] ? values[v]
+                                : read(env, v, bytecode, pc, r, fp);
+                        pc += 3;
+                        break;
+                    }
+                    case Bytecode.STORE:
+                    {
+                        int v = code[pc + 1];
+                        if (declared[v])
+                            values[v] = r[fp + code[pc + 2]];
+                        else
+                            env.setVariable(v, r[fp + code[pc + 2]]);
+                        pc += 3;
+                        break;
+                    }
+                    case Bytecode.ADD:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] + r[fp + code[pc + 3]];
+                        pc += 4;
+                        break;
+                    case Bytecode.SUBTRACT:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] - r[fp + code[pc + 3]];
+                        pc += 4;
+                        break;
+                    case Bytecode.MULTIPLY:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] * r[fp + code[pc + 3]];
+                        pc += 4;
+                        break;
+                    case Bytecode.DIVIDE:
+                    {
+                        int b = r[fp + code[pc + 3]];
+                        // a division by zero throws below, once the home
+                        // registers it leaves are stored
+                        if (b == 0)
+                            writeBack(bytecode, pc, r, fp, env);
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] / b;
+                        pc += 4;
+                        break;
+                    }
+                    case Bytecode.MOD:
+                    {
+                        int b = r[fp + code[pc + 3]];
+                        if (b == 0)
+                            writeBack(bytecode, pc, r, fp, env);
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] % b;
+                        pc += 4;
+                        break;
+                    }
+                    case Bytecode.ADD_CONSTANT:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] + code[pc + 3];
+                        pc += 4;
+                        break;
+                    case Bytecode.SUBTRACT_CONSTANT:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] - code[pc + 3];
+                        pc += 4;
+                        break;
+                    case Bytecode.MULTIPLY_CONSTANT:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] * code[pc + 3];
+                        pc += 4;
+                        break;
+                    case Bytecode.DIVIDE_CONSTANT:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] / code[pc + 3];
+                        pc += 4;
+                        break;
+                    case Bytecode.MOD_CONSTANT:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] % code[pc + 3];
+                        pc += 4;
+                        break;
+                    case Bytecode.ADD_VARIABLE:
+                    {
+                        int v = code[pc + 3];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] + b;
+                        pc += 4;
+                        break;
+                    }
+                    case Bytecode.SUBTRACT_VARIABLE:
+                    {
+                        int v = code[pc + 3];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] - b;
+                        pc += 4;
+                        break;
+                    }
+                    case Bytecode.MULTIPLY_VARIABLE:
+                    {
+                        int v = code[pc + 3];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] * b;
+                        pc += 4;
+                        break;
+                    }
+                    case Bytecode.DIVIDE_VARIABLE:
+                    {
+                        int v = code[pc + 3];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        if (b == 0)
+                            writeBack(bytecode, pc, r, fp, env);
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] / b;
+                        pc += 4;
+                        break;
+                    }
+                    case Bytecode.MOD_VARIABLE:
+                    {
+                        int v = code[pc + 3];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        if (b == 0)
+                            writeBack(bytecode, pc, r, fp, env);
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]] % b;
+                        pc += 4;
+                        break;
+                    }
+                    case Bytecode.JUMP:
+                        pc = code[pc + 1];
+                        break;
+                    case Bytecode.JUMP_EQUAL:
+                        pc = r[fp + code[pc + 1]] == r[fp + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_NOT_EQUAL:
+                        pc = r[fp + code[pc + 1]] != r[fp + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_LESS:
+                        pc = r[fp + code[pc + 1]] < r[fp + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_GREATER:
+                        pc = r[fp + code[pc + 1]] > r[fp + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_LESS_EQUAL:
+                        pc = r[fp + code[pc + 1]] <= r[fp + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_GREATER_EQUAL:
+                        pc = r[fp + code[pc + 1]] >= r[fp + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_EQUAL_CONSTANT:
+                        pc = r[fp + code[pc + 1]] == code[pc + 2] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_NOT_EQUAL_CONSTANT:
+                        pc = r[fp + code[pc + 1]] != code[pc + 2] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_LESS_CONSTANT:
+                        pc = r[fp + code[pc + 1]] < code[pc + 2] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_GREATER_CONSTANT:
+                        pc = r[fp + code[pc + 1]] > code[pc + 2] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_LESS_EQUAL_CONSTANT:
+                        pc = r[fp + code[pc + 1]] <= code[pc + 2] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_GREATER_EQUAL_CONSTANT:
+                        pc = r[fp + code[pc + 1]] >= code[pc + 2] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Bytecode.JUMP_EQUAL_VARIABLE:
+                    {
+                        int v = code[pc + 2];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        pc = r[fp + code[pc + 1]] == b ? code[pc + 3] : pc + 4;
+                        break;
+                    }
+                    case Bytecode.JUMP_NOT_EQUAL_VARIABLE:
+                    {
+                        int v = code[pc + 2];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        pc = r[fp + code[pc + 1]] != b ? code[pc + 3] : pc + 4;
+                        break;
+                    }
+                    case Bytecode.JUMP_LESS_VARIABLE:
+                    {
+                        int v = code[pc + 2];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        pc = r[fp + code[pc + 1]] < b ? code[pc + 3] : pc + 4;
+                        break;
+                    }
+                    case Bytecode.JUMP_GREATER_VARIABLE:
+                    {
+                        int v = code[pc + 2];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        pc = r[fp + code[pc + 1]] > b ? code[pc + 3] : pc + 4;
+                        break;
+                    }
+                    case Bytecode.JUMP_LESS_EQUAL_VARIABLE:
+                    {
+                        int v = code[pc + 2];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        pc = r[fp + code[pc + 1]] <= b ? code[pc + 3] : pc + 4;
+                        break;
+                    }
+                    case Bytecode.JUMP_GREATER_EQUAL_VARIABLE:
+                    {
+                        int v = code[pc + 2];
+                        int b = declared[v] ? values[v] : read(env, v, bytecode, pc, r, fp);
+                        pc = r[fp + code[pc + 1]] >= b ? code[pc + 3] : pc + 4;
+                        break;
+                    }
+                    case Bytecode.WRITE:
+                        System.out.println(r[fp + code[pc + 1]]);
+                        pc += 2;
+                        break;
+                    case Bytecode.CALL:
+                    {
+                        store(stores[code[pc + 5]], r, fp, values, declared, env);
+                        int id = code[pc + 1];
+                        int callee = procedures[id];
+                        if (callee < 0)
+                            throw new NullPointerException("Procedure has not been declared");
+                        int[] names = params[callee];
+                        int count = code[pc + 3];
+                        if (count > names.length)
+                            throw new ArrayIndexOutOfBoundsException("Index " + names.length +
+                                    " out of bounds for length " + names.length);
+
+                        if (sp + FRAME > calls.length)
+                            calls = Arrays.copyOf(calls, 2 * calls.length);
+                        calls[sp] = pc + 6;
+                        calls[sp + 1] = fp;
+                        calls[sp + 2] = function;
+                        calls[sp + 3] = fp + code[pc + 4];
+                        calls[sp + 4] = env.getBindings();
+                        sp += FRAME;
+
+                        int args = fp + code[pc + 2];
+                        env.bindFrame(binds[callee], r, args, count);
+                        fp += frameSizes[function];
+                        function = callee;
+                        r = ensureRegisters(fp + frameSizes[function]);
+                        System.arraycopy(r, args, r, fp, count);
+                        pc = entries[function];
+                        break;
+                    }
+                    case Bytecode.MOVE:
+                        r[fp + code[pc + 1]] = r[fp + code[pc + 2]];
+                        pc += 3;
+                        break;
+                    case Bytecode.RETURN:
+                    {
+                        store(stores[code[pc + 2]], r, fp, values, declared, env);
+                        int value = r[fp + code[pc + 1]];
+                        sp -= FRAME;
+                        pc = calls[sp];
+                        fp = calls[sp + 1];
+                        function = calls[sp + 2];
+                        r[calls[sp + 3]] = value;
+                        env.unbind(calls[sp + 4]);
+                        break;
+                    }
+                    case Bytecode.DEFINE:
+                    {
+                        ProcedureDeclaration dec = bytecode.getDeclaration(code[pc + 1]);
+                        procedures[dec.getId()] = code[pc + 1];
+                        env.setProcedure(dec.getId(), dec);
+                        pc += 2;
+                        break;
+                    }
+                    case Bytecode.HALT:
+                        return;
+                    default:
+                        throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+                }
+            }
+        }
+        finally
+        {
+            env.unbind(mark);
+        }
+    }
+
+    /**
+     * Reads a variable that is not declared in the Environment itself, so
+     * that it is either in a parent Environment or not declared at all. In
+     * the second case the home registers the instruction at pc leaves are
+     * stored before the exception is thrown, as they are at a division by
+     * zero; no other instruction throws while any are left.
+     *
+     * @param env the global environment of the program
+     * @param v the id of the variable
+     * @param bytecode the Bytecode that is running
+     * @param pc the index of the instruction reading the variable
+     * @param r the register array
+     * @param fp the index in r of the frame of the running function
+     * @return the value of the variable
+     * @throws Exception when variable is not found
+     */
+    private static int read(Environment env, int v, Bytecode bytecode, int pc, int[] r, int fp)
+            throws Exception
+    {
+        try
+        {
+            return env.getVariable(v);
+        }
+        catch (Exception e)
+        {
+            writeBack(bytecode, pc, r, fp, env);
+            throw e;
+        }
+    }
+
+    /**
+     * Stores the home registers that an instruction about to throw leaves,
+     * so the Environment ends up as the Evaluator would leave it. Doing it
+     * here rather than in a handler around the whole loop keeps the loop
+     * free of a handler that would need pc and fp at every instruction.
+     *
+     * @param bytecode the Bytecode that is running
+     * @param pc the index of the instruction
+     * @param r the register array
+     * @param fp the index in r of the frame of the running function
+     * @param env the global environment of the program
+     */
+    private static void writeBack(Bytecode bytecode, int pc, int[] r, int fp, Environment env)
+    {
+        int[] dirty = bytecode.getDirty(pc);
+        for (int i = 0; i < dirty.length; i += 2)
+            env.setVariable(dirty[i], r[fp + dirty[i + 1]]);
+    }
+
+    /**
+     * Stores home registers to their variables, for a CALL or RETURN.
+     *
+     * @param dirty pairs of a variable id and its home register
+     * @param r the register array
+     * @param fp the index in r of the frame of the running function
+     * @param values the values of the variables of the environment
+     * @param declared which variables are declared in the environment
+     * @param env the global environment of the program
+     */
+    private static void store(int[] dirty, int[] r, int fp, int[] values, boolean[] declared,
+                              Environment env)
+    {
+        for (int i = 0; i < dirty.length; i += 2)
+        {
+            int v = dirty[i];
+            if (declared[v])
+                values[v] = r[fp + dirty[i + 1]];
+            else
+                env.setVariable(v, r[fp + dirty[i + 1]]);
+        }
+    }
+
+    /**
+     * Makes sure that the register array is long enough for a frame.
+     *
+     * @param length the index after the last register of the frame
+     * @return the instance field registers
+     */
+    private int[] ensureRegisters(int length)
+    {
+        if (length > registers.length)
+            registers = Arrays.copyOf(registers, Math.max(length, 2 * registers.length));
+        return registers;
+    }
+}